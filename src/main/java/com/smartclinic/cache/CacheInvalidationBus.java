@@ -0,0 +1,14 @@
+package com.smartclinic.cache;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Broadcasts cache invalidations to every node so each can drop its local copy.
+ * A null key invalidates the whole cache. Listeners may also receive the publishing node's own messages.
+ */
+public interface CacheInvalidationBus {
+    
+    void publish(String cacheName, Object key);
+    
+    void subscribe(BiConsumer<String, Object> listener);
+}
@@ -0,0 +1,24 @@
+package com.smartclinic.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * In-process {@link CacheInvalidationBus}: delivers synchronously to the subscribers of this instance.
+ * Used on a single node, and in tests by sharing one bus between several cache managers.
+ */
+public class InMemoryCacheInvalidationBus implements CacheInvalidationBus {
+    
+    private final List<BiConsumer<String, Object>> listeners = new CopyOnWriteArrayList<>();
+    
+    @Override
+    public void publish(String cacheName, Object key) {
+        listeners.forEach(listener -> listener.accept(cacheName, key));
+    }
+    
+    @Override
+    public void subscribe(BiConsumer<String, Object> listener) {
+        listeners.add(listener);
+    }
+}
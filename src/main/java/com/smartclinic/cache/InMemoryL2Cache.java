@@ -0,0 +1,36 @@
+package com.smartclinic.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Unbounded in-process {@link L2Cache}, standing in for a shared store in tests and single-node setups
+ */
+public class InMemoryL2Cache implements L2Cache {
+    
+    private final Map<String, Map<Object, Object>> caches = new ConcurrentHashMap<>();
+    
+    @Override
+    public Object get(String cacheName, Object key) {
+        return entries(cacheName).get(key);
+    }
+    
+    @Override
+    public void put(String cacheName, Object key, Object value) {
+        entries(cacheName).put(key, value);
+    }
+    
+    @Override
+    public void evict(String cacheName, Object key) {
+        entries(cacheName).remove(key);
+    }
+    
+    @Override
+    public void clear(String cacheName) {
+        entries(cacheName).clear();
+    }
+    
+    private Map<Object, Object> entries(String cacheName) {
+        return caches.computeIfAbsent(cacheName, name -> new ConcurrentHashMap<>());
+    }
+}
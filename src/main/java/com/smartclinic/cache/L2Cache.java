@@ -0,0 +1,16 @@
+package com.smartclinic.cache;
+
+/**
+ * Optional shared second-level store behind the per-node caches (e.g. Redis in a multi-node deployment).
+ * Entries are addressed by cache name and key; a null result is a miss.
+ */
+public interface L2Cache {
+    
+    Object get(String cacheName, Object key);
+    
+    void put(String cacheName, Object key, Object value);
+    
+    void evict(String cacheName, Object key);
+    
+    void clear(String cacheName);
+}
@@ -0,0 +1,79 @@
+package com.smartclinic.cache;
+
+import com.smartclinic.model.CacheInvalidation;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * {@link CacheInvalidationBus} that broadcasts through a capped MongoDB collection. Every node appends its
+ * invalidations and follows the collection with a tailable cursor on the reactive driver, so no extra
+ * infrastructure is needed. The cursor is re-opened with backoff if it dies.
+ */
+@Slf4j
+public class MongoCacheInvalidationBus implements CacheInvalidationBus {
+    
+    private static final long CAPPED_SIZE_BYTES = 1024 * 1024;
+    private static final long CAPPED_MAX_DOCUMENTS = 10_000;
+    
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final String origin = UUID.randomUUID().toString();
+    private final List<BiConsumer<String, Object>> listeners = new CopyOnWriteArrayList<>();
+    private final Disposable subscription;
+    
+    public MongoCacheInvalidationBus(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        Instant since = Instant.now();
+        this.subscription = ensureCollection()
+            .thenMany(reactiveMongoTemplate.tail(query(where("at").gte(since)), CacheInvalidation.class))
+            .filter(message -> message.getCacheName() != null && !origin.equals(message.getOrigin()))
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))
+                .doBeforeRetry(signal -> log.warn("Cache invalidation cursor failed, reopening", signal.failure())))
+            .subscribe(message -> listeners.forEach(listener -> listener.accept(message.getCacheName(), message.getKey())));
+    }
+    
+    @Override
+    public void publish(String cacheName, Object key) {
+        reactiveMongoTemplate.insert(new CacheInvalidation(null, origin, cacheName, key, Instant.now()))
+            .subscribe(saved -> { }, error -> log.error("Failed to broadcast invalidation of {}[{}]", cacheName, key, error));
+    }
+    
+    @Override
+    public void subscribe(BiConsumer<String, Object> listener) {
+        listeners.add(listener);
+    }
+    
+    @PreDestroy
+    public void close() {
+        subscription.dispose();
+    }
+    
+    /**
+     * Creates the capped collection if needed. A tailable cursor on an empty capped collection is closed
+     * straight away, so a marker document is written first.
+     */
+    private Mono<Void> ensureCollection() {
+        return reactiveMongoTemplate.collectionExists(CacheInvalidation.class)
+            .flatMap(exists -> exists
+                ? Mono.<Void>empty()
+                : reactiveMongoTemplate.createCollection(CacheInvalidation.class,
+                        CollectionOptions.empty().capped().size(CAPPED_SIZE_BYTES).maxDocuments(CAPPED_MAX_DOCUMENTS))
+                    .then(reactiveMongoTemplate.insert(new CacheInvalidation(null, origin, null, null, Instant.now())))
+                    .then())
+            .onErrorResume(error -> Mono.empty()); // another node created it first
+    }
+}
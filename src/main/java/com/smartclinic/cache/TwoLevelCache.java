@@ -0,0 +1,107 @@
+package com.smartclinic.cache;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Spring {@link org.springframework.cache.Cache} made of a bounded per-node Caffeine cache (W-TinyLFU eviction)
+ * in front of an optional shared {@link L2Cache}. Evictions and clears are applied to both levels and published
+ * on the {@link CacheInvalidationBus} so other nodes drop their local copies. Null values are not cached.
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+    
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final L2Cache shared;
+    private final CacheInvalidationBus invalidationBus;
+    
+    public TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> local,
+            L2Cache shared, CacheInvalidationBus invalidationBus) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.shared = shared;
+        this.invalidationBus = invalidationBus;
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public com.github.benmanes.caffeine.cache.Cache<Object, Object> getNativeCache() {
+        return local;
+    }
+    
+    @Override
+    protected Object lookup(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value == null && shared != null) {
+            value = shared.get(name, key);
+            if (value != null) {
+                local.put(key, value);
+            }
+        }
+        return value;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // Loaded outside Caffeine's compute: that runs under a map lock, which would pin a virtual thread for the whole query
+        Object value = lookup(key);
+        if (value == null) {
+            value = toStoreValue(load(key, valueLoader));
+            put(key, value);
+        }
+        return (T) fromStoreValue(value);
+    }
+    
+    @Override
+    public void put(Object key, Object value) {
+        Object storeValue = toStoreValue(value);
+        local.put(key, storeValue);
+        if (shared != null) {
+            shared.put(name, key, storeValue);
+        }
+    }
+    
+    @Override
+    public void evict(Object key) {
+        local.invalidate(key);
+        if (shared != null) {
+            shared.evict(name, key);
+        }
+        invalidationBus.publish(name, key);
+    }
+    
+    @Override
+    public void clear() {
+        local.invalidateAll();
+        if (shared != null) {
+            shared.clear(name);
+        }
+        invalidationBus.publish(name, null);
+    }
+    
+    /**
+     * Applies an invalidation received from another node to this node's L1 only
+     */
+    void evictLocal(Object key) {
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+    
+    private static <T> T load(Object key, Callable<T> valueLoader) {
+        try {
+            return valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.smartclinic.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache manager for a fixed set of {@link TwoLevelCache}s, each configured with a Caffeine spec string.
+ * Puts and evictions are deferred until the surrounding transaction commits, and invalidations arriving
+ * on the bus are applied to the matching local cache.
+ */
+public class TwoLevelCacheManager extends AbstractTransactionSupportingCacheManager {
+    
+    private final Map<String, String> specs;
+    private final L2Cache shared;
+    private final CacheInvalidationBus invalidationBus;
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    
+    /**
+     * @param shared may be null to run with the per-node level only
+     */
+    public TwoLevelCacheManager(Map<String, String> specs, L2Cache shared, CacheInvalidationBus invalidationBus) {
+        this.specs = specs;
+        this.shared = shared;
+        this.invalidationBus = invalidationBus;
+        setTransactionAware(true);
+        invalidationBus.subscribe((cacheName, key) -> {
+            TwoLevelCache cache = caches.get(cacheName);
+            if (cache != null) {
+                cache.evictLocal(key);
+            }
+        });
+    }
+    
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        List<TwoLevelCache> loaded = new ArrayList<>();
+        specs.forEach((name, spec) -> {
+            TwoLevelCache cache = new TwoLevelCache(name,
+                Caffeine.from(CaffeineSpec.parse(spec)).recordStats().build(), shared, invalidationBus);
+            caches.put(name, cache);
+            loaded.add(cache);
+        });
+        return loaded;
+    }
+}
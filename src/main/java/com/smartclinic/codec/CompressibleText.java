@@ -0,0 +1,74 @@
+package com.smartclinic.codec;
+
+import java.util.Objects;
+
+/**
+ * Text value that may be held in encoded (compressed) form and is only decoded on first access
+ * Lets documents be loaded and re-saved without paying for decompression of fields nobody reads
+ */
+public final class CompressibleText {
+    
+    private final TextCodec codec;
+    private final byte[] encoded;
+    private volatile String value;
+    
+    private CompressibleText(String value, TextCodec codec, byte[] encoded) {
+        this.value = value;
+        this.codec = codec;
+        this.encoded = encoded;
+    }
+    
+    public static CompressibleText of(String value) {
+        return value != null ? new CompressibleText(value, null, null) : null;
+    }
+    
+    public static CompressibleText encoded(TextCodec codec, byte[] encoded) {
+        return new CompressibleText(null, codec, encoded);
+    }
+    
+    public static String valueOf(CompressibleText text) {
+        return text != null ? text.getValue() : null;
+    }
+    
+    public String getValue() {
+        String current = value;
+        if (current == null) {
+            current = codec.decode(encoded);
+            value = current;
+        }
+        return current;
+    }
+    
+    /**
+     * True while the value is still held only in its stored, encoded form.
+     */
+    public boolean isEncoded() {
+        return encoded != null && value == null;
+    }
+    
+    TextCodec getCodec() {
+        return codec;
+    }
+    
+    byte[] getEncoded() {
+        return encoded;
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        return other instanceof CompressibleText text && Objects.equals(getValue(), text.getValue());
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getValue());
+    }
+    
+    @Override
+    public String toString() {
+        return getValue();
+    }
+}
@@ -0,0 +1,102 @@
+package com.smartclinic.codec;
+
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.mongodb.core.convert.MongoConversionContext;
+import org.springframework.data.mongodb.core.convert.MongoValueConverter;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mongo property converter that stores large {@link CompressibleText} values as
+ * {@code {codec, data}} sub-documents and small ones as plain strings.
+ * Reading never decodes; decoding happens when the value is first accessed.
+ */
+public class CompressingTextConverter implements MongoValueConverter<CompressibleText, Object> {
+    
+    static final String CODEC_FIELD = "codec";
+    static final String DATA_FIELD = "data";
+    
+    private final TextCodec codec;
+    private final TextCodecs codecs;
+    private final int thresholdBytes;
+    
+    /**
+     * @param codec  codec used for new values
+     * @param codecs codecs that stored values may have been written with
+     */
+    public CompressingTextConverter(TextCodec codec, TextCodecs codecs, int thresholdBytes) {
+        this.codec = codec;
+        this.codecs = codecs;
+        this.thresholdBytes = thresholdBytes;
+    }
+    
+    @Override
+    public CompressibleText read(Object stored, MongoConversionContext context) {
+        return fromStored(stored);
+    }
+    
+    @Override
+    public Object write(CompressibleText text, MongoConversionContext context) {
+        if (text.isEncoded()) {
+            // Untouched since it was loaded: write the stored bytes back instead of re-encoding
+            return encodedDocument(text.getCodec().name(), text.getEncoded());
+        }
+        String value = text.getValue();
+        // A char never takes more than three UTF-8 bytes, so short values skip the byte count
+        if (value.length() * 3L < thresholdBytes) {
+            return value;
+        }
+        int plainBytes = value.getBytes(StandardCharsets.UTF_8).length;
+        if (plainBytes < thresholdBytes) {
+            return value;
+        }
+        byte[] encoded = codec.encode(value);
+        // Incompressible text (e.g. already-encoded blobs) stays plain
+        return encoded.length < plainBytes ? encodedDocument(codec.name(), encoded) : value;
+    }
+    
+    /**
+     * Converts a raw stored value (plain string or encoded sub-document) into a lazy text value.
+     * Useful for code paths, such as aggregations, that read raw BSON documents.
+     */
+    public CompressibleText fromStored(Object stored) {
+        if (stored == null) {
+            return null;
+        }
+        if (stored instanceof Document document) {
+            Object data = document.get(DATA_FIELD);
+            byte[] bytes = data instanceof Binary binary ? binary.getData() : (byte[]) data;
+            return CompressibleText.encoded(codecs.forName(document.getString(CODEC_FIELD)), bytes);
+        }
+        return CompressibleText.of(stored.toString());
+    }
+    
+    private Document encodedDocument(String codecName, byte[] encoded) {
+        return new Document(CODEC_FIELD, codecName).append(DATA_FIELD, new Binary(encoded));
+    }
+    
+    /**
+     * Fallback for values written outside a registered property (e.g. ad-hoc updates).
+     * Registering it also makes CompressibleText a simple type, so mapping and index
+     * resolution treat it as a leaf value instead of an embedded document.
+     */
+    @WritingConverter
+    public static class PlainTextWritingConverter implements Converter<CompressibleText, String> {
+        @Override
+        public String convert(CompressibleText source) {
+            return source.getValue();
+        }
+    }
+    
+    @ReadingConverter
+    public static class PlainTextReadingConverter implements Converter<String, CompressibleText> {
+        @Override
+        public CompressibleText convert(String source) {
+            return CompressibleText.of(source);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.smartclinic.codec;
+
+/**
+ * Pluggable codec used to compress large free-text fields before they are stored
+ * The codec name is persisted next to the encoded bytes so stored values stay readable after a codec change
+ */
+public interface TextCodec {
+    
+    String name();
+    
+    byte[] encode(String value);
+    
+    String decode(byte[] encoded);
+}
@@ -0,0 +1,26 @@
+package com.smartclinic.codec;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Available text codecs, looked up by the name stored alongside encoded values
+ */
+public class TextCodecs {
+    
+    private final Map<String, TextCodec> codecs;
+    
+    public TextCodecs(List<TextCodec> codecs) {
+        this.codecs = codecs.stream().collect(Collectors.toUnmodifiableMap(TextCodec::name, Function.identity()));
+    }
+    
+    public TextCodec forName(String name) {
+        TextCodec codec = codecs.get(name);
+        if (codec == null) {
+            throw new IllegalStateException("Unknown text codec: " + name);
+        }
+        return codec;
+    }
+}
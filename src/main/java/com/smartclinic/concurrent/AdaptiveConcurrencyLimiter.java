@@ -0,0 +1,163 @@
+package com.smartclinic.concurrent;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrency limit that adapts to observed latency (gradient style). Each completed call feeds its
+ * round-trip time into a short and a long moving average; while the short average stays within
+ * {@code tolerance} of the long one the limit grows by about its square root, and once latency climbs
+ * above that the limit shrinks by the ratio of the two, down to half per update.
+ * Lower priorities may only use a share of the limit, so they are shed first as in-flight calls approach it.
+ */
+public final class AdaptiveConcurrencyLimiter {
+    
+    public enum Priority {
+        CRITICAL(1.0),
+        NORMAL(0.9),
+        SHEDDABLE(0.6);
+        
+        private final double share;
+        
+        Priority(double share) {
+            this.share = share;
+        }
+    }
+    
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+    
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<Priority, LongAdder> rejected = new EnumMap<>(Priority.class);
+    // Guards the averages; a lock rather than synchronized so virtual request threads are never pinned
+    private final ReentrantLock sampleLock = new ReentrantLock();
+    
+    private volatile double limit;
+    private double shortRtt;
+    private double longRtt;
+    
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing) {
+        this(initialLimit, minLimit, maxLimit, tolerance, smoothing, System::nanoTime);
+    }
+    
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+            LongSupplier nanoClock) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.nanoClock = nanoClock;
+        this.limit = initialLimit;
+        for (Priority priority : Priority.values()) {
+            rejected.put(priority, new LongAdder());
+        }
+    }
+    
+    /**
+     * Admits a call if in-flight calls are below this priority's share of the limit
+     */
+    public Optional<Permit> tryAcquire(Priority priority) {
+        int allowed = Math.max(1, (int) (getLimit() * priority.share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                rejected.get(priority).increment();
+                return Optional.empty();
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return Optional.of(new Permit(nanoClock.getAsLong(), current + 1));
+            }
+        }
+    }
+    
+    public int getLimit() {
+        return (int) limit;
+    }
+    
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    
+    public long getRejected(Priority priority) {
+        return rejected.get(priority).sum();
+    }
+    
+    private void onSample(long rttNanos, int inFlightAtStart) {
+        sampleLock.lock();
+        try {
+            double rtt = Math.max(1, rttNanos);
+            if (longRtt == 0) {
+                shortRtt = rtt;
+                longRtt = rtt;
+                return;
+            }
+            shortRtt += (rtt - shortRtt) / SHORT_WINDOW;
+            longRtt += (rtt - longRtt) / LONG_WINDOW;
+            // Latency has dropped well below the baseline (e.g. after an incident): let the baseline catch up
+            if (longRtt / shortRtt > 2) {
+                longRtt *= 0.95;
+            }
+            
+            double current = limit;
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+            // An under-used limit says nothing about capacity, so it is only allowed to shrink
+            if (gradient == 1.0 && inFlightAtStart < current / 2) {
+                return;
+            }
+            double target = current * gradient + Math.sqrt(current);
+            double next = current * (1 - smoothing) + target * smoothing;
+            limit = Math.max(minLimit, Math.min(maxLimit, next));
+        } finally {
+            sampleLock.unlock();
+        }
+    }
+    
+    /**
+     * One admitted call. Release it exactly once; later calls are ignored.
+     */
+    public final class Permit {
+        
+        private final long startedAt;
+        private final int inFlightAtStart;
+        private final AtomicBoolean released = new AtomicBoolean();
+        
+        private Permit(long startedAt, int inFlightAtStart) {
+            this.startedAt = startedAt;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+        
+        /**
+         * Releases the slot and feeds the call's latency into the limit
+         */
+        public void onComplete() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                onSample(nanoClock.getAsLong() - startedAt, inFlightAtStart);
+            }
+        }
+        
+        /**
+         * Releases the slot without a latency sample, for calls whose duration does not reflect load
+         * (e.g. long-lived streams)
+         */
+        public void onIgnore() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
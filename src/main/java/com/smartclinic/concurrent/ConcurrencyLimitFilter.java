@@ -0,0 +1,136 @@
+package com.smartclinic.concurrent;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartclinic.concurrent.AdaptiveConcurrencyLimiter.Permit;
+import com.smartclinic.concurrent.AdaptiveConcurrencyLimiter.Priority;
+import com.smartclinic.dto.ApiResponse;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Sheds load in front of the controllers: requests the limiter does not admit get an immediate 503 with
+ * {@code Retry-After} instead of queueing in Tomcat. Requests are classified by {@code [METHOD ]pattern}
+ * rules (e.g. {@code POST /api/appointments}, {@code /api/analytics/**}); anything unmatched is NORMAL and
+ * excluded paths bypass the limiter. Async (streaming) requests and requests marked with
+ * {@link #SKIP_LATENCY_SAMPLE} hold their slot until they complete but do not feed the latency estimate.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    
+    /**
+     * Request attribute that releases the request without feeding its latency into the limit
+     */
+    public static final String SKIP_LATENCY_SAMPLE = ConcurrencyLimitFilter.class.getName() + ".SKIP_LATENCY_SAMPLE";
+    
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+    private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+    
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final List<String> critical;
+    private final List<String> sheddable;
+    private final List<String> excluded;
+    private final ObjectMapper objectMapper;
+    
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, List<String> critical, List<String> sheddable,
+            List<String> excluded, ObjectMapper objectMapper) {
+        this.limiter = limiter;
+        this.critical = critical;
+        this.sheddable = sheddable;
+        this.excluded = excluded;
+        this.objectMapper = objectMapper;
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return matchesAny(excluded, request);
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                  FilterChain filterChain) throws ServletException, IOException {
+        Optional<Permit> admitted = limiter.tryAcquire(priorityOf(request));
+        if (admitted.isEmpty()) {
+            reject(response);
+            return;
+        }
+        
+        Permit permit = admitted.get();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(permit));
+            } else if (request.getAttribute(SKIP_LATENCY_SAMPLE) != null) {
+                permit.onIgnore();
+            } else {
+                permit.onComplete();
+            }
+        }
+    }
+    
+    Priority priorityOf(HttpServletRequest request) {
+        if (matchesAny(critical, request)) {
+            return Priority.CRITICAL;
+        }
+        if (matchesAny(sheddable, request)) {
+            return Priority.SHEDDABLE;
+        }
+        return Priority.NORMAL;
+    }
+    
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error("Server is busy, please retry shortly"));
+    }
+    
+    private static boolean matchesAny(List<String> rules, HttpServletRequest request) {
+        String path = URL_PATH_HELPER.getPathWithinApplication(request);
+        for (String rule : rules) {
+            int space = rule.indexOf(' ');
+            String pattern = space < 0 ? rule : rule.substring(space + 1).trim();
+            boolean methodMatches = space < 0 || rule.substring(0, space).equalsIgnoreCase(request.getMethod());
+            if (methodMatches && PATH_MATCHER.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private record ReleaseOnCompletion(Permit permit) implements AsyncListener {
+        
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permit.onIgnore();
+        }
+        
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            permit.onIgnore();
+        }
+        
+        @Override
+        public void onError(AsyncEvent event) {
+            permit.onIgnore();
+        }
+        
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Re-register so a re-started async cycle still releases the slot
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
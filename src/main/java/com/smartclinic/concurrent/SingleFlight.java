@@ -0,0 +1,100 @@
+package com.smartclinic.concurrent;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into one: the first caller (the leader) runs the loader,
+ * and callers arriving while it is in flight wait for and share its result or exception.
+ * A follower waits at most {@code timeout}; after that the in-flight entry is considered stuck, is dropped
+ * so new callers start afresh, and the follower runs the loader itself.
+ * Nothing is cached once the leader finishes.
+ */
+public final class SingleFlight<K, V> {
+    
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Duration timeout;
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder followers = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    
+    public SingleFlight(Duration timeout) {
+        this.timeout = timeout;
+    }
+    
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing == null) {
+            leaders.increment();
+            try {
+                V value = loader.get();
+                call.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                call.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, call);
+            }
+        }
+        
+        followers.increment();
+        try {
+            return existing.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            inFlight.remove(key, existing);
+            return loader.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an in-flight read", e);
+        }
+    }
+    
+    /**
+     * Calls that ran the loader as leader
+     */
+    public long leaders() {
+        return leaders.sum();
+    }
+    
+    /**
+     * Calls that joined an in-flight leader instead of querying
+     */
+    public long followers() {
+        return followers.sum();
+    }
+    
+    /**
+     * Followers that gave up waiting and queried on their own
+     */
+    public long timeouts() {
+        return timeouts.sum();
+    }
+    
+    /**
+     * Share of calls served by another caller's query, from 0 to 1
+     */
+    public double collapseRatio() {
+        long shared = followers() - timeouts();
+        long total = leaders() + followers();
+        return total == 0 ? 0 : (double) shared / total;
+    }
+    
+    public int inFlight() {
+        return inFlight.size();
+    }
+}
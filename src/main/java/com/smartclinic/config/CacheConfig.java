@@ -0,0 +1,93 @@
+package com.smartclinic.config;
+
+import com.smartclinic.cache.CacheInvalidationBus;
+import com.smartclinic.cache.InMemoryCacheInvalidationBus;
+import com.smartclinic.cache.InMemoryL2Cache;
+import com.smartclinic.cache.L2Cache;
+import com.smartclinic.cache.MongoCacheInvalidationBus;
+import com.smartclinic.cache.TwoLevelCache;
+import com.smartclinic.cache.TwoLevelCacheManager;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Two-level cache configuration for read-mostly clinic data.
+ * L1 is a bounded Caffeine cache per node; L2 is optional ({@code smartclinic.cache.l2=in-memory} enables the
+ * in-process stand-in). Invalidations are broadcast in-process by default or through MongoDB with
+ * {@code smartclinic.cache.broadcast=mongo}. Hit/miss, size and eviction metrics are published per cache.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    
+    public static final String DOCTOR_PROFILES = "doctorProfiles";
+    public static final String PATIENT_PROFILES = "patientProfiles";
+    public static final String SPECIALIZATIONS = "specializations";
+    
+    @Bean
+    @ConfigurationProperties("smartclinic.cache")
+    public CacheSettings cacheSettings() {
+        return new CacheSettings();
+    }
+    
+    @Bean
+    @ConditionalOnProperty(name = "smartclinic.cache.l2", havingValue = "in-memory")
+    public L2Cache inMemoryL2Cache() {
+        return new InMemoryL2Cache();
+    }
+    
+    @Bean
+    @ConditionalOnProperty(name = "smartclinic.cache.broadcast", havingValue = "mongo")
+    public CacheInvalidationBus mongoCacheInvalidationBus(ReactiveMongoTemplate reactiveMongoTemplate) {
+        return new MongoCacheInvalidationBus(reactiveMongoTemplate);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean(CacheInvalidationBus.class)
+    public CacheInvalidationBus inMemoryCacheInvalidationBus() {
+        return new InMemoryCacheInvalidationBus();
+    }
+    
+    @Bean
+    public TwoLevelCacheManager cacheManager(CacheSettings cacheSettings, ObjectProvider<L2Cache> l2Cache,
+            CacheInvalidationBus cacheInvalidationBus) {
+        return new TwoLevelCacheManager(cacheSettings.getSpecs(), l2Cache.getIfAvailable(), cacheInvalidationBus);
+    }
+    
+    /**
+     * Lets actuator bind cache.gets/puts/evictions/size meters to each cache's L1
+     */
+    @Bean
+    public CacheMeterBinderProvider<TwoLevelCache> twoLevelCacheMeterBinderProvider() {
+        return (cache, tags) -> new CaffeineCacheMetrics<>(cache.getNativeCache(), cache.getName(), tags);
+    }
+    
+    @Data
+    public static class CacheSettings {
+        
+        /**
+         * Cache name to Caffeine spec, e.g. {@code maximumSize=10000,expireAfterWrite=30m}
+         */
+        private Map<String, String> specs = new LinkedHashMap<>(Map.of(
+            DOCTOR_PROFILES, "maximumSize=10000,expireAfterWrite=30m",
+            PATIENT_PROFILES, "maximumSize=50000,expireAfterWrite=30m",
+            SPECIALIZATIONS, "maximumSize=1,expireAfterWrite=1h"
+        ));
+        
+        private String l2 = "none";
+        
+        private String broadcast = "in-memory";
+    }
+}
@@ -0,0 +1,108 @@
+package com.smartclinic.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartclinic.concurrent.AdaptiveConcurrencyLimiter;
+import com.smartclinic.concurrent.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Data;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adaptive concurrency limit in front of the controllers, ahead of the security filter chain so shed
+ * requests cost no JWT parsing. Booking and auth are CRITICAL, analytics and exports SHEDDABLE.
+ * Publishes {@code smartclinic.concurrency.limit}, {@code .inflight} and {@code .rejected} (by priority).
+ */
+@Configuration
+@ConditionalOnProperty(name = "smartclinic.concurrency.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+    
+    @Bean
+    @ConfigurationProperties("smartclinic.concurrency")
+    public ConcurrencyLimitSettings concurrencyLimitSettings() {
+        return new ConcurrencyLimitSettings();
+    }
+    
+    @Bean
+    public AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter(ConcurrencyLimitSettings settings) {
+        return new AdaptiveConcurrencyLimiter(settings.getInitialLimit(), settings.getMinLimit(),
+            settings.getMaxLimit(), settings.getTolerance(), settings.getSmoothing());
+    }
+    
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter,
+            ConcurrencyLimitSettings settings, ObjectMapper objectMapper) {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter, settings.getCritical(),
+            settings.getSheddable(), settings.getExcluded(), objectMapper);
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 10);
+        return registration;
+    }
+    
+    @Bean
+    public MeterBinder concurrencyLimitMetrics(AdaptiveConcurrencyLimiter limiter) {
+        return registry -> {
+            Gauge.builder("smartclinic.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive limit on concurrent requests")
+                .register(registry);
+            Gauge.builder("smartclinic.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests currently admitted by the concurrency limiter")
+                .register(registry);
+            for (AdaptiveConcurrencyLimiter.Priority priority : AdaptiveConcurrencyLimiter.Priority.values()) {
+                FunctionCounter.builder("smartclinic.concurrency.rejected", limiter, l -> l.getRejected(priority))
+                    .description("Requests shed with 503 because the concurrency limit was reached")
+                    .tags("priority", priority.name().toLowerCase())
+                    .register(registry);
+            }
+        };
+    }
+    
+    @Data
+    public static class ConcurrencyLimitSettings {
+        
+        private boolean enabled = true;
+        
+        private int initialLimit = 50;
+        
+        private int minLimit = 10;
+        
+        private int maxLimit = 500;
+        
+        /**
+         * How far short-term latency may rise above the long-term baseline before the limit shrinks
+         */
+        private double tolerance = 1.5;
+        
+        /**
+         * Weight of each new estimate when updating the limit (0..1)
+         */
+        private double smoothing = 0.2;
+        
+        /**
+         * {@code [METHOD ]pattern} rules that may use the whole limit
+         */
+        private List<String> critical = new ArrayList<>(List.of("POST /api/appointments", "/api/auth/**"));
+        
+        /**
+         * Rules limited to a share of the limit and shed first
+         */
+        private List<String> sheddable = new ArrayList<>(List.of("/api/analytics/**", "/api/**/stream",
+            "/api/prescriptions/patients", "/api/medical-history/patients", "/api/medical-history/all",
+            "/api/medical-history/search"));
+        
+        /**
+         * Paths never limited
+         */
+        private List<String> excluded = new ArrayList<>(List.of("/actuator/**", "/v3/api-docs/**", "/swagger-ui/**",
+            "/swagger-ui.html"));
+    }
+}
@@ -1,16 +1,45 @@
 package com.smartclinic.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Database configuration for Smart Clinic application
- * Configures both MySQL (JPA) and MongoDB repositories with proper package separation
+ * Configures both MySQL (JPA) and MongoDB repositories with proper package separation;
+ * reactive MongoDB repositories for the streaming read endpoints live in their own package
  */
 @Configuration
 @EnableJpaRepositories(basePackages = "com.smartclinic.repository.mysql")
-@EnableMongoRepositories(basePackages = "com.smartclinic.repository.mongodb")
+@EnableMongoRepositories(basePackages = "com.smartclinic.repository.mongodb",
+    excludeFilters = @ComponentScan.Filter(type = FilterType.REGEX, pattern = "com\\.smartclinic\\.repository\\.mongodb\\.reactive\\..*"))
+@EnableReactiveMongoRepositories(basePackages = "com.smartclinic.repository.mongodb.reactive")
 public class DatabaseConfig {
-    // Spring Boot auto-configuration handles the rest
-}
\ No newline at end of file
+    
+    @Value("${smartclinic.mongo.pool.max-size:100}")
+    private int mongoPoolMaxSize;
+    
+    @Value("${smartclinic.mongo.pool.max-wait:5s}")
+    private Duration mongoPoolMaxWait;
+    
+    /**
+     * With virtual threads request concurrency is no longer capped by the Tomcat pool, so the connection
+     * pools become the limit; bound the wait for a Mongo connection instead of the driver's 2 minute default.
+     * Applies to both the blocking and the reactive client.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoConnectionPoolCustomizer() {
+        return settings -> settings.applyToConnectionPoolSettings(pool -> pool
+            .maxSize(mongoPoolMaxSize)
+            .maxWaitTime(mongoPoolMaxWait.toMillis(), TimeUnit.MILLISECONDS));
+    }
+}
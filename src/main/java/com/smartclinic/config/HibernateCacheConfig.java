@@ -0,0 +1,109 @@
+package com.smartclinic.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import lombok.Data;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level and query cache regions, backed by Caffeine through JCache.
+ * Each region is bounded by {@code smartclinic.jpa.cache.max-entries.<region>}; region gets, puts, evictions
+ * and size are published as cache.* meters, and Hibernate statistics as hibernate.* meters.
+ */
+@Configuration
+public class HibernateCacheConfig {
+    
+    public static final String USERS = "users";
+    public static final String DOCTORS = "doctors";
+    public static final String PATIENTS = "patients";
+    public static final String QUERY_RESULTS = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+    public static final String UPDATE_TIMESTAMPS = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+    
+    @Bean
+    @ConfigurationProperties("smartclinic.jpa.cache")
+    public HibernateCacheSettings hibernateCacheSettings() {
+        return new HibernateCacheSettings();
+    }
+    
+    /**
+     * A cache manager of its own rather than the provider's default one, which is shared by every context
+     * in the JVM (tests, devtools restarts) and would already hold these regions
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(HibernateCacheSettings settings) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        URI uri = URI.create("smartclinic:hibernate:" + UUID.randomUUID());
+        CacheManager cacheManager = provider.getCacheManager(uri, provider.getDefaultClassLoader());
+        settings.getMaxEntries().forEach((region, maxEntries) ->
+            cacheManager.createCache(region, regionConfiguration(maxEntries, settings.getTimeToLive())));
+        // Query results are only valid against these timestamps, so they are never bounded or expired
+        cacheManager.createCache(UPDATE_TIMESTAMPS, new CaffeineConfiguration<>().setStatisticsEnabled(true));
+        return cacheManager;
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+    
+    @Bean
+    public MeterBinder hibernateCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> {
+            for (String region : hibernateCacheManager.getCacheNames()) {
+                Cache<Object, Object> cache = hibernateCacheManager.getCache(region);
+                Tags tags = Tags.of("cache.manager", "hibernateCacheManager");
+                JCacheMetrics.monitor(registry, cache, tags);
+                com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache =
+                    cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class);
+                Gauge.builder("cache.size", nativeCache, com.github.benmanes.caffeine.cache.Cache::estimatedSize)
+                    .tags(tags.and("cache", region))
+                    .description("The number of entries in this cache region")
+                    .register(registry);
+            }
+        };
+    }
+    
+    private static CaffeineConfiguration<Object, Object> regionConfiguration(long maxEntries, Duration timeToLive) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setExpireAfterWrite(OptionalLong.of(timeToLive.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+    
+    @Data
+    public static class HibernateCacheSettings {
+        
+        /**
+         * Region name to maximum number of entries
+         */
+        private Map<String, Long> maxEntries = new LinkedHashMap<>(Map.of(
+            USERS, 10_000L,
+            DOCTORS, 5_000L,
+            PATIENTS, 50_000L,
+            QUERY_RESULTS, 10_000L
+        ));
+        
+        private Duration timeToLive = Duration.ofMinutes(30);
+    }
+}
@@ -0,0 +1,57 @@
+package com.smartclinic.config;
+
+import com.smartclinic.codec.CompressingTextConverter;
+import com.smartclinic.codec.DeflateTextCodec;
+import com.smartclinic.codec.TextCodec;
+import com.smartclinic.codec.TextCodecs;
+import com.smartclinic.model.MedicalHistory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.util.List;
+
+/**
+ * MongoDB conversion configuration
+ * Registers the compressing converter for large free-text medical record fields
+ */
+@Configuration
+public class MongoConversionConfig {
+
+    @Value("${smartclinic.mongo.text-compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Value("${smartclinic.mongo.text-compression.threshold-bytes:4096}")
+    private int compressionThresholdBytes;
+
+    @Bean
+    public TextCodec textCodec() {
+        return new DeflateTextCodec();
+    }
+
+    /**
+     * Every codec bean, so values written with a codec other than the current one still decode
+     */
+    @Bean
+    public TextCodecs textCodecs(List<TextCodec> codecs) {
+        return new TextCodecs(codecs);
+    }
+
+    @Bean
+    public CompressingTextConverter compressingTextConverter(TextCodec textCodec, TextCodecs textCodecs) {
+        // When disabled the converter still reads compressed values; it just never writes new ones
+        int threshold = compressionEnabled ? compressionThresholdBytes : Integer.MAX_VALUE;
+        return new CompressingTextConverter(textCodec, textCodecs, threshold);
+    }
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions(CompressingTextConverter converter) {
+        return MongoCustomConversions.create(adapter -> adapter
+            .registerConverter(new CompressingTextConverter.PlainTextWritingConverter())
+            .registerConverter(new CompressingTextConverter.PlainTextReadingConverter())
+            .configurePropertyConversions(registrar -> registrar
+                .registerConverter(MedicalHistory.MedicalRecord.class, "description", converter)
+                .registerConverter(MedicalHistory.MedicalRecord.class, "doctorNotes", converter)));
+    }
+}
@@ -0,0 +1,175 @@
+package com.smartclinic.config;
+
+import com.smartclinic.model.MedicalHistory;
+import com.smartclinic.model.PrescribingRollup;
+import com.smartclinic.model.Prescription;
+import com.smartclinic.service.PrescribingAnalyticsService;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * One-off MongoDB data migrations run at startup
+ * Each step is idempotent and only touches documents that still need it
+ */
+@Configuration
+@Slf4j
+public class MongoMigrationConfig {
+
+    static final String MEDICAL_RECORD_TEXT_INDEX = "medical_record_text";
+
+    private static final int MAX_REWRITE_ATTEMPTS = 5;
+
+    @Bean
+    public ApplicationRunner backfillDocumentVersions(MongoTemplate mongoTemplate) {
+        return args -> {
+            // @Version treats a null version as a new document, so legacy documents need a starting version
+            Query unversioned = Query.query(Criteria.where("version").exists(false));
+            long histories = mongoTemplate.updateMulti(unversioned, new Update().set("version", 0L), MedicalHistory.class)
+                .getModifiedCount();
+            long prescriptions = mongoTemplate.updateMulti(unversioned, new Update().set("version", 0L), Prescription.class)
+                .getModifiedCount();
+            if (histories > 0 || prescriptions > 0) {
+                log.info("Backfilled version on {} medical histories and {} prescriptions", histories, prescriptions);
+            }
+        };
+    }
+
+    @Bean
+    public ApplicationRunner backfillMedicalRecordIds(MongoTemplate mongoTemplate) {
+        return args -> {
+            // Delta sync addresses records by id; legacy records get one plus sequence 0 ("always existed")
+            Criteria missingIds = Criteria.where("records").elemMatch(Criteria.where("recordId").exists(false));
+            long updated = rewriteRecords(mongoTemplate, missingIds, records -> records.stream()
+                .filter(record -> record.getRecordId() == null)
+                .forEach(record -> {
+                    record.setRecordId(UUID.randomUUID().toString());
+                    record.setSequence(0L);
+                }));
+            if (updated > 0) {
+                log.info("Backfilled record ids on {} medical histories", updated);
+            }
+        };
+    }
+
+    @Bean
+    public ApplicationRunner indexMedicalRecordSearchTerms(MongoTemplate mongoTemplate) {
+        return args -> {
+            // Records written before the term arrays existed get them from their (decoded) text
+            Criteria missingTerms = new Criteria().orOperator(
+                Criteria.where("records").elemMatch(Criteria.where("description").exists(true)
+                    .and("descriptionTerms").exists(false)),
+                Criteria.where("records").elemMatch(Criteria.where("doctorNotes").exists(true)
+                    .and("doctorNotesTerms").exists(false)));
+            long updated = rewriteRecords(mongoTemplate, missingTerms, records -> records.forEach(record -> {
+                record.setDescription(record.getDescription());
+                record.setDoctorNotes(record.getDoctorNotes());
+            }));
+            if (updated > 0) {
+                log.info("Backfilled search terms on {} medical histories", updated);
+            }
+
+            // A collection has at most one text index, so one over other fields has to go first
+            IndexOperations indexes = mongoTemplate.indexOps(MedicalHistory.class);
+            for (IndexInfo index : indexes.getIndexInfo()) {
+                boolean textIndex = index.getIndexFields().stream().anyMatch(IndexField::isText);
+                if (textIndex && !MEDICAL_RECORD_TEXT_INDEX.equals(index.getName())) {
+                    indexes.dropIndex(index.getName());
+                    log.info("Dropped text index {} on medical histories", index.getName());
+                }
+            }
+            indexes.ensureIndex(new TextIndexDefinition.TextIndexDefinitionBuilder()
+                .named(MEDICAL_RECORD_TEXT_INDEX)
+                .onField("records.descriptionTerms", 2F)
+                .onField("records.doctorNotesTerms")
+                .build());
+        };
+    }
+
+    @Bean
+    public ApplicationRunner backfillPrescriptionEndDates(MongoTemplate mongoTemplate) {
+        return args -> {
+            // Server-side pipeline update: endsAt = createdAt + duration days per medicine, and the latest
+            // of those per prescription (null when any medicine is open-ended), without reading documents into Java
+            Document withMedicineEndDates = new Document("$set", new Document("medicineList", new Document("$map",
+                new Document("input", "$medicineList")
+                    .append("as", "medicine")
+                    .append("in", new Document("$mergeObjects", List.of("$$medicine", new Document("endsAt",
+                        new Document("$cond", List.of(
+                            new Document("$eq", List.of(new Document("$ifNull", List.of("$$medicine.duration", null)), null)),
+                            null,
+                            new Document("$add", List.of("$createdAt",
+                                new Document("$multiply", List.of("$$medicine.duration", 86_400_000L)))))))))))));
+            Document withPrescriptionEndDate = new Document("$set", new Document("endsAt",
+                new Document("$cond", List.of(
+                    new Document("$in", List.of(null, "$medicineList.endsAt")),
+                    null,
+                    new Document("$ifNull", List.of(new Document("$max", "$medicineList.endsAt"), "$createdAt"))))));
+            Document missingEndDates = new Document("endsAt", new Document("$exists", false))
+                .append("medicineList", new Document("$type", "array"));
+            long updated = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Prescription.class))
+                .updateMany(missingEndDates, List.of(withMedicineEndDates, withPrescriptionEndDate))
+                .getModifiedCount();
+            if (updated > 0) {
+                log.info("Backfilled end dates on {} prescriptions", updated);
+            }
+        };
+    }
+
+    @Bean
+    public ApplicationRunner buildPrescribingRollups(MongoTemplate mongoTemplate, PrescribingAnalyticsService analyticsService) {
+        return args -> {
+            // Writes keep the rollups current from here on; existing prescriptions are counted once
+            boolean noRollups = !mongoTemplate.exists(new Query(), PrescribingRollup.class);
+            if (noRollups && mongoTemplate.exists(new Query(), Prescription.class)) {
+                analyticsService.rebuildRollups();
+            }
+        };
+    }
+
+    /**
+     * Rewrites the records of every history matching {@code needsRewrite}. Each write is a compare-and-set
+     * on the version it read and bumps it, so a concurrent edit is never overwritten and clients holding
+     * the old ETag see the change; a history written in between is re-read and rewritten.
+     */
+    private static long rewriteRecords(MongoTemplate mongoTemplate, Criteria needsRewrite,
+            Consumer<List<MedicalHistory.MedicalRecord>> rewrite) {
+        Query pending = Query.query(needsRewrite);
+        pending.fields().include("records", "version");
+        long updated = 0;
+        for (MedicalHistory history : mongoTemplate.find(pending, MedicalHistory.class)) {
+            for (int attempt = 1; history != null; attempt++) {
+                rewrite.accept(history.getRecords());
+                Query sameVersion = Query.query(Criteria.where("_id").is(history.getId()).and("version").is(history.getVersion()));
+                Update update = new Update().set("records", history.getRecords()).inc("version", 1);
+                if (mongoTemplate.updateFirst(sameVersion, update, MedicalHistory.class).getModifiedCount() > 0) {
+                    updated++;
+                    break;
+                }
+                if (attempt >= MAX_REWRITE_ATTEMPTS) {
+                    log.warn("Medical history {} kept changing during migration; it is retried on the next startup", history.getId());
+                    break;
+                }
+                // Null once it was deleted or the concurrent write already did the work
+                Query current = Query.query(Criteria.where("_id").is(history.getId())).addCriteria(needsRewrite);
+                current.fields().include("records", "version");
+                history = mongoTemplate.findOne(current, MedicalHistory.class);
+            }
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,181 @@
+package com.smartclinic.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smartclinic.resilience.Datastore;
+import com.smartclinic.resilience.DatastoreBulkheadAspect;
+import com.smartclinic.resilience.DatastoreIsolation;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulkheads and circuit breakers per backing store, so MySQL-backed endpoints (appointments, auth,
+ * profiles) keep working while MongoDB is slow or down, and the other way round.
+ * Settings live under {@code smartclinic.resilience.mysql.*} and {@code smartclinic.resilience.mongo.*};
+ * state is published as resilience4j.bulkhead.* and resilience4j.circuitbreaker.* meters tagged with the store.
+ */
+@Configuration
+public class ResilienceConfig {
+    
+    @Bean
+    @ConfigurationProperties("smartclinic.resilience")
+    public ResilienceSettings resilienceSettings() {
+        return new ResilienceSettings();
+    }
+    
+    @Bean
+    public BulkheadRegistry datastoreBulkheads(ResilienceSettings settings) {
+        BulkheadRegistry registry = BulkheadRegistry.ofDefaults();
+        for (Datastore datastore : Datastore.values()) {
+            DatastoreSettings store = settings.forStore(datastore);
+            registry.bulkhead(DatastoreIsolation.name(datastore), BulkheadConfig.custom()
+                .maxConcurrentCalls(store.getMaxConcurrentCalls())
+                .maxWaitDuration(store.getMaxWait())
+                .build());
+        }
+        return registry;
+    }
+    
+    @Bean
+    public CircuitBreakerRegistry datastoreCircuitBreakers(ResilienceSettings settings) {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+        for (Datastore datastore : Datastore.values()) {
+            DatastoreSettings store = settings.forStore(datastore);
+            registry.circuitBreaker(DatastoreIsolation.name(datastore), CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(store.getSlidingWindowSize())
+                .minimumNumberOfCalls(store.getMinimumNumberOfCalls())
+                .failureRateThreshold(store.getFailureRateThreshold())
+                .slowCallRateThreshold(store.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(store.getSlowCallThreshold())
+                .waitDurationInOpenState(store.getOpenDuration())
+                .permittedNumberOfCallsInHalfOpenState(store.getHalfOpenCalls())
+                .recordResult(DatastoreIsolation::isServerError)
+                .build());
+        }
+        return registry;
+    }
+    
+    @Bean
+    public DatastoreIsolation datastoreIsolation(ResilienceSettings settings, BulkheadRegistry datastoreBulkheads,
+            CircuitBreakerRegistry datastoreCircuitBreakers, MeterRegistry meterRegistry) {
+        Map<Datastore, Cache<Object, ResponseEntity<?>>> staleResponses = new EnumMap<>(Datastore.class);
+        for (Datastore datastore : Datastore.values()) {
+            DatastoreSettings store = settings.forStore(datastore);
+            if (store.isStaleFallback()) {
+                staleResponses.put(datastore, Caffeine.newBuilder()
+                    .maximumSize(store.getStaleEntries())
+                    .expireAfterWrite(store.getStaleTimeToLive())
+                    .build());
+            }
+        }
+        return new DatastoreIsolation(datastoreBulkheads, datastoreCircuitBreakers, staleResponses, meterRegistry);
+    }
+    
+    @Bean
+    public DatastoreBulkheadAspect datastoreBulkheadAspect(DatastoreIsolation datastoreIsolation,
+            ResilienceSettings settings) {
+        Set<Datastore> outsideConcurrencyLimit = EnumSet.noneOf(Datastore.class);
+        for (Datastore datastore : Datastore.values()) {
+            if (!settings.forStore(datastore).isFeedsConcurrencyLimit()) {
+                outsideConcurrencyLimit.add(datastore);
+            }
+        }
+        return new DatastoreBulkheadAspect(datastoreIsolation, outsideConcurrencyLimit);
+    }
+    
+    @Bean
+    public MeterBinder datastoreBulkheadMetrics(BulkheadRegistry datastoreBulkheads) {
+        return TaggedBulkheadMetrics.ofBulkheadRegistry(datastoreBulkheads);
+    }
+    
+    @Bean
+    public MeterBinder datastoreCircuitBreakerMetrics(CircuitBreakerRegistry datastoreCircuitBreakers) {
+        return TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(datastoreCircuitBreakers);
+    }
+    
+    @Data
+    public static class ResilienceSettings {
+        
+        private DatastoreSettings mysql = new DatastoreSettings();
+        
+        private DatastoreSettings mongo = new DatastoreSettings();
+        
+        public ResilienceSettings() {
+            mongo.setMaxConcurrentCalls(40);
+            mongo.setFeedsConcurrencyLimit(false);
+        }
+        
+        public DatastoreSettings forStore(Datastore datastore) {
+            return switch (datastore) {
+                case MYSQL -> mysql;
+                case MONGO -> mongo;
+            };
+        }
+    }
+    
+    @Data
+    public static class DatastoreSettings {
+        
+        /**
+         * Requests allowed to run against the store at once
+         */
+        private int maxConcurrentCalls = 100;
+        
+        /**
+         * How long a request waits for a free slot before it is refused
+         */
+        private Duration maxWait = Duration.ofMillis(20);
+        
+        private int slidingWindowSize = 50;
+        
+        private int minimumNumberOfCalls = 20;
+        
+        /**
+         * Percentage of failed calls (exceptions and 5xx responses) that opens the circuit
+         */
+        private float failureRateThreshold = 50;
+        
+        /**
+         * Percentage of calls slower than {@code slowCallThreshold} that opens the circuit
+         */
+        private float slowCallRateThreshold = 80;
+        
+        private Duration slowCallThreshold = Duration.ofSeconds(2);
+        
+        private Duration openDuration = Duration.ofSeconds(10);
+        
+        private int halfOpenCalls = 5;
+        
+        /**
+         * Serve the last successful response of {@code @StaleFallback} reads while the store is refused
+         */
+        private boolean staleFallback = false;
+        
+        private long staleEntries = 10_000;
+        
+        private Duration staleTimeToLive = Duration.ofMinutes(10);
+        
+        /**
+         * Whether this store's request latency drives the adaptive concurrency limit
+         */
+        private boolean feedsConcurrencyLimit = true;
+    }
+}
@@ -3,6 +3,7 @@ package com.smartclinic.config;
 import com.smartclinic.security.AuthEntryPointJwt;
 import com.smartclinic.security.AuthTokenFilter;
 import com.smartclinic.security.UserDetailsServiceImpl;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -54,13 +55,19 @@ public class SecurityConfig {
             .exceptionHandling(exception -> exception.authenticationEntryPoint(unauthorizedHandler))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(authz -> authz
+                // Streaming responses complete on an async dispatch; the request was already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
-                .requestMatchers("/actuator/**").permitAll()
+                .requestMatchers("/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
+                // Metrics expose internal load, cache and datastore state
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 // Swagger/OpenAPI endpoints
                 .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
                 .requestMatchers("/api/appointments/**").hasAnyRole("DOCTOR", "PATIENT")
                 .requestMatchers("/api/prescriptions/**").hasAnyRole("DOCTOR", "PATIENT")
                 .requestMatchers("/api/medical-history/**").hasAnyRole("DOCTOR", "PATIENT")
+                .requestMatchers("/api/patients/**").hasAnyRole("DOCTOR", "PATIENT")
+                .requestMatchers("/api/doctors/**").hasAnyRole("DOCTOR", "PATIENT")
                 .anyRequest().authenticated()
             );
 
@@ -0,0 +1,78 @@
+package com.smartclinic.controller;
+
+import com.smartclinic.dto.ApiResponse;
+import com.smartclinic.dto.DailyPrescriptionVolume;
+import com.smartclinic.dto.DrugPrescriptionCount;
+import com.smartclinic.resilience.Datastore;
+import com.smartclinic.resilience.DatastoreBulkhead;
+import com.smartclinic.service.PrescribingAnalyticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REST controller for prescribing analytics, read from pre-aggregated rollups
+ */
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@DatastoreBulkhead(Datastore.MONGO)
+@Tag(name = "Analytics", description = "Prescribing analytics APIs")
+public class AnalyticsController {
+    
+    private final PrescribingAnalyticsService prescribingAnalyticsService;
+    
+    @GetMapping("/prescriptions/volume")
+    @Operation(summary = "Prescription volume by day (Admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<DailyPrescriptionVolume>>> getDailyVolume(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            List<DailyPrescriptionVolume> volume = prescribingAnalyticsService.getDailyVolume(from, to);
+            return ResponseEntity.ok(ApiResponse.success("Prescription volume retrieved successfully", volume));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/prescriptions/top-drugs")
+    @Operation(summary = "Most prescribed drugs in a week, for one doctor or the whole clinic (Admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<DrugPrescriptionCount>>> getTopDrugs(
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate weekOf,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            List<DrugPrescriptionCount> topDrugs = prescribingAnalyticsService.getTopDrugs(
+                doctorId, weekOf != null ? weekOf : LocalDate.now(), limit);
+            return ResponseEntity.ok(ApiResponse.success("Top drugs retrieved successfully", topDrugs));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/prescriptions/rebuild")
+    @Operation(summary = "Rebuild the prescribing rollups from all prescriptions (Admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Long>> rebuildRollups() {
+        try {
+            long rollups = prescribingAnalyticsService.rebuildRollups();
+            return ResponseEntity.ok(ApiResponse.success("Prescribing rollups rebuilt", rollups));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
@@ -3,11 +3,15 @@ package com.smartclinic.controller;
 import com.smartclinic.dto.ApiResponse;
 import com.smartclinic.dto.AppointmentRequest;
 import com.smartclinic.model.Appointment;
+import com.smartclinic.projection.SparseFieldset;
+import com.smartclinic.resilience.Datastore;
+import com.smartclinic.resilience.DatastoreBulkhead;
 import com.smartclinic.service.AppointmentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +25,7 @@ import java.util.List;
 @RequestMapping("/api/appointments")
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*")
+@DatastoreBulkhead(Datastore.MYSQL)
 @Tag(name = "Appointments", description = "Appointment management APIs")
 public class AppointmentController {
     
@@ -39,11 +44,34 @@ public class AppointmentController {
     }
     
     @GetMapping("/patient/{patientId}")
-    @Operation(summary = "Get appointments for a patient")
-    public ResponseEntity<ApiResponse<List<Appointment>>> getPatientAppointments(@PathVariable Long patientId) {
+    @Operation(summary = "Get appointments for a patient; answers 304 to a matching If-None-Match from a count/last-update query, "
+        + "and ?fields=id,date,... reads and returns only those columns")
+    public ResponseEntity<ApiResponse<List<?>>> getPatientAppointments(
+            @PathVariable Long patientId,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            if (ifNoneMatch != null || fields != null) {
+                // Read before the rows, so a concurrent change can only make the tag older than the body
+                String eTag = ETags.fromListVersion(appointmentService.getPatientAppointmentsVersion(patientId));
+                if (ETags.notModified(ifNoneMatch, eTag)) {
+                    return ETags.notModifiedResponse(eTag);
+                }
+                if (fields != null) {
+                    SparseFieldset fieldset = SparseFieldset.parse(fields, AppointmentService.LIST_FIELDS);
+                    return ResponseEntity.ok()
+                        .eTag(eTag)
+                        .body(ApiResponse.success("Patient appointments retrieved successfully",
+                            appointmentService.getPatientAppointments(patientId, fieldset)));
+                }
+            }
             List<Appointment> appointments = appointmentService.getPatientAppointments(patientId);
-            return ResponseEntity.ok(ApiResponse.success("Patient appointments retrieved successfully", appointments));
+            return ResponseEntity.ok()
+                .eTag(ETags.fromAppointments(appointments))
+                .body(ApiResponse.success("Patient appointments retrieved successfully", appointments));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(ApiResponse.error(e.getMessage()));
@@ -51,11 +79,34 @@ public class AppointmentController {
     }
     
     @GetMapping("/doctor/{doctorId}")
-    @Operation(summary = "Get appointments for a doctor")
-    public ResponseEntity<ApiResponse<List<Appointment>>> getDoctorAppointments(@PathVariable Long doctorId) {
+    @Operation(summary = "Get appointments for a doctor; answers 304 to a matching If-None-Match from a count/last-update query, "
+        + "and ?fields=id,date,... reads and returns only those columns")
+    public ResponseEntity<ApiResponse<List<?>>> getDoctorAppointments(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            if (ifNoneMatch != null || fields != null) {
+                // Read before the rows, so a concurrent change can only make the tag older than the body
+                String eTag = ETags.fromListVersion(appointmentService.getDoctorAppointmentsVersion(doctorId));
+                if (ETags.notModified(ifNoneMatch, eTag)) {
+                    return ETags.notModifiedResponse(eTag);
+                }
+                if (fields != null) {
+                    SparseFieldset fieldset = SparseFieldset.parse(fields, AppointmentService.LIST_FIELDS);
+                    return ResponseEntity.ok()
+                        .eTag(eTag)
+                        .body(ApiResponse.success("Doctor appointments retrieved successfully",
+                            appointmentService.getDoctorAppointments(doctorId, fieldset)));
+                }
+            }
             List<Appointment> appointments = appointmentService.getDoctorAppointments(doctorId);
-            return ResponseEntity.ok(ApiResponse.success("Doctor appointments retrieved successfully", appointments));
+            return ResponseEntity.ok()
+                .eTag(ETags.fromAppointments(appointments))
+                .body(ApiResponse.success("Doctor appointments retrieved successfully", appointments));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(ApiResponse.error(e.getMessage()));
@@ -3,6 +3,8 @@ package com.smartclinic.controller;
 import com.smartclinic.dto.ApiResponse;
 import com.smartclinic.dto.LoginRequest;
 import com.smartclinic.dto.UserRegistrationRequest;
+import com.smartclinic.resilience.Datastore;
+import com.smartclinic.resilience.DatastoreBulkhead;
 import com.smartclinic.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -21,6 +23,7 @@ import java.util.Map;
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*")
+@DatastoreBulkhead(Datastore.MYSQL)
 @Tag(name = "Authentication", description = "User registration and login")
 public class AuthController {
     
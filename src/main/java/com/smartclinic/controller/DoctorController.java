@@ -0,0 +1,51 @@
+package com.smartclinic.controller;
+
+import com.smartclinic.dto.ApiResponse;
+import com.smartclinic.dto.DoctorProfile;
+import com.smartclinic.resilience.Datastore;
+import com.smartclinic.resilience.DatastoreBulkhead;
+import com.smartclinic.service.ProfileService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for doctor directory lookups
+ */
+@RestController
+@RequestMapping("/api/doctors")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@DatastoreBulkhead(Datastore.MYSQL)
+@Tag(name = "Doctors", description = "Doctor directory APIs")
+public class DoctorController {
+    
+    private final ProfileService profileService;
+    
+    @GetMapping("/{doctorId}")
+    @Operation(summary = "Get a doctor's profile")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('PATIENT')")
+    public ResponseEntity<ApiResponse<DoctorProfile>> getDoctorProfile(@PathVariable Long doctorId) {
+        try {
+            DoctorProfile profile = profileService.getDoctorProfile(doctorId);
+            return ResponseEntity.ok(ApiResponse.success("Doctor profile retrieved successfully", profile));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/specializations")
+    @Operation(summary = "List the specializations offered by the clinic's doctors")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('PATIENT')")
+    public ResponseEntity<ApiResponse<List<String>>> getSpecializations() {
+        List<String> specializations = profileService.getSpecializations();
+        return ResponseEntity.ok(ApiResponse.success("Specializations retrieved successfully", specializations));
+    }
+}
@@ -0,0 +1,99 @@
+package com.smartclinic.controller;
+
+import com.smartclinic.dto.ListVersion;
+import com.smartclinic.model.Appointment;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Helpers for the version-based ETag / If-Match / If-None-Match headers used by the document and list endpoints
+ */
+final class ETags {
+    
+    private ETags() {
+    }
+    
+    static String fromVersion(Long version) {
+        return "\"" + (version != null ? version : 0L) + "\"";
+    }
+    
+    /**
+     * ETag of a document looked up by something other than its ID, so a recreated document never
+     * repeats the tag of the one it replaced
+     */
+    static String fromDocument(String id, Long version) {
+        return "\"" + id + "-" + (version != null ? version : 0L) + "\"";
+    }
+    
+    static String fromListVersion(ListVersion listVersion) {
+        LocalDateTime lastUpdated = listVersion.getLastUpdated();
+        long micros = lastUpdated == null ? 0
+            : lastUpdated.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + lastUpdated.getNano() / 1_000;
+        return "\"" + listVersion.getCount() + "-" + micros + "\"";
+    }
+    
+    /**
+     * Same tag as the count/max(updatedAt) projection would give for these rows
+     */
+    static String fromAppointments(List<Appointment> appointments) {
+        LocalDateTime lastUpdated = appointments.stream()
+            .map(Appointment::getUpdatedAt)
+            .filter(Objects::nonNull)
+            .max(LocalDateTime::compareTo)
+            .orElse(null);
+        return fromListVersion(new ListVersion((long) appointments.size(), lastUpdated));
+    }
+    
+    /**
+     * Returns the version expected by an If-Match header, or null when the client
+     * sent none (or "*") and any current version is acceptable.
+     */
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        // Tags from fromDocument carry the document ID in front of the version
+        tag = tag.substring(tag.lastIndexOf('-') + 1);
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid If-Match header: " + ifMatch);
+        }
+    }
+    
+    /**
+     * Whether an If-None-Match header matches the current tag (weak comparison, as RFC 9110 requires for GET)
+     */
+    static boolean notModified(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    static <T> ResponseEntity<T> notModifiedResponse(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+}
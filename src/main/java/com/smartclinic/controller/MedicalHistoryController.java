@@ -1,19 +1,30 @@
 package com.smartclinic.controller;
 
 import com.smartclinic.dto.ApiResponse;
+import com.smartclinic.dto.MedicalHistoryChanges;
 import com.smartclinic.dto.MedicalHistoryRequest;
+import com.smartclinic.dto.MedicalRecordSearchHit;
 import com.smartclinic.model.MedicalHistory;
+import com.smartclinic.model.MedicalHistorySummary;
+import com.smartclinic.resilience.Datastore;
+import com.smartclinic.resilience.DatastoreBulkhead;
+import com.smartclinic.resilience.StaleFallback;
 import com.smartclinic.service.MedicalHistoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -23,6 +34,7 @@ import java.util.Optional;
 @RequestMapping("/api/medical-history")
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*")
+@DatastoreBulkhead(Datastore.MONGO)
 @Tag(name = "Medical History", description = "Patient medical history management APIs")
 public class MedicalHistoryController {
     
@@ -42,12 +54,23 @@ public class MedicalHistoryController {
     }
     
     @GetMapping("/{id}")
-    @Operation(summary = "Get medical history by ID")
+    @Operation(summary = "Get medical history by ID; answers 304 to a matching If-None-Match without loading the document")
     @PreAuthorize("hasRole('DOCTOR') or hasRole('PATIENT')")
-    public ResponseEntity<ApiResponse<MedicalHistory>> getMedicalHistoryById(@PathVariable String id) {
+    @StaleFallback
+    public ResponseEntity<ApiResponse<MedicalHistory>> getMedicalHistoryById(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            if (ifNoneMatch != null) {
+                Optional<String> eTag = medicalHistoryService.getMedicalHistoryVersion(id).map(ETags::fromVersion);
+                if (eTag.isPresent() && ETags.notModified(ifNoneMatch, eTag.get())) {
+                    return ETags.notModifiedResponse(eTag.get());
+                }
+            }
             MedicalHistory medicalHistory = medicalHistoryService.getMedicalHistoryById(id);
-            return ResponseEntity.ok(ApiResponse.success("Medical history retrieved successfully", medicalHistory));
+            return ResponseEntity.ok()
+                .eTag(ETags.fromVersion(medicalHistory.getVersion()))
+                .body(ApiResponse.success("Medical history retrieved successfully", medicalHistory));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(ApiResponse.error(e.getMessage()));
@@ -55,12 +78,20 @@ public class MedicalHistoryController {
     }
     
     @PutMapping("/{id}/record")
-    @Operation(summary = "Update a medical history record (Doctor only)")
+    @Operation(summary = "Update a medical history record (Doctor only); honours If-Match for optimistic concurrency")
     @PreAuthorize("hasRole('DOCTOR')")
-    public ResponseEntity<ApiResponse<MedicalHistory>> updateMedicalRecord(@PathVariable String id, @Valid @RequestBody MedicalHistoryRequest request) {
+    public ResponseEntity<ApiResponse<MedicalHistory>> updateMedicalRecord(
+            @PathVariable String id,
+            @Valid @RequestBody MedicalHistoryRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            MedicalHistory medicalHistory = medicalHistoryService.updateMedicalRecord(id, request);
-            return ResponseEntity.ok(ApiResponse.success("Medical record updated successfully", medicalHistory));
+            MedicalHistory medicalHistory = medicalHistoryService.updateMedicalRecord(id, request, ETags.parseIfMatch(ifMatch));
+            return ResponseEntity.ok()
+                .eTag(ETags.fromVersion(medicalHistory.getVersion()))
+                .body(ApiResponse.success("Medical record updated successfully", medicalHistory));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(ApiResponse.error(e.getMessage()));
@@ -87,20 +118,90 @@ public class MedicalHistoryController {
         try {
             MedicalHistory medicalHistory = medicalHistoryService.deleteMedicalRecord(id, recordIndex);
             return ResponseEntity.ok(ApiResponse.success("Medical record deleted successfully", medicalHistory));
+        } catch (OptimisticLockingFailureException e) {
+            // Indexes may have shifted under a concurrent edit, so never retry a positional delete blindly
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(ApiResponse.error(e.getMessage()));
         }
     }
     
+    @GetMapping("/patients")
+    @Operation(summary = "Get the medical histories of several patients in one call, keyed by patient ID")
+    @PreAuthorize("hasRole('DOCTOR')")
+    public ResponseEntity<ApiResponse<Map<Long, MedicalHistory>>> getMedicalHistoriesForPatients(@RequestParam List<Long> ids) {
+        try {
+            Map<Long, MedicalHistory> histories = medicalHistoryService.getMedicalHistoriesForPatients(ids);
+            return ResponseEntity.ok(ApiResponse.success("Medical histories retrieved successfully", histories));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping(value = "/patient/{patientId}/records/stream",
+        produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE })
+    @Operation(summary = "Stream a patient's medical records as NDJSON or server-sent events")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('PATIENT')")
+    public Flux<MedicalHistory.MedicalRecord> streamPatientRecords(@PathVariable Long patientId) {
+        return medicalHistoryService.streamPatientRecords(patientId);
+    }
+    
     @GetMapping("/patient/{patientId}")
-    @Operation(summary = "Get a patient's medical history")
+    @Operation(summary = "Get a patient's medical history; answers 304 to a matching If-None-Match without loading the records")
     @PreAuthorize("hasRole('DOCTOR') or hasRole('PATIENT')")
-    public ResponseEntity<ApiResponse<MedicalHistory>> getPatientMedicalHistory(@PathVariable Long patientId) {
+    @StaleFallback
+    public ResponseEntity<ApiResponse<MedicalHistory>> getPatientMedicalHistory(
+            @PathVariable Long patientId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            if (ifNoneMatch != null) {
+                Optional<String> eTag = medicalHistoryService.getPatientMedicalHistoryVersion(patientId)
+                    .map(version -> ETags.fromDocument(version.getId(), version.getVersion()));
+                if (eTag.isPresent() && ETags.notModified(ifNoneMatch, eTag.get())) {
+                    return ETags.notModifiedResponse(eTag.get());
+                }
+            }
             Optional<MedicalHistory> medicalHistory = medicalHistoryService.getPatientMedicalHistory(patientId);
             if (medicalHistory.isPresent()) {
-                return ResponseEntity.ok(ApiResponse.success("Medical history retrieved successfully", medicalHistory.get()));
+                return ResponseEntity.ok()
+                    .eTag(ETags.fromDocument(medicalHistory.get().getId(), medicalHistory.get().getVersion()))
+                    .body(ApiResponse.success("Medical history retrieved successfully", medicalHistory.get()));
+            } else {
+                return ResponseEntity.ok(ApiResponse.success("No medical history found for patient", null));
+            }
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/patient/{patientId}/changes")
+    @Operation(summary = "Get medical records added, changed or deleted since a change sequence")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('PATIENT')")
+    public ResponseEntity<ApiResponse<MedicalHistoryChanges>> getMedicalHistoryChanges(
+            @PathVariable Long patientId,
+            @RequestParam(defaultValue = "0") long since) {
+        try {
+            MedicalHistoryChanges changes = medicalHistoryService.getMedicalHistoryChanges(patientId, since);
+            return ResponseEntity.ok(ApiResponse.success("Medical history changes retrieved successfully", changes));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/patient/{patientId}/summary")
+    @Operation(summary = "Get a patient's compact chart summary")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('PATIENT')")
+    @StaleFallback
+    public ResponseEntity<ApiResponse<MedicalHistorySummary>> getPatientSummary(@PathVariable Long patientId) {
+        try {
+            Optional<MedicalHistorySummary> summary = medicalHistoryService.getPatientSummary(patientId);
+            if (summary.isPresent()) {
+                return ResponseEntity.ok(ApiResponse.success("Medical history summary retrieved successfully", summary.get()));
             } else {
                 return ResponseEntity.ok(ApiResponse.success("No medical history found for patient", null));
             }
@@ -110,6 +211,24 @@ public class MedicalHistoryController {
         }
     }
     
+    @GetMapping("/search")
+    @Operation(summary = "Full-text search over medical record descriptions and doctor notes (Doctor only)")
+    @PreAuthorize("hasRole('DOCTOR')")
+    public ResponseEntity<ApiResponse<List<MedicalRecordSearchHit>>> searchMedicalRecords(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) String recordType,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            List<MedicalRecordSearchHit> hits = medicalHistoryService.searchMedicalRecords(query, recordType, doctorId, page, size);
+            return ResponseEntity.ok(ApiResponse.success("Medical records search completed successfully", hits));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
     @GetMapping("/all")
     @Operation(summary = "Get all medical histories (Doctor only)")
     @PreAuthorize("hasRole('DOCTOR')")
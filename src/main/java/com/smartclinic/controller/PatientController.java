@@ -0,0 +1,60 @@
+package com.smartclinic.controller;
+
+import com.smartclinic.dto.ApiResponse;
+import com.smartclinic.dto.PatientDashboard;
+import com.smartclinic.dto.PatientProfile;
+import com.smartclinic.resilience.Datastore;
+import com.smartclinic.resilience.DatastoreBulkhead;
+import com.smartclinic.service.PatientDashboardService;
+import com.smartclinic.service.ProfileService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for patient-level views that span both datastores
+ */
+@RestController
+@RequestMapping("/api/patients")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@DatastoreBulkhead(Datastore.MYSQL)
+@Tag(name = "Patients", description = "Patient overview APIs")
+public class PatientController {
+    
+    private final PatientDashboardService patientDashboardService;
+    private final ProfileService profileService;
+    
+    @GetMapping("/{patientId}")
+    @Operation(summary = "Get a patient's profile (name, contact and age)")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('PATIENT')")
+    public ResponseEntity<ApiResponse<PatientProfile>> getPatientProfile(@PathVariable Long patientId) {
+        try {
+            PatientProfile profile = profileService.getPatientProfile(patientId);
+            return ResponseEntity.ok(ApiResponse.success("Patient profile retrieved successfully", profile));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/{patientId}/dashboard")
+    @Operation(summary = "Get a patient's appointments, prescriptions and medical history in one call")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('PATIENT')")
+    public ResponseEntity<ApiResponse<PatientDashboard>> getDashboard(@PathVariable Long patientId) {
+        try {
+            PatientDashboard dashboard = patientDashboardService.getDashboard(patientId);
+            String message = dashboard.isComplete()
+                ? "Patient dashboard retrieved successfully"
+                : "Patient dashboard partially retrieved; see the section statuses";
+            return ResponseEntity.ok(ApiResponse.success(message, dashboard));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
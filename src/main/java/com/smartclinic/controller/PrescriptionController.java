@@ -1,19 +1,38 @@
 package com.smartclinic.controller;
 
+import com.smartclinic.dto.ActiveMedication;
 import com.smartclinic.dto.ApiResponse;
+import com.smartclinic.dto.BulkPrescriptionRequest;
+import com.smartclinic.dto.BulkPrescriptionResult;
+import com.smartclinic.dto.CursorPage;
+import com.smartclinic.dto.PrescriptionPatchRequest;
 import com.smartclinic.dto.PrescriptionRequest;
 import com.smartclinic.model.Prescription;
+import com.smartclinic.model.PrescriptionRevision;
+import com.smartclinic.projection.SparseFieldset;
+import com.smartclinic.resilience.Datastore;
+import com.smartclinic.resilience.DatastoreBulkhead;
+import com.smartclinic.resilience.StaleFallback;
+import com.smartclinic.service.DrugInteractionService;
+import com.smartclinic.service.FormularyService;
+import com.smartclinic.service.PrescriptionRevisionService;
 import com.smartclinic.service.PrescriptionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.Map;
 
 /**
  * REST controller for prescription management operations
@@ -22,10 +41,14 @@ import java.util.List;
 @RequestMapping("/api/prescriptions")
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*")
+@DatastoreBulkhead(Datastore.MONGO)
 @Tag(name = "Prescriptions", description = "Prescription management APIs")
 public class PrescriptionController {
     
     private final PrescriptionService prescriptionService;
+    private final DrugInteractionService drugInteractionService;
+    private final FormularyService formularyService;
+    private final PrescriptionRevisionService prescriptionRevisionService;
     
     @PostMapping
     @Operation(summary = "Create a prescription (Doctor only)")
@@ -40,13 +63,94 @@ public class PrescriptionController {
         }
     }
     
+    @PostMapping("/batch")
+    @Operation(summary = "Create many prescriptions in one request (Doctor only); returns a result per item")
+    @PreAuthorize("hasRole('DOCTOR')")
+    public ResponseEntity<ApiResponse<List<BulkPrescriptionResult>>> createPrescriptions(
+            @Valid @RequestBody BulkPrescriptionRequest request) {
+        try {
+            List<BulkPrescriptionResult> results = prescriptionService.createPrescriptions(request.getPrescriptions());
+            long created = results.stream().filter(BulkPrescriptionResult::isCreated).count();
+            return ResponseEntity.ok(ApiResponse.success(
+                created + " of " + results.size() + " prescriptions created", results));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/medicines/suggest")
+    @Operation(summary = "Autocomplete medicine names from the formulary")
+    @PreAuthorize("hasRole('DOCTOR')")
+    public ResponseEntity<ApiResponse<List<String>>> suggestMedicines(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            List<String> suggestions = formularyService.suggest(q, limit);
+            return ResponseEntity.ok(ApiResponse.success("Medicine suggestions retrieved successfully", suggestions));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/interactions/reload")
+    @Operation(summary = "Reload the drug interaction dataset (Admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Integer>> reloadDrugInteractions() {
+        try {
+            int interactions = drugInteractionService.reload();
+            return ResponseEntity.ok(ApiResponse.success("Drug interactions reloaded", interactions));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
     @GetMapping("/{id}")
-    @Operation(summary = "Get prescription by ID")
+    @Operation(summary = "Get prescription by ID; answers 304 to a matching If-None-Match without loading the document")
     @PreAuthorize("hasRole('DOCTOR') or hasRole('PATIENT')")
-    public ResponseEntity<ApiResponse<Prescription>> getPrescriptionById(@PathVariable String id) {
+    @StaleFallback
+    public ResponseEntity<ApiResponse<Prescription>> getPrescriptionById(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            if (ifNoneMatch != null) {
+                Optional<String> eTag = prescriptionService.getPrescriptionVersion(id).map(ETags::fromVersion);
+                if (eTag.isPresent() && ETags.notModified(ifNoneMatch, eTag.get())) {
+                    return ETags.notModifiedResponse(eTag.get());
+                }
+            }
             Prescription prescription = prescriptionService.getPrescriptionById(id);
-            return ResponseEntity.ok(ApiResponse.success("Prescription retrieved successfully", prescription));
+            return ResponseEntity.ok()
+                .eTag(ETags.fromVersion(prescription.getVersion()))
+                .body(ApiResponse.success("Prescription retrieved successfully", prescription));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/{id}/revisions")
+    @Operation(summary = "List the revision history of a prescription (Doctor only)")
+    @PreAuthorize("hasRole('DOCTOR')")
+    public ResponseEntity<ApiResponse<List<PrescriptionRevision>>> getPrescriptionRevisions(@PathVariable String id) {
+        try {
+            List<PrescriptionRevision> revisions = prescriptionRevisionService.getRevisions(id);
+            return ResponseEntity.ok(ApiResponse.success("Prescription revisions retrieved successfully", revisions));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/{id}/revisions/{version}")
+    @Operation(summary = "Get a prescription as it was at a given version (Doctor only)")
+    @PreAuthorize("hasRole('DOCTOR')")
+    public ResponseEntity<ApiResponse<Prescription>> getPrescriptionRevision(@PathVariable String id, @PathVariable long version) {
+        try {
+            Prescription prescription = prescriptionRevisionService.rebuild(id, version);
+            return ResponseEntity.ok(ApiResponse.success("Prescription revision retrieved successfully", prescription));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(ApiResponse.error(e.getMessage()));
@@ -54,12 +158,41 @@ public class PrescriptionController {
     }
     
     @PutMapping("/{id}")
-    @Operation(summary = "Update a prescription (Doctor only)")
+    @Operation(summary = "Update a prescription (Doctor only); honours If-Match for optimistic concurrency")
     @PreAuthorize("hasRole('DOCTOR')")
-    public ResponseEntity<ApiResponse<Prescription>> updatePrescription(@PathVariable String id, @Valid @RequestBody PrescriptionRequest request) {
+    public ResponseEntity<ApiResponse<Prescription>> updatePrescription(
+            @PathVariable String id,
+            @Valid @RequestBody PrescriptionRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Prescription prescription = prescriptionService.updatePrescription(id, request);
-            return ResponseEntity.ok(ApiResponse.success("Prescription updated successfully", prescription));
+            Prescription prescription = prescriptionService.updatePrescription(id, request, ETags.parseIfMatch(ifMatch));
+            return ResponseEntity.ok()
+                .eTag(ETags.fromVersion(prescription.getVersion()))
+                .body(ApiResponse.success("Prescription updated successfully", prescription));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @PatchMapping("/{id}")
+    @Operation(summary = "Partially update a prescription (Doctor only); only the supplied fields are written")
+    @PreAuthorize("hasRole('DOCTOR')")
+    public ResponseEntity<ApiResponse<Prescription>> patchPrescription(
+            @PathVariable String id,
+            @Valid @RequestBody PrescriptionPatchRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            Prescription prescription = prescriptionService.patchPrescription(id, request, ETags.parseIfMatch(ifMatch));
+            return ResponseEntity.ok()
+                .eTag(ETags.fromVersion(prescription.getVersion()))
+                .body(ApiResponse.success("Prescription updated successfully", prescription));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(ApiResponse.error(e.getMessage()));
@@ -73,6 +206,9 @@ public class PrescriptionController {
         try {
             prescriptionService.deletePrescription(id);
             return ResponseEntity.ok(ApiResponse.success("Prescription deleted successfully", "Prescription with ID " + id + " has been deleted"));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(ApiResponse.error(e.getMessage()));
@@ -80,28 +216,119 @@ public class PrescriptionController {
     }
     
     @GetMapping("/patient/{patientId}")
-    @Operation(summary = "Get prescriptions for a patient")
+    @Operation(summary = "Get prescriptions for a patient; ?fields=id,createdAt,... reads and returns only those fields")
     @PreAuthorize("hasRole('DOCTOR') or hasRole('PATIENT')")
-    public ResponseEntity<ApiResponse<List<Prescription>>> getPatientPrescriptions(@PathVariable Long patientId) {
+    @StaleFallback
+    public ResponseEntity<ApiResponse<List<?>>> getPatientPrescriptions(
+            @PathVariable Long patientId,
+            @RequestParam(required = false) String fields) {
         try {
-            List<Prescription> prescriptions = prescriptionService.getPatientPrescriptions(patientId);
+            List<?> prescriptions = fields == null
+                ? prescriptionService.getPatientPrescriptions(patientId)
+                : prescriptionService.getPatientPrescriptions(patientId, SparseFieldset.parse(fields, PrescriptionService.LIST_FIELDS));
             return ResponseEntity.ok(ApiResponse.success("Patient prescriptions retrieved successfully", prescriptions));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(ApiResponse.error(e.getMessage()));
         }
     }
     
+    @GetMapping(value = "/patient/{patientId}/stream",
+        produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE })
+    @Operation(summary = "Stream a patient's prescriptions, newest first, as NDJSON or server-sent events")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('PATIENT')")
+    public Flux<Prescription> streamPatientPrescriptions(@PathVariable Long patientId) {
+        return prescriptionService.streamPatientPrescriptions(patientId);
+    }
+    
+    @GetMapping("/patients")
+    @Operation(summary = "Get the prescriptions of several patients in one call, keyed by patient ID")
+    @PreAuthorize("hasRole('DOCTOR')")
+    public ResponseEntity<ApiResponse<Map<Long, List<Prescription>>>> getPrescriptionsForPatients(@RequestParam List<Long> ids) {
+        try {
+            Map<Long, List<Prescription>> prescriptions = prescriptionService.getPrescriptionsForPatients(ids);
+            return ResponseEntity.ok(ApiResponse.success("Prescriptions retrieved successfully", prescriptions));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/patient/{patientId}/active-medications")
+    @Operation(summary = "Get the medicines a patient is currently taking")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('PATIENT')")
+    @StaleFallback
+    public ResponseEntity<ApiResponse<List<ActiveMedication>>> getActiveMedications(@PathVariable Long patientId) {
+        try {
+            List<ActiveMedication> medications = prescriptionService.getActiveMedications(patientId);
+            return ResponseEntity.ok(ApiResponse.success("Active medications retrieved successfully", medications));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/patient/{patientId}/page")
+    @Operation(summary = "Get a page of prescriptions for a patient, newest first (keyset cursor)")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('PATIENT')")
+    public ResponseEntity<ApiResponse<CursorPage<Prescription>>> getPatientPrescriptionsPage(
+            @PathVariable Long patientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            CursorPage<Prescription> page = prescriptionService.getPatientPrescriptionsPage(patientId, cursor, size);
+            return ResponseEntity.ok(ApiResponse.success("Patient prescriptions retrieved successfully", page));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping(value = "/doctor/{doctorId}/stream",
+        produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE })
+    @Operation(summary = "Stream a doctor's prescriptions, newest first, as NDJSON or server-sent events")
+    @PreAuthorize("hasRole('DOCTOR')")
+    public Flux<Prescription> streamDoctorPrescriptions(@PathVariable Long doctorId) {
+        return prescriptionService.streamDoctorPrescriptions(doctorId);
+    }
+    
     @GetMapping("/doctor/{doctorId}")
-    @Operation(summary = "Get prescriptions created by a doctor")
+    @Operation(summary = "Get prescriptions created by a doctor; ?fields=id,createdAt,... reads and returns only those fields")
     @PreAuthorize("hasRole('DOCTOR')")
-    public ResponseEntity<ApiResponse<List<Prescription>>> getDoctorPrescriptions(@PathVariable Long doctorId) {
+    @StaleFallback
+    public ResponseEntity<ApiResponse<List<?>>> getDoctorPrescriptions(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) String fields) {
         try {
-            List<Prescription> prescriptions = prescriptionService.getDoctorPrescriptions(doctorId);
+            List<?> prescriptions = fields == null
+                ? prescriptionService.getDoctorPrescriptions(doctorId)
+                : prescriptionService.getDoctorPrescriptions(doctorId, SparseFieldset.parse(fields, PrescriptionService.LIST_FIELDS));
             return ResponseEntity.ok(ApiResponse.success("Doctor prescriptions retrieved successfully", prescriptions));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/doctor/{doctorId}/page")
+    @Operation(summary = "Get a page of prescriptions created by a doctor, newest first (keyset cursor)")
+    @PreAuthorize("hasRole('DOCTOR')")
+    public ResponseEntity<ApiResponse<CursorPage<Prescription>>> getDoctorPrescriptionsPage(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            CursorPage<Prescription> page = prescriptionService.getDoctorPrescriptionsPage(doctorId, cursor, size);
+            return ResponseEntity.ok(ApiResponse.success("Doctor prescriptions retrieved successfully", page));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(ApiResponse.error(e.getMessage()));
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package com.smartclinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A medicine the patient is currently taking, with the prescription it comes from
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActiveMedication {
+    
+    private String prescriptionId;
+    private Long doctorId;
+    private String name;
+    private String dosage;
+    private String frequency;
+    private String instructions;
+    private LocalDateTime startedAt;
+    private LocalDateTime endsAt; // null when open-ended
+}
@@ -0,0 +1,23 @@
+package com.smartclinic.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for creating many prescriptions in one request
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPrescriptionRequest {
+    
+    @NotEmpty(message = "At least one prescription is required")
+    @Size(max = 500, message = "At most 500 prescriptions can be created per request")
+    private List<@Valid PrescriptionRequest> prescriptions;
+}
@@ -0,0 +1,34 @@
+package com.smartclinic.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.smartclinic.interaction.InteractionWarning;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of one item in a bulk prescription request
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPrescriptionResult {
+    
+    private int index; // position in the request list
+    private boolean created;
+    private String prescriptionId; // null when not created
+    private String error; // null when created
+    
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<InteractionWarning> interactionWarnings;
+    
+    public static BulkPrescriptionResult created(int index, String prescriptionId, List<InteractionWarning> interactionWarnings) {
+        return new BulkPrescriptionResult(index, true, prescriptionId, null, interactionWarnings);
+    }
+    
+    public static BulkPrescriptionResult failed(int index, String error) {
+        return new BulkPrescriptionResult(index, false, null, error, null);
+    }
+}
@@ -0,0 +1,21 @@
+package com.smartclinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Keyset-paginated list response
+ * Pass {@code nextCursor} back as the {@code cursor} parameter to fetch the following page
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    
+    private List<T> items;
+    private String nextCursor; // null on the last page
+    private boolean hasMore;
+}
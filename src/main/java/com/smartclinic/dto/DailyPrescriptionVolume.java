@@ -0,0 +1,19 @@
+package com.smartclinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Number of prescriptions written on one day
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyPrescriptionVolume {
+    
+    private LocalDate day;
+    private long prescriptions;
+}
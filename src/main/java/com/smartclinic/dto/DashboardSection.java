@@ -0,0 +1,43 @@
+package com.smartclinic.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One independently loaded part of the patient dashboard; data is null unless the status is OK
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardSection<T> {
+    
+    public enum Status {
+        OK, TIMED_OUT, FAILED
+    }
+    
+    private Status status;
+    private T data;
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String error;
+    
+    public static <T> DashboardSection<T> ok(T data) {
+        return new DashboardSection<>(Status.OK, data, null);
+    }
+    
+    public static <T> DashboardSection<T> timedOut() {
+        return new DashboardSection<>(Status.TIMED_OUT, null, "Not loaded within the dashboard deadline");
+    }
+    
+    public static <T> DashboardSection<T> failed(String error) {
+        return new DashboardSection<>(Status.FAILED, null, error);
+    }
+    
+    @JsonIgnore
+    public boolean isOk() {
+        return status == Status.OK;
+    }
+}
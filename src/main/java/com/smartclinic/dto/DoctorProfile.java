@@ -0,0 +1,19 @@
+package com.smartclinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Public profile of a doctor; cached, so instances are shared and must not be modified
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DoctorProfile {
+    
+    private Long id;
+    private String name;
+    private String email;
+    private String specialization;
+}
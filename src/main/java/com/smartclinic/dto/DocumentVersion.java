@@ -0,0 +1,17 @@
+package com.smartclinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ID and version of a MongoDB document, read as a projection to answer conditional GETs without loading the document
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentVersion {
+    
+    private String id;
+    private Long version;
+}
@@ -0,0 +1,17 @@
+package com.smartclinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of prescriptions that include a drug
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DrugPrescriptionCount {
+    
+    private String drug;
+    private long prescriptions;
+}
@@ -0,0 +1,19 @@
+package com.smartclinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Size and latest modification time of a list of rows; any insert, update or delete changes one of them
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListVersion {
+    
+    private Long count;
+    private LocalDateTime lastUpdated;
+}
@@ -0,0 +1,25 @@
+package com.smartclinic.dto;
+
+import com.smartclinic.model.MedicalHistory;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for a medical history delta sync response
+ * Clients store {@code sequence} and pass it back as {@code since} on the next sync
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MedicalHistoryChanges {
+    
+    private Long patientId;
+    private String medicalHistoryId;
+    private Long sequence;
+    private boolean fullResync; // true when the delta cannot be expressed and local state must be replaced
+    private List<MedicalHistory.MedicalRecord> changedRecords;
+    private List<String> deletedRecordIds;
+}
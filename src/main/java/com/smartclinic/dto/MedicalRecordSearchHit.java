@@ -0,0 +1,25 @@
+package com.smartclinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a single medical record matched by a full-text search
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MedicalRecordSearchHit {
+    
+    private String medicalHistoryId;
+    private Long patientId;
+    private Integer recordIndex; // position inside MedicalHistory.records
+    private String recordType;
+    private Long doctorId;
+    private LocalDateTime recordDate;
+    private String snippet;
+    private Double score;
+}
@@ -0,0 +1,30 @@
+package com.smartclinic.dto;
+
+import com.smartclinic.model.Appointment;
+import com.smartclinic.model.MedicalHistory;
+import com.smartclinic.model.Prescription;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Everything a patient's screen needs in one response; each section reports its own status
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientDashboard {
+    
+    private Long patientId;
+    private DashboardSection<List<Appointment>> appointments;
+    private DashboardSection<List<Prescription>> prescriptions;
+    private DashboardSection<MedicalHistory> medicalHistory;
+    
+    @JsonIgnore
+    public boolean isComplete() {
+        return appointments.isOk() && prescriptions.isOk() && medicalHistory.isOk();
+    }
+}
@@ -0,0 +1,19 @@
+package com.smartclinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Patient demographics; cached, so instances are shared and must not be modified
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientProfile {
+    
+    private Long id;
+    private String name;
+    private String email;
+    private Integer age;
+}
@@ -0,0 +1,50 @@
+package com.smartclinic.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for partial prescription updates
+ * Only the fields that are present are written; omitted fields are left untouched
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrescriptionPatchRequest {
+    
+    private Long patientId;
+    
+    private Long doctorId;
+    
+    private String notes;
+    
+    // At most one of the three medicine list operations may be used per patch
+    private List<PrescriptionRequest.@Valid MedicineDto> addMedicines;
+    
+    private List<@Valid MedicineChange> updateMedicines;
+    
+    private List<String> removeMedicines; // medicine names
+    
+    /**
+     * Field-level change to the medicine at {@code index}; null fields are left untouched
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MedicineChange {
+        @NotNull(message = "Medicine index is required")
+        @Min(value = 0, message = "Medicine index must not be negative")
+        private Integer index;
+        private String name;
+        private String dosage;
+        private String frequency;
+        private Integer duration; // in days
+        private String instructions;
+    }
+}
@@ -0,0 +1,191 @@
+package com.smartclinic.formulary;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable prefix trie over normalized formulary names and aliases.
+ * Each node keeps its child labels in a sorted char array, and terminal nodes point at the
+ * canonical name they resolve to, so aliases and brand names share one lookup structure.
+ */
+public final class FormularyTrie {
+    
+    public static final FormularyTrie EMPTY = new FormularyTrie(new Node(), List.of(), 1);
+    
+    private final Node root;
+    private final List<String> canonicalNames;
+    private final int nodeCount;
+    
+    private FormularyTrie(Node root, List<String> canonicalNames, int nodeCount) {
+        this.root = root;
+        this.canonicalNames = canonicalNames;
+        this.nodeCount = nodeCount;
+    }
+    
+    /**
+     * Parses {@code Canonical Name[,alias...]} lines; blank lines and {@code #} comments are skipped
+     */
+    public static FormularyTrie load(Reader source) throws IOException {
+        Node root = new Node();
+        List<String> canonicalNames = new ArrayList<>();
+        int nodeCount = 1;
+        BufferedReader reader = new BufferedReader(source);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] names = line.split(",");
+            String canonical = names[0].strip();
+            if (MedicineNames.normalize(canonical).isEmpty()) {
+                throw new IOException("Malformed formulary entry at line " + lineNumber);
+            }
+            canonicalNames.add(canonical);
+            for (String name : names) {
+                String key = MedicineNames.normalize(name);
+                Node node = root;
+                for (int i = 0; i < key.length(); i++) {
+                    Node child = node.child(key.charAt(i));
+                    if (child == null) {
+                        child = node.addChild(key.charAt(i));
+                        nodeCount++;
+                    }
+                    node = child;
+                }
+                if (node.entry < 0) {
+                    node.entry = canonicalNames.size() - 1;
+                }
+            }
+        }
+        return new FormularyTrie(root, List.copyOf(canonicalNames), nodeCount);
+    }
+    
+    /**
+     * Returns the canonical name for an exact (normalized) name or alias, or null
+     */
+    public String lookup(String medicineName) {
+        Node node = find(MedicineNames.normalize(medicineName));
+        return node != null && node.entry >= 0 ? canonicalNames.get(node.entry) : null;
+    }
+    
+    /**
+     * Returns the canonical name of the closest entry within {@code maxEdits} Levenshtein edits, or null.
+     * Rows of the edit-distance table are computed per trie node, so shared prefixes are scored once
+     * and branches that cannot get within the bound are pruned.
+     */
+    public String closestMatch(String medicineName, int maxEdits) {
+        String key = MedicineNames.normalize(medicineName);
+        int[] firstRow = new int[key.length() + 1];
+        for (int i = 0; i < firstRow.length; i++) {
+            firstRow[i] = i;
+        }
+        int[] best = {maxEdits + 1, -1}; // distance, entry
+        for (int i = 0; i < root.labels.length; i++) {
+            closestMatch(root.children[i], root.labels[i], key, firstRow, best);
+        }
+        return best[1] >= 0 ? canonicalNames.get(best[1]) : null;
+    }
+    
+    /**
+     * Returns up to {@code limit} distinct canonical names whose name or alias starts with the prefix,
+     * in alphabetical order of the matching key
+     */
+    public List<String> suggest(String prefix, int limit) {
+        Node node = find(MedicineNames.normalize(prefix));
+        if (node == null) {
+            return List.of();
+        }
+        Set<Integer> entries = new LinkedHashSet<>();
+        collect(node, entries, limit);
+        return entries.stream().map(canonicalNames::get).toList();
+    }
+    
+    public int size() {
+        return canonicalNames.size();
+    }
+    
+    public int nodeCount() {
+        return nodeCount;
+    }
+    
+    private Node find(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node;
+    }
+    
+    private static void collect(Node node, Set<Integer> entries, int limit) {
+        if (entries.size() >= limit) {
+            return;
+        }
+        if (node.entry >= 0) {
+            entries.add(node.entry);
+        }
+        for (Node child : node.children) {
+            collect(child, entries, limit);
+        }
+    }
+    
+    private static void closestMatch(Node node, char label, String key, int[] previousRow, int[] best) {
+        int[] row = new int[previousRow.length];
+        row[0] = previousRow[0] + 1;
+        int rowMin = row[0];
+        for (int column = 1; column < row.length; column++) {
+            int replace = previousRow[column - 1] + (key.charAt(column - 1) == label ? 0 : 1);
+            row[column] = Math.min(replace, Math.min(row[column - 1], previousRow[column]) + 1);
+            rowMin = Math.min(rowMin, row[column]);
+        }
+        int distance = row[row.length - 1];
+        if (node.entry >= 0 && distance < best[0]) {
+            best[0] = distance;
+            best[1] = node.entry;
+        }
+        if (rowMin < best[0]) {
+            for (int i = 0; i < node.labels.length; i++) {
+                closestMatch(node.children[i], node.labels[i], key, row, best);
+            }
+        }
+    }
+    
+    private static final class Node {
+        
+        private static final char[] NO_LABELS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        
+        private char[] labels = NO_LABELS; // sorted
+        private Node[] children = NO_CHILDREN;
+        private int entry = -1; // index into canonicalNames when a name ends here
+        
+        Node child(char label) {
+            int position = Arrays.binarySearch(labels, label);
+            return position >= 0 ? children[position] : null;
+        }
+        
+        Node addChild(char label) {
+            int position = -(Arrays.binarySearch(labels, label) + 1);
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            System.arraycopy(labels, position, newLabels, position + 1, labels.length - position);
+            System.arraycopy(children, position, newChildren, position + 1, children.length - position);
+            Node child = new Node();
+            newLabels[position] = label;
+            newChildren[position] = child;
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.smartclinic.formulary;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Shared rules for comparing free-text medicine names
+ */
+public final class MedicineNames {
+    
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String UNIT = "(?:mg|mcg|µg|ug|g|ml|l|iu|units?|meq|mmol|%)";
+    private static final String AMOUNT = "\\d+(?:\\.\\d+)?(?:\\s*/\\s*\\d+(?:\\.\\d+)?)?";
+    
+    /**
+     * A trailing, whitespace-separated amount with an optional unit and per-volume part, e.g. "500mg",
+     * "500 mg", "250mg/5ml" or "500/125mg". Digits inside the name itself ("Vitamin B12", "5-fluorouracil")
+     * are not a strength.
+     */
+    private static final Pattern STRENGTH = Pattern.compile(
+        "\\s+(" + AMOUNT + "\\s*" + UNIT + "?(?:\\s*/\\s*(?:\\d+(?:\\.\\d+)?\\s*)?" + UNIT + ")?)$",
+        Pattern.CASE_INSENSITIVE);
+    
+    private MedicineNames() {
+    }
+    
+    /**
+     * Lower-cases the name and drops any strength suffix, so "Warfarin 5mg" matches "warfarin"
+     */
+    public static String normalize(String medicineName) {
+        if (medicineName == null) {
+            return "";
+        }
+        String name = medicineName.toLowerCase(Locale.ROOT).strip();
+        Matcher strength = STRENGTH.matcher(name);
+        if (strength.find()) {
+            name = name.substring(0, strength.start());
+        }
+        return WHITESPACE.matcher(name).replaceAll(" ").strip();
+    }
+    
+    /**
+     * Returns the strength part of a name such as "Amoxicillin 500mg", or null when there is none
+     */
+    public static String strength(String medicineName) {
+        if (medicineName == null) {
+            return null;
+        }
+        Matcher strength = STRENGTH.matcher(medicineName.strip());
+        return strength.find() ? strength.group(1) : null;
+    }
+}
@@ -0,0 +1,95 @@
+package com.smartclinic.interaction;
+
+import com.smartclinic.formulary.MedicineNames;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable lookup table of known drug-drug interactions.
+ * Drug names are interned to small integer IDs and each unordered pair is packed into a
+ * single long, kept in a sorted array so a lookup is one hash probe per drug plus a binary search.
+ */
+public final class DrugInteractionTable {
+    
+    public static final DrugInteractionTable EMPTY = new DrugInteractionTable(Map.of(), new long[0], new Interaction[0]);
+    
+    private final Map<String, Integer> drugIds;
+    private final long[] pairKeys; // sorted
+    private final Interaction[] interactions; // parallel to pairKeys
+    
+    private DrugInteractionTable(Map<String, Integer> drugIds, long[] pairKeys, Interaction[] interactions) {
+        this.drugIds = drugIds;
+        this.pairKeys = pairKeys;
+        this.interactions = interactions;
+    }
+    
+    /**
+     * Parses {@code drug_a,drug_b,severity[,description]} lines; blank lines and {@code #} comments are skipped
+     */
+    public static DrugInteractionTable load(Reader source) throws IOException {
+        Map<String, Integer> drugIds = new HashMap<>();
+        Map<Long, Interaction> pairs = new HashMap<>();
+        BufferedReader reader = new BufferedReader(source);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] columns = line.split(",", 4);
+            String first = columns.length >= 3 ? MedicineNames.normalize(columns[0]) : "";
+            String second = columns.length >= 3 ? MedicineNames.normalize(columns[1]) : "";
+            if (first.isEmpty() || second.isEmpty() || first.equals(second)) {
+                throw new IOException("Malformed drug interaction at line " + lineNumber);
+            }
+            int firstId = drugIds.computeIfAbsent(first, name -> drugIds.size());
+            int secondId = drugIds.computeIfAbsent(second, name -> drugIds.size());
+            String description = columns.length > 3 ? columns[3].strip() : "";
+            pairs.put(pairKey(firstId, secondId), new Interaction(columns[2].strip().toUpperCase(Locale.ROOT), description));
+        }
+        
+        long[] pairKeys = pairs.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        Interaction[] interactions = new Interaction[pairKeys.length];
+        for (int i = 0; i < pairKeys.length; i++) {
+            interactions[i] = pairs.get(pairKeys[i]);
+        }
+        return new DrugInteractionTable(Map.copyOf(drugIds), pairKeys, interactions);
+    }
+    
+    /**
+     * Returns the interned ID for a medicine name, or -1 when the drug has no known interactions
+     */
+    public int drugId(String medicineName) {
+        Integer id = drugIds.get(MedicineNames.normalize(medicineName));
+        return id == null ? -1 : id;
+    }
+    
+    public Interaction find(int firstId, int secondId) {
+        if (firstId < 0 || secondId < 0 || firstId == secondId) {
+            return null;
+        }
+        int position = Arrays.binarySearch(pairKeys, pairKey(firstId, secondId));
+        return position >= 0 ? interactions[position] : null;
+    }
+    
+    public int size() {
+        return pairKeys.length;
+    }
+    
+    private static long pairKey(int firstId, int secondId) {
+        int low = Math.min(firstId, secondId);
+        int high = Math.max(firstId, secondId);
+        return ((long) low << 32) | high;
+    }
+    
+    public record Interaction(String severity, String description) {
+    }
+}
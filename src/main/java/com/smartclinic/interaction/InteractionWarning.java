@@ -0,0 +1,20 @@
+package com.smartclinic.interaction;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Drug interaction found while checking a prescription
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InteractionWarning {
+    
+    private String medicine;
+    private String interactingMedicine;
+    private String severity; // e.g. MAJOR, MODERATE, MINOR
+    private String description;
+    private String interactingPrescriptionId; // null when both medicines are on the new prescription
+}
@@ -0,0 +1,260 @@
+package com.smartclinic.membership;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable compressed set of non-negative IDs, laid out like a Roaring bitmap.
+ * IDs are split on their low 16 bits: the high part selects a container, and each container stores
+ * its low parts either as a sorted char array (up to 4096 values) or as a 65536-bit bitmap once denser.
+ * Updates return a new bitmap that shares every untouched container, so readers never need a lock.
+ */
+public final class IdBitmap {
+    
+    public static final IdBitmap EMPTY = new IdBitmap(new long[0], new Container[0], 0);
+    
+    static final int ARRAY_MAX = 4096;
+    
+    private final long[] keys;
+    private final Container[] containers;
+    private final long cardinality;
+    
+    private IdBitmap(long[] keys, Container[] containers, long cardinality) {
+        this.keys = keys;
+        this.containers = containers;
+        this.cardinality = cardinality;
+    }
+    
+    public static IdBitmap of(Collection<Long> ids) {
+        long[] sorted = ids.stream().mapToLong(IdBitmap::checked).sorted().distinct().toArray();
+        int containerCount = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || high(sorted[i]) != high(sorted[i - 1])) {
+                containerCount++;
+            }
+        }
+        
+        long[] keys = new long[containerCount];
+        Container[] containers = new Container[containerCount];
+        int start = 0;
+        for (int c = 0; c < containerCount; c++) {
+            int end = start;
+            while (end < sorted.length && high(sorted[end]) == high(sorted[start])) {
+                end++;
+            }
+            keys[c] = high(sorted[start]);
+            containers[c] = Container.of(sorted, start, end);
+            start = end;
+        }
+        return new IdBitmap(keys, containers, sorted.length);
+    }
+    
+    public boolean contains(long id) {
+        if (id < 0) {
+            return false;
+        }
+        int index = Arrays.binarySearch(keys, high(id));
+        return index >= 0 && containers[index].contains(low(id));
+    }
+    
+    public IdBitmap with(long id) {
+        checked(id);
+        int index = Arrays.binarySearch(keys, high(id));
+        if (index >= 0) {
+            Container updated = containers[index].add(low(id));
+            if (updated == containers[index]) {
+                return this;
+            }
+            Container[] copy = containers.clone();
+            copy[index] = updated;
+            return new IdBitmap(keys, copy, cardinality + 1);
+        }
+        
+        int insertAt = -index - 1;
+        long[] newKeys = new long[keys.length + 1];
+        Container[] newContainers = new Container[containers.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, insertAt);
+        System.arraycopy(containers, 0, newContainers, 0, insertAt);
+        newKeys[insertAt] = high(id);
+        newContainers[insertAt] = new ArrayContainer(new char[] { low(id) });
+        System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+        System.arraycopy(containers, insertAt, newContainers, insertAt + 1, containers.length - insertAt);
+        return new IdBitmap(newKeys, newContainers, cardinality + 1);
+    }
+    
+    public IdBitmap without(long id) {
+        if (!contains(id)) {
+            return this;
+        }
+        int index = Arrays.binarySearch(keys, high(id));
+        Container updated = containers[index].remove(low(id));
+        if (updated != null) {
+            Container[] copy = containers.clone();
+            copy[index] = updated;
+            return new IdBitmap(keys, copy, cardinality - 1);
+        }
+        
+        long[] newKeys = new long[keys.length - 1];
+        Container[] newContainers = new Container[containers.length - 1];
+        System.arraycopy(keys, 0, newKeys, 0, index);
+        System.arraycopy(containers, 0, newContainers, 0, index);
+        System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+        System.arraycopy(containers, index + 1, newContainers, index, containers.length - index - 1);
+        return new IdBitmap(newKeys, newContainers, cardinality - 1);
+    }
+    
+    public long cardinality() {
+        return cardinality;
+    }
+    
+    /**
+     * Approximate heap footprint of the keys and containers
+     */
+    public long sizeInBytes() {
+        long bytes = keys.length * 8L;
+        for (Container container : containers) {
+            bytes += container.sizeInBytes();
+        }
+        return bytes;
+    }
+    
+    private static long checked(long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("IDs must be non-negative: " + id);
+        }
+        return id;
+    }
+    
+    private static long high(long id) {
+        return id >>> 16;
+    }
+    
+    private static char low(long id) {
+        return (char) id;
+    }
+    
+    private sealed interface Container permits ArrayContainer, BitmapContainer {
+        
+        static Container of(long[] sorted, int start, int end) {
+            if (end - start > ARRAY_MAX) {
+                long[] words = new long[1024];
+                for (int i = start; i < end; i++) {
+                    char value = low(sorted[i]);
+                    words[value >>> 6] |= 1L << value;
+                }
+                return new BitmapContainer(words, end - start);
+            }
+            char[] values = new char[end - start];
+            for (int i = start; i < end; i++) {
+                values[i - start] = low(sorted[i]);
+            }
+            return new ArrayContainer(values);
+        }
+        
+        boolean contains(char value);
+        
+        /**
+         * Returns this container when the value is already present
+         */
+        Container add(char value);
+        
+        /**
+         * Returns null when the container becomes empty
+         */
+        Container remove(char value);
+        
+        long sizeInBytes();
+    }
+    
+    private record ArrayContainer(char[] values) implements Container {
+        
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, value) >= 0;
+        }
+        
+        @Override
+        public Container add(char value) {
+            int index = Arrays.binarySearch(values, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (values.length == ARRAY_MAX) {
+                long[] words = new long[1024];
+                for (char existing : values) {
+                    words[existing >>> 6] |= 1L << existing;
+                }
+                words[value >>> 6] |= 1L << value;
+                return new BitmapContainer(words, ARRAY_MAX + 1);
+            }
+            int insertAt = -index - 1;
+            char[] copy = new char[values.length + 1];
+            System.arraycopy(values, 0, copy, 0, insertAt);
+            copy[insertAt] = value;
+            System.arraycopy(values, insertAt, copy, insertAt + 1, values.length - insertAt);
+            return new ArrayContainer(copy);
+        }
+        
+        @Override
+        public Container remove(char value) {
+            if (values.length == 1) {
+                return null;
+            }
+            int index = Arrays.binarySearch(values, value);
+            char[] copy = new char[values.length - 1];
+            System.arraycopy(values, 0, copy, 0, index);
+            System.arraycopy(values, index + 1, copy, index, values.length - index - 1);
+            return new ArrayContainer(copy);
+        }
+        
+        @Override
+        public long sizeInBytes() {
+            return values.length * 2L;
+        }
+    }
+    
+    private record BitmapContainer(long[] words, int cardinality) implements Container {
+        
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+        
+        @Override
+        public Container add(char value) {
+            if (contains(value)) {
+                return this;
+            }
+            long[] copy = words.clone();
+            copy[value >>> 6] |= 1L << value;
+            return new BitmapContainer(copy, cardinality + 1);
+        }
+        
+        @Override
+        public Container remove(char value) {
+            if (cardinality - 1 <= ARRAY_MAX) {
+                char[] values = new char[cardinality - 1];
+                int next = 0;
+                for (int word = 0; word < words.length; word++) {
+                    long bits = words[word];
+                    while (bits != 0) {
+                        char present = (char) (word * 64 + Long.numberOfTrailingZeros(bits));
+                        if (present != value) {
+                            values[next++] = present;
+                        }
+                        bits &= bits - 1;
+                    }
+                }
+                return new ArrayContainer(values);
+            }
+            long[] copy = words.clone();
+            copy[value >>> 6] &= ~(1L << value);
+            return new BitmapContainer(copy, cardinality - 1);
+        }
+        
+        @Override
+        public long sizeInBytes() {
+            return words.length * 8L;
+        }
+    }
+}
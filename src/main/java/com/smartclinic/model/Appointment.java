@@ -44,6 +44,15 @@ public class Appointment {
     @JsonBackReference("doctor-appointments")
     private Doctor doctor;
     
+    // Together with the row count this versions appointment lists for conditional GETs
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = LocalDateTime.now();
+    }
+    
     public enum AppointmentStatus {
         PENDING, CONFIRMED, CANCELLED, COMPLETED
     }
@@ -0,0 +1,30 @@
+package com.smartclinic.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Cache invalidation message broadcast between nodes through a capped MongoDB collection
+ */
+@Document(collection = "cache_invalidations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidation {
+    
+    @Id
+    private String id;
+    
+    private String origin; // node that published the invalidation
+    
+    private String cacheName; // null for the marker written when the collection is created
+    
+    private Object key; // null to invalidate the whole cache
+    
+    private Instant at;
+}
@@ -1,12 +1,16 @@
 package com.smartclinic.model;
 
-import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.smartclinic.service.IdMembershipListener;
+import com.smartclinic.service.ProfileCacheListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
@@ -16,6 +20,9 @@ import java.util.List;
  */
 @Entity
 @Table(name = "doctors")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "doctors")
+@EntityListeners({ IdMembershipListener.class, ProfileCacheListener.class })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -32,7 +39,7 @@ public class Doctor {
     // One-to-One relationship with User
     @OneToOne
     @JoinColumn(name = "user_id", referencedColumnName = "id")
-    @JsonBackReference("user-doctor")
+    @JsonIgnore
     private User user;
     
     // One-to-Many relationship with Appointments
@@ -1,6 +1,11 @@
 package com.smartclinic.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.smartclinic.codec.CompressibleText;
+import com.smartclinic.search.SearchTerms;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -22,10 +27,22 @@ public class MedicalHistory {
     @Id
     private String id;
     
+    @Version
+    private Long version;
+    
+    @Indexed(name = "patient_idx")
     private Long patientId;
     
     private List<MedicalRecord> records;
     
+    private Long changeSequence; // per-patient sequence of the latest record mutation
+    
+    @JsonIgnore
+    private List<RecordTombstone> deletedRecords; // bounded; used only by delta sync
+    
+    @JsonIgnore
+    private Long tombstoneFloor; // clients syncing from below this must resync fully
+    
     private LocalDateTime createdAt = LocalDateTime.now();
     
     private LocalDateTime updatedAt = LocalDateTime.now();
@@ -34,11 +51,46 @@ public class MedicalHistory {
     @NoArgsConstructor
     @AllArgsConstructor
     public static class MedicalRecord {
+        private String recordId;
+        private Long sequence; // change sequence at which this record was last written
         private String recordType; // DIAGNOSIS, TREATMENT, TEST_RESULT, etc.
-        private String description;
-        private String doctorNotes;
+        // Large values are stored compressed (see MongoConversionConfig) and decoded on first access
+        private CompressibleText description;
+        private CompressibleText doctorNotes;
+        // Distinct words of the text fields, always stored plain: the text index and record search use
+        // these, so compressed values stay searchable (see MongoMigrationConfig for the index)
+        @JsonIgnore
+        private List<String> descriptionTerms;
+        @JsonIgnore
+        private List<String> doctorNotesTerms;
         private Long doctorId;
         private LocalDateTime recordDate;
         private List<String> attachments; // file paths or IDs
+        
+        public String getDescription() {
+            return CompressibleText.valueOf(description);
+        }
+        
+        public void setDescription(String description) {
+            this.description = CompressibleText.of(description);
+            this.descriptionTerms = SearchTerms.of(description);
+        }
+        
+        public String getDoctorNotes() {
+            return CompressibleText.valueOf(doctorNotes);
+        }
+        
+        public void setDoctorNotes(String doctorNotes) {
+            this.doctorNotes = CompressibleText.of(doctorNotes);
+            this.doctorNotesTerms = SearchTerms.of(doctorNotes);
+        }
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RecordTombstone {
+        private String recordId;
+        private Long sequence;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package com.smartclinic.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact per-patient chart summary document for MongoDB
+ * Maintained incrementally alongside MedicalHistory so dashboards avoid reading every record
+ */
+@Document(collection = "medical_history_summary")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MedicalHistorySummary {
+    
+    @Id
+    private Long patientId;
+    
+    private String medicalHistoryId;
+    
+    private Long totalRecords;
+    
+    private Map<String, Long> recordCountsByType;
+    
+    private RecordDigest latestDiagnosis;
+    
+    private List<RecordDigest> activeTreatments; // most recent TREATMENT records, newest last
+    
+    private LocalDateTime lastRecordDate;
+    
+    private LocalDateTime updatedAt = LocalDateTime.now();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RecordDigest {
+        private String description;
+        private Long doctorId;
+        private LocalDateTime recordDate;
+    }
+}
@@ -1,13 +1,17 @@
 package com.smartclinic.model;
 
-import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.smartclinic.service.IdMembershipListener;
+import com.smartclinic.service.ProfileCacheListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Max;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
@@ -17,6 +21,9 @@ import java.util.List;
  */
 @Entity
 @Table(name = "patients")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "patients")
+@EntityListeners({ IdMembershipListener.class, ProfileCacheListener.class })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -34,7 +41,7 @@ public class Patient {
     // One-to-One relationship with User
     @OneToOne
     @JoinColumn(name = "user_id", referencedColumnName = "id")
-    @JsonBackReference("user-patient")
+    @JsonIgnore
     private User user;
     
     // One-to-Many relationship with Appointments
@@ -0,0 +1,37 @@
+package com.smartclinic.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated prescription count for one day and doctor, either for one drug or (drug = null) for all prescriptions
+ * Maintained incrementally on every prescription write so analytics never scan raw prescriptions
+ */
+@Document(collection = "prescribing_rollups")
+@CompoundIndexes({
+    @CompoundIndex(name = "drug_day_idx", def = "{'drug': 1, 'day': 1}"),
+    @CompoundIndex(name = "doctor_day_idx", def = "{'doctorId': 1, 'day': 1}")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrescribingRollup {
+    
+    @Id
+    private String id; // day|doctorId|drug, with * for the all-drugs total
+    
+    private LocalDate day;
+    
+    private Long doctorId;
+    
+    private String drug; // canonical medicine name; null on the all-drugs total
+    
+    private Long prescriptions;
+}
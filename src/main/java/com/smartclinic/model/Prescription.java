@@ -1,7 +1,16 @@
 package com.smartclinic.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.smartclinic.interaction.InteractionWarning;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.IndexDirection;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,6 +23,12 @@ import java.util.List;
  * Stores prescription information with medicine list and notes
  */
 @Document(collection = "prescriptions")
+@CompoundIndexes({
+    // _id is the keyset tie-breaker for prescriptions created in the same millisecond
+    @CompoundIndex(name = "patient_created_idx", def = "{'patientId': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "doctor_created_idx", def = "{'doctorId': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "patient_ends_idx", def = "{'patientId': 1, 'endsAt': 1}")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,6 +37,9 @@ public class Prescription {
     @Id
     private String id;
     
+    @Version
+    private Long version;
+    
     private Long patientId;
     
     private Long doctorId;
@@ -30,8 +48,18 @@ public class Prescription {
     
     private String notes;
     
+    @Indexed(name = "created_idx", direction = IndexDirection.DESCENDING)
     private LocalDateTime createdAt = LocalDateTime.now();
     
+    // Latest medicine end date; null while any medicine has no duration (ongoing)
+    @Field(write = Field.Write.ALWAYS)
+    private LocalDateTime endsAt;
+    
+    // Filled in on creation for the response only; never stored
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<InteractionWarning> interactionWarnings;
+    
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -41,5 +69,17 @@ public class Prescription {
         private String frequency;
         private Integer duration; // in days
         private String instructions;
+        
+        // createdAt + duration; null when the duration is open-ended
+        @Field(write = Field.Write.ALWAYS)
+        private LocalDateTime endsAt;
+        
+        public Medicine(String name, String dosage, String frequency, Integer duration, String instructions) {
+            this(name, dosage, frequency, duration, instructions, null);
+        }
+        
+        public boolean isActiveAt(LocalDateTime time) {
+            return endsAt == null || endsAt.isAfter(time);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.smartclinic.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Append-only revision of a prescription
+ * Most revisions hold only the field-level changes against the previous version; every
+ * few versions a full snapshot is stored so any version can be rebuilt in a bounded number of steps
+ */
+@Document(collection = "prescription_revisions")
+@CompoundIndex(name = "prescription_version_idx", def = "{'prescriptionId': 1, 'version': 1}", unique = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrescriptionRevision {
+    
+    @Id
+    private String id;
+    
+    private String prescriptionId;
+    
+    private Long version; // prescription version this revision produced
+    
+    private boolean snapshot;
+    
+    // Tombstone written when the prescription is deleted; a snapshot of its final state
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean deleted;
+    
+    // Full stored form of the prescription; snapshots only
+    @JsonIgnore
+    private org.bson.Document state;
+    
+    // Changes against the previous version; deltas only
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<FieldChange> changes;
+    
+    private LocalDateTime createdAt = LocalDateTime.now();
+    
+    /**
+     * New value at a dotted document path (e.g. {@code medicineList.1.dosage}), or its removal
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FieldChange {
+        private String path;
+        private Object value;
+        private boolean removed;
+    }
+}
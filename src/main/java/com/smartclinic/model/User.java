@@ -1,6 +1,6 @@
 package com.smartclinic.model;
 
-import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.smartclinic.service.ProfileCacheListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -8,6 +8,8 @@ import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * User entity for authentication and basic user information
@@ -15,6 +17,9 @@ import lombok.NoArgsConstructor;
  */
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@EntityListeners(ProfileCacheListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -43,14 +48,8 @@ public class User {
     @Column(nullable = false)
     private String password;
     
-    // One-to-One relationships
-    @OneToOne(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-    @JsonManagedReference("user-doctor")
-    private Doctor doctor;
-    
-    @OneToOne(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-    @JsonManagedReference("user-patient")
-    private Patient patient;
+    // Doctor and Patient own the one-to-one link through user_id. There is no inverse side here: Hibernate
+    // cannot load it lazily and would query it again on every second-level cache hit.
     
     public enum Role {
         ADMIN, DOCTOR, PATIENT
@@ -0,0 +1,60 @@
+package com.smartclinic.projection;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Validated {@code ?fields=} selection for list endpoints. The names are pushed down to the database
+ * (Mongo field projection or JPA tuple selection); the ID is always included so items stay addressable.
+ */
+public final class SparseFieldset {
+    
+    private final List<String> names;
+    
+    private SparseFieldset(List<String> names) {
+        this.names = names;
+    }
+    
+    /**
+     * Parses a comma-separated field list against the fields the endpoint allows
+     */
+    public static SparseFieldset parse(String fields, Set<String> allowed) {
+        Set<String> names = new LinkedHashSet<>();
+        names.add("id");
+        Arrays.stream(fields.split(","))
+            .map(String::trim)
+            .filter(name -> !name.isEmpty())
+            .forEach(names::add);
+        
+        Set<String> unknown = new TreeSet<>(names);
+        unknown.removeAll(allowed);
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown fields " + unknown + "; allowed: " + new TreeSet<>(allowed));
+        }
+        return new SparseFieldset(List.copyOf(names));
+    }
+    
+    public List<String> names() {
+        return names;
+    }
+    
+    /**
+     * Copies the selected properties of an entity loaded with this projection, in request order
+     */
+    public Map<String, Object> select(Object entity) {
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(entity);
+        Map<String, Object> selected = new LinkedHashMap<>();
+        for (String name : names) {
+            selected.put(name, wrapper.getPropertyValue(name));
+        }
+        return selected;
+    }
+}
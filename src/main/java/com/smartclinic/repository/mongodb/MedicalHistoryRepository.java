@@ -1,9 +1,12 @@
 package com.smartclinic.repository.mongodb;
 
+import com.smartclinic.dto.DocumentVersion;
 import com.smartclinic.model.MedicalHistory;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -14,5 +17,14 @@ public interface MedicalHistoryRepository extends MongoRepository<MedicalHistory
     
     Optional<MedicalHistory> findByPatientId(Long patientId);
     
+    List<MedicalHistory> findByPatientIdIn(Collection<Long> patientIds);
+    
     boolean existsByPatientId(Long patientId);
+    
+    /**
+     * Reads only the ID and version, for conditional GETs
+     */
+    Optional<DocumentVersion> findVersionById(String id);
+    
+    Optional<DocumentVersion> findVersionByPatientId(Long patientId);
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.smartclinic.repository.mongodb;
+
+import com.smartclinic.model.MedicalHistorySummary;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for MedicalHistorySummary document operations in MongoDB
+ */
+@Repository
+public interface MedicalHistorySummaryRepository extends MongoRepository<MedicalHistorySummary, Long> {
+}
@@ -1,17 +1,21 @@
 package com.smartclinic.repository.mongodb;
 
+import com.smartclinic.dto.DocumentVersion;
 import com.smartclinic.model.Prescription;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for Prescription document operations in MongoDB
  */
 @Repository
-public interface PrescriptionRepository extends MongoRepository<Prescription, String> {
+public interface PrescriptionRepository extends MongoRepository<Prescription, String>, PrescriptionRepositoryCustom {
     
     List<Prescription> findByPatientId(Long patientId);
     
@@ -22,4 +26,17 @@ public interface PrescriptionRepository extends MongoRepository<Prescription, St
     List<Prescription> findByCreatedAtBetween(LocalDateTime startDate, LocalDateTime endDate);
     
     List<Prescription> findByPatientIdOrderByCreatedAtDesc(Long patientId);
+    
+    List<Prescription> findByPatientIdInOrderByCreatedAtDesc(Collection<Long> patientIds);
+    
+    /**
+     * Reads only the ID and version, for conditional GETs
+     */
+    Optional<DocumentVersion> findVersionById(String id);
+    
+    /**
+     * Prescriptions still running at {@code now}: ending later, or open-ended (null endsAt); served by patient_ends_idx
+     */
+    @Query("{ 'patientId': { $in: ?0 }, $or: [ { 'endsAt': { $gt: ?1 } }, { 'endsAt': null } ] }")
+    List<Prescription> findActiveByPatientIds(Collection<Long> patientIds, LocalDateTime now);
 }
\ No newline at end of file
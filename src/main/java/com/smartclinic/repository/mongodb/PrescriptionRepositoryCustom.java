@@ -0,0 +1,25 @@
+package com.smartclinic.repository.mongodb;
+
+import com.smartclinic.model.Prescription;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Custom keyset-pagination and projection queries for Prescription documents
+ * Pages are ordered newest first by (createdAt, _id); pass the last item's values to get the next page
+ */
+public interface PrescriptionRepositoryCustom {
+    
+    List<Prescription> findPageByPatientId(Long patientId, LocalDateTime afterCreatedAt, String afterId, int limit);
+    
+    List<Prescription> findPageByDoctorId(Long doctorId, LocalDateTime afterCreatedAt, String afterId, int limit);
+    
+    /**
+     * A patient's prescriptions, newest first, with only the given fields read from MongoDB; the rest stay unset
+     */
+    List<Prescription> findByPatientIdWithFields(Long patientId, Collection<String> fields);
+    
+    List<Prescription> findByDoctorIdWithFields(Long doctorId, Collection<String> fields);
+}
@@ -0,0 +1,64 @@
+package com.smartclinic.repository.mongodb;
+
+import com.smartclinic.model.Prescription;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keyset pagination and field projections backed by the (owner, createdAt desc, _id desc) compound indexes on Prescription
+ */
+@RequiredArgsConstructor
+public class PrescriptionRepositoryImpl implements PrescriptionRepositoryCustom {
+    
+    private final MongoTemplate mongoTemplate;
+    
+    @Override
+    public List<Prescription> findPageByPatientId(Long patientId, LocalDateTime afterCreatedAt, String afterId, int limit) {
+        return mongoTemplate.find(keysetQuery("patientId", patientId, afterCreatedAt, afterId, limit), Prescription.class);
+    }
+    
+    @Override
+    public List<Prescription> findPageByDoctorId(Long doctorId, LocalDateTime afterCreatedAt, String afterId, int limit) {
+        return mongoTemplate.find(keysetQuery("doctorId", doctorId, afterCreatedAt, afterId, limit), Prescription.class);
+    }
+    
+    @Override
+    public List<Prescription> findByPatientIdWithFields(Long patientId, Collection<String> fields) {
+        Query query = Query.query(Criteria.where("patientId").is(patientId))
+            .with(Sort.by(Sort.Direction.DESC, "createdAt"));
+        query.fields().include(fields.toArray(String[]::new));
+        return mongoTemplate.find(query, Prescription.class);
+    }
+    
+    @Override
+    public List<Prescription> findByDoctorIdWithFields(Long doctorId, Collection<String> fields) {
+        Query query = Query.query(Criteria.where("doctorId").is(doctorId));
+        query.fields().include(fields.toArray(String[]::new));
+        return mongoTemplate.find(query, Prescription.class);
+    }
+    
+    /**
+     * Builds the page query. The top-level {@code createdAt <= cursor} bound lets the index
+     * seek straight to the cursor; the $or only breaks ties inside that millisecond.
+     */
+    public static Query keysetQuery(String ownerField, Long ownerId, LocalDateTime afterCreatedAt, String afterId, int limit) {
+        Criteria criteria = Criteria.where(ownerField).is(ownerId);
+        if (afterCreatedAt != null && afterId != null) {
+            criteria = criteria.and("createdAt").lte(afterCreatedAt)
+                .orOperator(
+                    Criteria.where("createdAt").lt(afterCreatedAt),
+                    Criteria.where("_id").lt(afterId)
+                );
+        }
+        return Query.query(criteria)
+            .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+            .limit(limit);
+    }
+}
@@ -0,0 +1,15 @@
+package com.smartclinic.repository.mongodb.reactive;
+
+import com.smartclinic.model.MedicalHistory;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking read access to medical histories on the reactive MongoDB driver, for streaming endpoints
+ */
+@Repository
+public interface ReactiveMedicalHistoryRepository extends ReactiveMongoRepository<MedicalHistory, String> {
+    
+    Mono<MedicalHistory> findByPatientId(Long patientId);
+}
@@ -0,0 +1,17 @@
+package com.smartclinic.repository.mongodb.reactive;
+
+import com.smartclinic.model.Prescription;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking read access to prescriptions on the reactive MongoDB driver, for streaming endpoints
+ */
+@Repository
+public interface ReactivePrescriptionRepository extends ReactiveMongoRepository<Prescription, String> {
+    
+    Flux<Prescription> findByPatientIdOrderByCreatedAtDesc(Long patientId);
+    
+    Flux<Prescription> findByDoctorIdOrderByCreatedAtDesc(Long doctorId);
+}
@@ -1,5 +1,6 @@
 package com.smartclinic.repository.mysql;
 
+import com.smartclinic.dto.ListVersion;
 import com.smartclinic.model.Appointment;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -13,12 +14,18 @@ import java.util.List;
  * Repository interface for Appointment entity operations in MySQL
  */
 @Repository
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, AppointmentRepositoryCustom {
     
     List<Appointment> findByPatientId(Long patientId);
     
     List<Appointment> findByDoctorId(Long doctorId);
     
+    @Query("select new com.smartclinic.dto.ListVersion(count(a), max(a.updatedAt)) from Appointment a where a.patient.id = :patientId")
+    ListVersion findListVersionByPatientId(@Param("patientId") Long patientId);
+    
+    @Query("select new com.smartclinic.dto.ListVersion(count(a), max(a.updatedAt)) from Appointment a where a.doctor.id = :doctorId")
+    ListVersion findListVersionByDoctorId(@Param("doctorId") Long doctorId);
+    
     List<Appointment> findByStatus(Appointment.AppointmentStatus status);
     
     @Query("SELECT a FROM Appointment a WHERE a.doctor.id = :doctorId AND a.date BETWEEN :startDate AND :endDate")
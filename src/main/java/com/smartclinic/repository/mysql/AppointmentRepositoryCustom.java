@@ -0,0 +1,18 @@
+package com.smartclinic.repository.mysql;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom projection queries for Appointment entities
+ */
+public interface AppointmentRepositoryCustom {
+    
+    /**
+     * Selects only the given attributes of a patient's appointments as a JPA tuple query; one map per row,
+     * keyed by attribute name in the given order
+     */
+    List<Map<String, Object>> findFieldsByPatientId(Long patientId, List<String> fields);
+    
+    List<Map<String, Object>> findFieldsByDoctorId(Long doctorId, List<String> fields);
+}
@@ -0,0 +1,49 @@
+package com.smartclinic.repository.mysql;
+
+import com.smartclinic.model.Appointment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tuple selections over appointments, so list endpoints read only the columns a client asked for
+ */
+public class AppointmentRepositoryImpl implements AppointmentRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<Map<String, Object>> findFieldsByPatientId(Long patientId, List<String> fields) {
+        return findFields("patient", patientId, fields);
+    }
+    
+    @Override
+    public List<Map<String, Object>> findFieldsByDoctorId(Long doctorId, List<String> fields) {
+        return findFields("doctor", doctorId, fields);
+    }
+    
+    private List<Map<String, Object>> findFields(String owner, Long ownerId, List<String> fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Appointment> appointment = query.from(Appointment.class);
+        query.multiselect(fields.stream().<Selection<?>>map(field -> appointment.get(field).alias(field)).toList())
+            .where(cb.equal(appointment.get(owner).get("id"), ownerId));
+        
+        return entityManager.createQuery(query).getResultList().stream()
+            .map(tuple -> {
+                Map<String, Object> row = new LinkedHashMap<>();
+                fields.forEach(field -> row.put(field, tuple.get(field)));
+                return row;
+            })
+            .toList();
+    }
+}
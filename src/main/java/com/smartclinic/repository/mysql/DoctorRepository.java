@@ -1,9 +1,16 @@
 package com.smartclinic.repository.mysql;
 
+import com.smartclinic.dto.DoctorProfile;
 import com.smartclinic.model.Doctor;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -15,7 +22,26 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     
     Optional<Doctor> findByUserId(Long userId);
     
+    /**
+     * Results are held in the Hibernate query cache and invalidated whenever the doctors table changes
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Doctor> findBySpecialization(String specialization);
     
     Optional<Doctor> findByUserEmail(String email);
+    
+    /**
+     * Returns which of the given IDs exist, in a single IN query without loading the entities
+     */
+    @Query("select d.id from Doctor d where d.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+    
+    @Query("select d.id from Doctor d")
+    List<Long> findAllIds();
+    
+    @Query("select new com.smartclinic.dto.DoctorProfile(d.id, u.name, u.email, d.specialization) from Doctor d join d.user u where d.id = :id")
+    Optional<DoctorProfile> findProfileById(@Param("id") Long id);
+    
+    @Query("select distinct d.specialization from Doctor d order by d.specialization")
+    List<String> findSpecializations();
 }
\ No newline at end of file
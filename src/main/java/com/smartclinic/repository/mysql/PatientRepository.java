@@ -1,9 +1,14 @@
 package com.smartclinic.repository.mysql;
 
+import com.smartclinic.dto.PatientProfile;
 import com.smartclinic.model.Patient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -15,4 +20,16 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     Optional<Patient> findByUserId(Long userId);
     
     Optional<Patient> findByUserEmail(String email);
+    
+    /**
+     * Returns which of the given IDs exist, in a single IN query without loading the entities
+     */
+    @Query("select p.id from Patient p where p.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+    
+    @Query("select p.id from Patient p")
+    List<Long> findAllIds();
+    
+    @Query("select new com.smartclinic.dto.PatientProfile(p.id, u.name, u.email, p.age) from Patient p join p.user u where p.id = :id")
+    Optional<PatientProfile> findProfileById(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.smartclinic.resilience;
+
+/**
+ * Backing stores that get their own bulkhead and circuit breaker
+ */
+public enum Datastore {
+    
+    MYSQL("MySQL"),
+    MONGO("MongoDB");
+    
+    private final String displayName;
+    
+    Datastore(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+}
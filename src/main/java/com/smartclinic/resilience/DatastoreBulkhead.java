@@ -0,0 +1,19 @@
+package com.smartclinic.resilience;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs every handler method of the annotated controller inside the bulkhead and circuit breaker of the
+ * store it depends on, so a slow store can only tie up its own share of requests
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface DatastoreBulkhead {
+    
+    Datastore value();
+}
@@ -0,0 +1,62 @@
+package com.smartclinic.resilience;
+
+import com.smartclinic.concurrent.ConcurrencyLimitFilter;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.reactivestreams.Publisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Applies {@link DatastoreIsolation} to {@link DatastoreBulkhead} controllers. Runs inside method security,
+ * so a stale response is only ever served to a caller allowed to make the call.
+ * Requests on stores that do not feed the concurrency limit are released by it without a latency sample:
+ * their own bulkhead already bounds them, and their latency says nothing about the other stores.
+ * Datastore failures thrown out of the service layer are reported to the call in progress, since
+ * controllers usually answer them with a 4xx that the breaker would otherwise count as a success.
+ * Methods returning a {@link Publisher} only assemble the stream; it is isolated when subscribed.
+ */
+@Aspect
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class DatastoreBulkheadAspect {
+    
+    private final DatastoreIsolation isolation;
+    private final Set<Datastore> outsideConcurrencyLimit;
+    
+    public DatastoreBulkheadAspect(DatastoreIsolation isolation, Set<Datastore> outsideConcurrencyLimit) {
+        this.isolation = isolation;
+        this.outsideConcurrencyLimit = outsideConcurrencyLimit;
+    }
+    
+    @Around("@within(bulkhead)")
+    public Object isolate(ProceedingJoinPoint joinPoint, DatastoreBulkhead bulkhead) throws Throwable {
+        Datastore datastore = bulkhead.value();
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null && outsideConcurrencyLimit.contains(datastore)) {
+            request.setAttribute(ConcurrencyLimitFilter.SKIP_LATENCY_SAMPLE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+        
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        if (Publisher.class.isAssignableFrom(method.getReturnType())) {
+            return isolation.isolateStream(datastore, joinPoint.proceed());
+        }
+        Object staleKey = method.isAnnotationPresent(StaleFallback.class)
+            ? Arrays.asList(method, Arrays.asList(joinPoint.getArgs()))
+            : null;
+        return isolation.execute(datastore, staleKey, joinPoint::proceed);
+    }
+    
+    @AfterThrowing(pointcut = "within(com.smartclinic.service..*)", throwing = "failure")
+    public void reportFailure(Throwable failure) {
+        isolation.recordFailure(failure);
+    }
+}
@@ -0,0 +1,208 @@
+package com.smartclinic.resilience;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-store bulkhead (semaphore with a short wait) and circuit breaker around calls into a datastore.
+ * A call that cannot get a permit fails at once with {@link DatastoreUnavailableException}, or is answered
+ * with the last successful response for the same key when the store keeps stale responses.
+ * The breaker opens on failures, 5xx responses and slow calls. A datastore failure reported through
+ * {@link #recordFailure} during the call also counts, even when the controller turned it into a 4xx.
+ * Streamed results are isolated per subscription, for as long as the stream runs.
+ */
+public class DatastoreIsolation {
+    
+    static final String STALE_WARNING = "110 - \"Response is Stale\"";
+    
+    @FunctionalInterface
+    public interface Call {
+        Object proceed() throws Throwable;
+    }
+    
+    private final Map<Datastore, Bulkhead> bulkheads = new EnumMap<>(Datastore.class);
+    private final Map<Datastore, CircuitBreaker> circuitBreakers = new EnumMap<>(Datastore.class);
+    private final Map<Datastore, Cache<Object, ResponseEntity<?>>> staleResponses;
+    private final MeterRegistry meterRegistry;
+    // First datastore failure seen by the call running on this thread
+    private final ThreadLocal<Throwable[]> currentCallFailure = new ThreadLocal<>();
+    
+    public DatastoreIsolation(BulkheadRegistry bulkheadRegistry, CircuitBreakerRegistry circuitBreakerRegistry,
+            Map<Datastore, Cache<Object, ResponseEntity<?>>> staleResponses, MeterRegistry meterRegistry) {
+        for (Datastore datastore : Datastore.values()) {
+            bulkheads.put(datastore, bulkheadRegistry.bulkhead(name(datastore)));
+            circuitBreakers.put(datastore, circuitBreakerRegistry.circuitBreaker(name(datastore)));
+        }
+        this.staleResponses = staleResponses;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    public static String name(Datastore datastore) {
+        return datastore.name().toLowerCase();
+    }
+    
+    public static boolean isServerError(Object result) {
+        return result instanceof ResponseEntity<?> response && response.getStatusCode().is5xxServerError();
+    }
+    
+    /**
+     * True for failures of the store itself (unreachable, timed out, pool exhausted) anywhere in the
+     * cause chain, as opposed to bad input, missing data or version conflicts
+     */
+    public static boolean isDatastoreFailure(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataAccessResourceFailureException
+                    || cause instanceof TransientDataAccessResourceException
+                    || cause instanceof QueryTimeoutException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof MongoTimeoutException
+                    || cause instanceof MongoSocketException
+                    || cause instanceof SQLTransientConnectionException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Marks the call running on this thread as failed when the exception is a datastore failure.
+     * Does nothing outside an isolated call.
+     */
+    public void recordFailure(Throwable failure) {
+        Throwable[] current = currentCallFailure.get();
+        if (current != null && current[0] == null && isDatastoreFailure(failure)) {
+            current[0] = failure;
+        }
+    }
+    
+    /**
+     * Runs the call under the store's bulkhead and circuit breaker
+     *
+     * @param staleKey key under which a successful response is kept for stale fallback, or null
+     */
+    public Object execute(Datastore datastore, Object staleKey, Call call) throws Throwable {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(datastore);
+        Bulkhead bulkhead = bulkheads.get(datastore);
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return rejected(datastore, staleKey, "circuit open");
+        }
+        if (!bulkhead.tryAcquirePermission()) {
+            circuitBreaker.releasePermission();
+            return rejected(datastore, staleKey, "bulkhead full");
+        }
+        
+        Throwable[] failure = new Throwable[1];
+        Throwable[] outerCall = currentCallFailure.get();
+        currentCallFailure.set(failure);
+        long started = System.nanoTime();
+        try {
+            Object result = call.proceed();
+            if (failure[0] != null) {
+                circuitBreaker.onError(System.nanoTime() - started, TimeUnit.NANOSECONDS, failure[0]);
+            } else {
+                circuitBreaker.onResult(System.nanoTime() - started, TimeUnit.NANOSECONDS, result);
+                remember(datastore, staleKey, result);
+            }
+            return result;
+        } catch (Throwable e) {
+            circuitBreaker.onError(System.nanoTime() - started, TimeUnit.NANOSECONDS, e);
+            throw e;
+        } finally {
+            currentCallFailure.set(outerCall);
+            bulkhead.onComplete();
+        }
+    }
+    
+    /**
+     * Wraps a streamed result so each subscription takes a permit and holds it until the stream completes,
+     * fails or is cancelled; errors count against the circuit and a refused subscription fails at once
+     */
+    public Object isolateStream(Datastore datastore, Object result) {
+        if (result instanceof Mono<?> mono) {
+            return Mono.from(isolate(datastore, mono));
+        }
+        if (result instanceof Publisher<?> publisher) {
+            return isolate(datastore, publisher);
+        }
+        return result;
+    }
+    
+    private <T> Flux<T> isolate(Datastore datastore, Publisher<T> publisher) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(datastore);
+        Bulkhead bulkhead = bulkheads.get(datastore);
+        return Flux.defer(() -> {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                return Flux.error(refused(datastore, "circuit open", false));
+            }
+            if (!bulkhead.tryAcquirePermission()) {
+                circuitBreaker.releasePermission();
+                return Flux.error(refused(datastore, "bulkhead full", false));
+            }
+            long started = System.nanoTime();
+            return Flux.from(publisher)
+                .doOnComplete(() -> circuitBreaker.onSuccess(System.nanoTime() - started, TimeUnit.NANOSECONDS))
+                .doOnError(e -> circuitBreaker.onError(System.nanoTime() - started, TimeUnit.NANOSECONDS, e))
+                .doOnCancel(circuitBreaker::releasePermission)
+                .doFinally(signal -> bulkhead.onComplete());
+        });
+    }
+    
+    public CircuitBreaker circuitBreaker(Datastore datastore) {
+        return circuitBreakers.get(datastore);
+    }
+    
+    private void remember(Datastore datastore, Object staleKey, Object result) {
+        Cache<Object, ResponseEntity<?>> cache = staleResponses.get(datastore);
+        if (staleKey != null && cache != null && result instanceof ResponseEntity<?> response
+                && response.getStatusCode().is2xxSuccessful()) {
+            cache.put(staleKey, response);
+        }
+    }
+    
+    private Object rejected(Datastore datastore, Object staleKey, String reason) {
+        Cache<Object, ResponseEntity<?>> cache = staleResponses.get(datastore);
+        ResponseEntity<?> stale = staleKey == null || cache == null ? null : cache.getIfPresent(staleKey);
+        DatastoreUnavailableException refusal = refused(datastore, reason, stale != null);
+        if (stale == null) {
+            throw refusal;
+        }
+        return ResponseEntity.status(stale.getStatusCode())
+            .headers(headers -> {
+                headers.addAll(stale.getHeaders());
+                headers.set("Warning", STALE_WARNING);
+            })
+            .body(stale.getBody());
+    }
+    
+    private DatastoreUnavailableException refused(Datastore datastore, String reason, boolean servedStale) {
+        Counter.builder("smartclinic.datastore.rejected")
+            .description("Calls refused by a datastore bulkhead or open circuit, by whether a stale response was served")
+            .tags("datastore", name(datastore), "reason", reason.replace(' ', '_'), "served", servedStale ? "stale" : "error")
+            .register(meterRegistry)
+            .increment();
+        return new DatastoreUnavailableException(datastore, reason);
+    }
+}
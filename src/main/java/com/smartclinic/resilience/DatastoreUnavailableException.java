@@ -0,0 +1,18 @@
+package com.smartclinic.resilience;
+
+/**
+ * Thrown instead of calling a store whose bulkhead is full or whose circuit is open
+ */
+public class DatastoreUnavailableException extends RuntimeException {
+    
+    private final Datastore datastore;
+    
+    public DatastoreUnavailableException(Datastore datastore, String reason) {
+        super(datastore.getDisplayName() + " is temporarily unavailable (" + reason + "), please retry shortly");
+        this.datastore = datastore;
+    }
+    
+    public Datastore getDatastore() {
+        return datastore;
+    }
+}
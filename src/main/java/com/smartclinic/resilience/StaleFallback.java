@@ -0,0 +1,17 @@
+package com.smartclinic.resilience;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read whose last successful response may be served, flagged as stale, while its store's
+ * bulkhead is full or circuit is open. Only takes effect when the store's stale fallback is enabled.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface StaleFallback {
+}
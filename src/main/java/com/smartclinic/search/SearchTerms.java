@@ -0,0 +1,55 @@
+package com.smartclinic.search;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits free text into the distinct lower-case words it contains, using the same word boundaries
+ * as the MongoDB text index (letters and digits; punctuation and hyphens separate words)
+ */
+public final class SearchTerms {
+    
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    
+    // Longest first; enough to line up inflections like intolerant/intolerance or allergy/allergies
+    private static final List<String> SUFFIXES = List.of("ations", "ation", "ances", "ance", "ences", "ence",
+        "ments", "ment", "ness", "ities", "ity", "ings", "ing", "ants", "ant", "ents", "ent", "ies", "ied",
+        "ic", "ed", "es", "ly", "s", "y");
+    
+    private static final int MIN_STEM_LENGTH = 4;
+    
+    private SearchTerms() {
+    }
+    
+    /**
+     * Returns the distinct words of the text in order of first appearance, or null for null text
+     */
+    public static List<String> of(String text) {
+        if (text == null) {
+            return null;
+        }
+        Set<String> words = new LinkedHashSet<>();
+        Matcher matcher = WORD.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            words.add(matcher.group());
+        }
+        return List.copyOf(words);
+    }
+    
+    /**
+     * Strips a common English suffix from a lower-case word, keeping at least four characters.
+     * Words sharing the returned prefix are treated as the same term when matching records.
+     */
+    public static String stem(String word) {
+        for (String suffix : SUFFIXES) {
+            if (word.endsWith(suffix) && word.length() - suffix.length() >= MIN_STEM_LENGTH) {
+                return word.substring(0, word.length() - suffix.length());
+            }
+        }
+        return word;
+    }
+}
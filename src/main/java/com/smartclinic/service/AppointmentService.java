@@ -1,11 +1,13 @@
 package com.smartclinic.service;
 
 import com.smartclinic.dto.AppointmentRequest;
+import com.smartclinic.dto.ListVersion;
 import com.smartclinic.model.Appointment;
 import com.smartclinic.model.Doctor;
 import com.smartclinic.model.Patient;
 import com.smartclinic.repository.mysql.AppointmentRepository;
 import com.smartclinic.repository.mysql.DoctorRepository;
+import com.smartclinic.projection.SparseFieldset;
 import com.smartclinic.repository.mysql.PatientRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -13,6 +15,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Service for appointment management operations
@@ -21,9 +25,15 @@ import java.util.List;
 @RequiredArgsConstructor
 public class AppointmentService {
     
+    /**
+     * Fields a list request may select with {@code ?fields=}
+     */
+    public static final Set<String> LIST_FIELDS = Set.of("id", "date", "status", "updatedAt");
+    
     private final AppointmentRepository appointmentRepository;
     private final PatientRepository patientRepository;
     private final DoctorRepository doctorRepository;
+    private final ProfileService profileService;
     
     @Transactional
     public Appointment bookAppointment(AppointmentRequest request) {
@@ -32,12 +42,11 @@ public class AppointmentService {
             throw new RuntimeException("Appointment date must be in the future");
         }
         
-        // Find patient and doctor
-        Patient patient = patientRepository.findById(request.getPatientId())
-            .orElseThrow(() -> new RuntimeException("Patient not found"));
-        
-        Doctor doctor = doctorRepository.findById(request.getDoctorId())
-            .orElseThrow(() -> new RuntimeException("Doctor not found"));
+        // Check patient and doctor against the profile cache, then link them without loading the rows
+        profileService.getPatientProfile(request.getPatientId());
+        profileService.getDoctorProfile(request.getDoctorId());
+        Patient patient = patientRepository.getReferenceById(request.getPatientId());
+        Doctor doctor = doctorRepository.getReferenceById(request.getDoctorId());
         
         // Create appointment
         Appointment appointment = new Appointment();
@@ -50,19 +59,42 @@ public class AppointmentService {
     }
     
     public List<Appointment> getPatientAppointments(Long patientId) {
-        if (!patientRepository.existsById(patientId)) {
-            throw new RuntimeException("Patient not found");
-        }
+        profileService.getPatientProfile(patientId);
         return appointmentRepository.findByPatientId(patientId);
     }
     
+    /**
+     * A patient's appointments with only the selected columns read and returned
+     */
+    public List<Map<String, Object>> getPatientAppointments(Long patientId, SparseFieldset fields) {
+        profileService.getPatientProfile(patientId);
+        return appointmentRepository.findFieldsByPatientId(patientId, fields.names());
+    }
+    
     public List<Appointment> getDoctorAppointments(Long doctorId) {
-        if (!doctorRepository.existsById(doctorId)) {
-            throw new RuntimeException("Doctor not found");
-        }
+        profileService.getDoctorProfile(doctorId);
         return appointmentRepository.findByDoctorId(doctorId);
     }
     
+    /**
+     * A doctor's appointments with only the selected columns read and returned
+     */
+    public List<Map<String, Object>> getDoctorAppointments(Long doctorId, SparseFieldset fields) {
+        profileService.getDoctorProfile(doctorId);
+        return appointmentRepository.findFieldsByDoctorId(doctorId, fields.names());
+    }
+    
+    /**
+     * Count and latest update time of a patient's appointments, from one aggregate query
+     */
+    public ListVersion getPatientAppointmentsVersion(Long patientId) {
+        return appointmentRepository.findListVersionByPatientId(patientId);
+    }
+    
+    public ListVersion getDoctorAppointmentsVersion(Long doctorId) {
+        return appointmentRepository.findListVersionByDoctorId(doctorId);
+    }
+    
     @Transactional
     public Appointment updateAppointmentStatus(Long appointmentId, String status) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
@@ -0,0 +1,111 @@
+package com.smartclinic.service;
+
+import com.smartclinic.interaction.DrugInteractionTable;
+import com.smartclinic.interaction.InteractionWarning;
+import com.smartclinic.model.Prescription;
+import com.smartclinic.repository.mongodb.PrescriptionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Checks prescriptions against an in-memory drug interaction table.
+ * The table is loaded from a local dataset at startup and can be swapped at runtime via {@link #reload()}.
+ */
+@Service
+@Slf4j
+public class DrugInteractionService {
+    
+    private final Resource dataset;
+    private final PrescriptionRepository prescriptionRepository;
+    
+    private volatile DrugInteractionTable table = DrugInteractionTable.EMPTY;
+    
+    public DrugInteractionService(
+            @Value("${smartclinic.interactions.dataset:classpath:data/drug-interactions.csv}") Resource dataset,
+            PrescriptionRepository prescriptionRepository) {
+        this.dataset = dataset;
+        this.prescriptionRepository = prescriptionRepository;
+        reload();
+    }
+    
+    /**
+     * Re-reads the dataset and atomically swaps it in; on failure the current table stays in use
+     */
+    public int reload() {
+        try (Reader reader = new InputStreamReader(dataset.getInputStream(), StandardCharsets.UTF_8)) {
+            DrugInteractionTable loaded = DrugInteractionTable.load(reader);
+            table = loaded;
+            log.info("Loaded {} drug interactions from {}", loaded.size(), dataset.getDescription());
+            return loaded.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load drug interactions from " + dataset.getDescription(), e);
+        }
+    }
+    
+    /**
+     * Checks the medicines of a new prescription against each other and against the patient's active prescriptions.
+     * The active prescriptions are only read when one of the new medicines appears in the table.
+     */
+    public List<InteractionWarning> checkNewPrescription(Long patientId, List<Prescription.Medicine> medicines) {
+        if (!mentionsKnownDrug(medicines)) {
+            return List.of();
+        }
+        return check(medicines, findActivePrescriptions(List.of(patientId)));
+    }
+    
+    public List<InteractionWarning> check(List<Prescription.Medicine> medicines, List<Prescription> activePrescriptions) {
+        DrugInteractionTable current = table;
+        int[] ids = medicines.stream().mapToInt(medicine -> current.drugId(medicine.getName())).toArray();
+        List<InteractionWarning> warnings = new ArrayList<>();
+        
+        for (int i = 0; i < ids.length; i++) {
+            for (int j = i + 1; j < ids.length; j++) {
+                addWarning(warnings, current, medicines.get(i), ids[i], medicines.get(j), ids[j], null);
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (Prescription active : activePrescriptions) {
+            for (Prescription.Medicine other : active.getMedicineList()) {
+                int otherId = current.drugId(other.getName());
+                if (otherId < 0 || !other.isActiveAt(now)) {
+                    continue;
+                }
+                for (int i = 0; i < ids.length; i++) {
+                    addWarning(warnings, current, medicines.get(i), ids[i], other, otherId, active.getId());
+                }
+            }
+        }
+        return warnings;
+    }
+    
+    public boolean mentionsKnownDrug(List<Prescription.Medicine> medicines) {
+        DrugInteractionTable current = table;
+        return medicines.stream().anyMatch(medicine -> current.drugId(medicine.getName()) >= 0);
+    }
+    
+    public List<Prescription> findActivePrescriptions(Collection<Long> patientIds) {
+        return prescriptionRepository.findActiveByPatientIds(patientIds, LocalDateTime.now());
+    }
+    
+    private static void addWarning(List<InteractionWarning> warnings, DrugInteractionTable table,
+                                   Prescription.Medicine medicine, int medicineId,
+                                   Prescription.Medicine other, int otherId, String otherPrescriptionId) {
+        DrugInteractionTable.Interaction interaction = table.find(medicineId, otherId);
+        if (interaction != null) {
+            warnings.add(new InteractionWarning(medicine.getName(), other.getName(),
+                interaction.severity(), interaction.description(), otherPrescriptionId));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.smartclinic.service;
+
+import com.smartclinic.formulary.FormularyTrie;
+import com.smartclinic.formulary.MedicineNames;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Medicine name autocomplete, typo suggestions and canonicalization backed by an in-memory formulary trie
+ */
+@Service
+@Slf4j
+public class FormularyService {
+    
+    private static final int MAX_SUGGESTIONS = 20;
+    
+    private final FormularyTrie formulary;
+    
+    public FormularyService(@Value("${smartclinic.formulary.dataset:classpath:data/formulary.csv}") Resource dataset) {
+        try (Reader reader = new InputStreamReader(dataset.getInputStream(), StandardCharsets.UTF_8)) {
+            formulary = FormularyTrie.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load formulary from " + dataset.getDescription(), e);
+        }
+        log.info("Loaded {} formulary medicines ({} trie nodes) from {}",
+            formulary.size(), formulary.nodeCount(), dataset.getDescription());
+    }
+    
+    public List<String> suggest(String query, int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new RuntimeException("Limit must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        if (query == null || MedicineNames.normalize(query).isEmpty()) {
+            return List.of();
+        }
+        List<String> suggestions = formulary.suggest(query, limit);
+        if (!suggestions.isEmpty()) {
+            return suggestions;
+        }
+        // Nothing starts with the query, so offer the closest name as a likely typo correction
+        int maxEdits = maxEdits(MedicineNames.normalize(query).length());
+        String correction = maxEdits > 0 ? formulary.closestMatch(query, maxEdits) : null;
+        return correction != null ? List.of(correction) : List.of();
+    }
+    
+    /**
+     * Maps a free-text medicine name to its formulary name when it is an exact name or alias.
+     * Anything else is kept as entered: a near match may well be a different drug (ampicillin is two
+     * edits from amoxicillin), so typo corrections are only ever offered through {@link #suggest}.
+     */
+    public String canonicalize(String medicineName) {
+        if (medicineName == null || medicineName.isBlank()) {
+            return medicineName;
+        }
+        String canonical = formulary.lookup(medicineName);
+        return canonical != null ? canonical : medicineName.strip();
+    }
+    
+    private static int maxEdits(int nameLength) {
+        // Short names are too close to each other for typo correction to be safe
+        if (nameLength < 5) {
+            return 0;
+        }
+        return nameLength < 9 ? 1 : 2;
+    }
+}
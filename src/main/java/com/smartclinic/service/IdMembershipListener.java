@@ -0,0 +1,39 @@
+package com.smartclinic.service;
+
+import com.smartclinic.model.Doctor;
+import com.smartclinic.model.Patient;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * JPA entity listener that keeps {@link IdMembershipService} in step with patient and doctor inserts and deletes.
+ * Hibernate obtains it from the Spring context while the entity manager factory is still being built,
+ * so the service is looked up lazily rather than injected directly.
+ */
+public class IdMembershipListener {
+    
+    private final ObjectProvider<IdMembershipService> idMembershipService;
+    
+    public IdMembershipListener(ObjectProvider<IdMembershipService> idMembershipService) {
+        this.idMembershipService = idMembershipService;
+    }
+    
+    @PostPersist
+    public void persisted(Object entity) {
+        if (entity instanceof Patient patient) {
+            idMembershipService.getObject().patientRegistered(patient.getId());
+        } else if (entity instanceof Doctor doctor) {
+            idMembershipService.getObject().doctorRegistered(doctor.getId());
+        }
+    }
+    
+    @PostRemove
+    public void removed(Object entity) {
+        if (entity instanceof Patient patient) {
+            idMembershipService.getObject().patientRemoved(patient.getId());
+        } else if (entity instanceof Doctor doctor) {
+            idMembershipService.getObject().doctorRemoved(doctor.getId());
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.smartclinic.service;
+
+import com.smartclinic.membership.IdBitmap;
+import com.smartclinic.repository.mysql.DoctorRepository;
+import com.smartclinic.repository.mysql.PatientRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-memory membership index of patient and doctor IDs, so the MongoDB-backed services can validate
+ * references without a MySQL round trip. Each index is a compressed bitmap plus a watermark (the highest
+ * ID seen by the last full load); unknown IDs above the watermark are checked against the database
+ * and remembered when found. The index is reloaded periodically and kept current by {@link IdMembershipListener}.
+ */
+@Service
+@Slf4j
+public class IdMembershipService {
+    
+    /**
+     * Most patient IDs a batch read may ask for at once
+     */
+    public static final int MAX_BATCH_PATIENTS = 100;
+    
+    private final Membership patients;
+    private final Membership doctors;
+    
+    public IdMembershipService(PatientRepository patientRepository, DoctorRepository doctorRepository) {
+        this.patients = new Membership("patient", patientRepository::findAllIds, patientRepository::findExistingIds);
+        this.doctors = new Membership("doctor", doctorRepository::findAllIds, doctorRepository::findExistingIds);
+    }
+    
+    /**
+     * Rebuilds both indexes from MySQL; runs at startup and then on a fixed delay to pick up changes made elsewhere
+     */
+    @Scheduled(fixedDelayString = "${smartclinic.membership.refresh-interval:PT10M}")
+    public void reload() {
+        patients.reload();
+        doctors.reload();
+    }
+    
+    public boolean patientExists(Long patientId) {
+        return patients.exists(patientId);
+    }
+    
+    public boolean doctorExists(Long doctorId) {
+        return doctors.exists(doctorId);
+    }
+    
+    /**
+     * Returns the given patient IDs that do not exist, in ascending order
+     */
+    public Set<Long> findMissingPatients(Collection<Long> patientIds) {
+        return patients.findMissing(patientIds);
+    }
+    
+    /**
+     * Distinct patient IDs of a batch read in request order, after checking the batch size
+     * and that every patient exists
+     */
+    public Set<Long> requireExistingPatients(List<Long> patientIds) {
+        Set<Long> ids = new LinkedHashSet<>(patientIds);
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_PATIENTS) {
+            throw new RuntimeException("Between 1 and " + MAX_BATCH_PATIENTS + " patient IDs are required");
+        }
+        Set<Long> missing = findMissingPatients(ids);
+        if (!missing.isEmpty()) {
+            throw new RuntimeException("Patients not found: " + missing);
+        }
+        return ids;
+    }
+    
+    public Set<Long> findMissingDoctors(Collection<Long> doctorIds) {
+        return doctors.findMissing(doctorIds);
+    }
+    
+    public void patientRegistered(Long patientId) {
+        afterCommit(() -> patients.add(patientId));
+    }
+    
+    public void patientRemoved(Long patientId) {
+        afterCommit(() -> patients.remove(patientId));
+    }
+    
+    public void doctorRegistered(Long doctorId) {
+        afterCommit(() -> doctors.add(doctorId));
+    }
+    
+    public void doctorRemoved(Long doctorId) {
+        afterCommit(() -> doctors.remove(doctorId));
+    }
+    
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
+    private static final class Membership {
+        
+        private record Snapshot(IdBitmap ids, long watermark) {
+        }
+        
+        private final String name;
+        private final Supplier<List<Long>> loader;
+        private final Function<Collection<Long>, List<Long>> fallback;
+        
+        // Until the first load every ID is above the watermark, so lookups go to the database
+        private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(IdBitmap.EMPTY, -1));
+        
+        Membership(String name, Supplier<List<Long>> loader, Function<Collection<Long>, List<Long>> fallback) {
+            this.name = name;
+            this.loader = loader;
+            this.fallback = fallback;
+        }
+        
+        void reload() {
+            List<Long> ids = loader.get();
+            IdBitmap bitmap = IdBitmap.of(ids);
+            long watermark = ids.stream().mapToLong(Long::longValue).max().orElse(0);
+            snapshot.set(new Snapshot(bitmap, watermark));
+            log.info("Loaded {} {} IDs up to {} ({} bytes)", bitmap.cardinality(), name, watermark, bitmap.sizeInBytes());
+        }
+        
+        boolean exists(Long id) {
+            if (id == null) {
+                return false;
+            }
+            Snapshot current = snapshot.get();
+            if (current.ids().contains(id)) {
+                return true;
+            }
+            return id > current.watermark() && findMissing(List.of(id)).isEmpty();
+        }
+        
+        Set<Long> findMissing(Collection<Long> ids) {
+            Snapshot current = snapshot.get();
+            Set<Long> missing = new TreeSet<>();
+            List<Long> unknown = new ArrayList<>();
+            for (Long id : ids) {
+                if (id == null || current.ids().contains(id)) {
+                    continue;
+                }
+                if (id > current.watermark()) {
+                    unknown.add(id);
+                } else {
+                    missing.add(id);
+                }
+            }
+            if (!unknown.isEmpty()) {
+                List<Long> found = fallback.apply(unknown);
+                found.forEach(this::add);
+                unknown.stream().filter(id -> !found.contains(id)).forEach(missing::add);
+            }
+            return missing;
+        }
+        
+        void add(Long id) {
+            snapshot.updateAndGet(current -> new Snapshot(current.ids().with(id), current.watermark()));
+        }
+        
+        void remove(Long id) {
+            snapshot.updateAndGet(current -> new Snapshot(current.ids().without(id), current.watermark()));
+        }
+    }
+}
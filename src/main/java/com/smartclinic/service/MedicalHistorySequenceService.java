@@ -0,0 +1,34 @@
+package com.smartclinic.service;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/**
+ * Hands out monotonic per-patient change sequence numbers for medical history delta sync
+ * The counter lives in its own collection so it survives a medical history being deleted and recreated
+ */
+@Service
+@RequiredArgsConstructor
+public class MedicalHistorySequenceService {
+    
+    static final String COLLECTION = "medical_history_sequence";
+    
+    private final MongoTemplate mongoTemplate;
+    
+    public long next(Long patientId) {
+        Document counter = mongoTemplate.findAndModify(
+            Query.query(Criteria.where("_id").is(patientId)),
+            new Update().inc("sequence", 1L),
+            FindAndModifyOptions.options().returnNew(true).upsert(true),
+            Document.class,
+            COLLECTION
+        );
+        return counter.get("sequence", Number.class).longValue();
+    }
+}
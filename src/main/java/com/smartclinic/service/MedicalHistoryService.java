@@ -1,16 +1,46 @@
 package com.smartclinic.service;
 
+import com.smartclinic.codec.CompressibleText;
+import com.smartclinic.codec.CompressingTextConverter;
+import com.smartclinic.dto.DocumentVersion;
+import com.smartclinic.dto.MedicalHistoryChanges;
 import com.smartclinic.dto.MedicalHistoryRequest;
+import com.smartclinic.dto.MedicalRecordSearchHit;
 import com.smartclinic.model.MedicalHistory;
+import com.smartclinic.model.MedicalHistorySummary;
 import com.smartclinic.repository.mongodb.MedicalHistoryRepository;
-import com.smartclinic.repository.mysql.PatientRepository;
+import com.smartclinic.repository.mongodb.reactive.ReactiveMedicalHistoryRepository;
+import com.smartclinic.repository.mongodb.MedicalHistorySummaryRepository;
+import com.smartclinic.search.SearchTerms;
+import com.mongodb.client.result.UpdateResult;
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * Service for medical history management operations in MongoDB
@@ -19,17 +49,33 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class MedicalHistoryService {
     
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    private static final int SNIPPET_LENGTH = 160;
+    private static final int MAX_ACTIVE_TREATMENTS = 10;
+    private static final int MAX_TOMBSTONES = 500;
+    private static final String DIAGNOSIS = "DIAGNOSIS";
+    private static final String TREATMENT = "TREATMENT";
+    private static final Pattern SEARCH_TERM = Pattern.compile("(-?)\"([^\"]+)\"|(\\S+)");
+    
     private final MedicalHistoryRepository medicalHistoryRepository;
-    private final PatientRepository patientRepository;
+    private final ReactiveMedicalHistoryRepository reactiveMedicalHistoryRepository;
+    private final MedicalHistorySummaryRepository medicalHistorySummaryRepository;
+    private final IdMembershipService idMembershipService;
+    private final MedicalHistorySequenceService medicalHistorySequenceService;
+    private final MongoTemplate mongoTemplate;
+    private final ReadCoalescer readCoalescer;
+    private final CompressingTextConverter compressingTextConverter;
     
     public MedicalHistory addMedicalRecord(MedicalHistoryRequest request) {
         // Validate patient exists
-        if (!patientRepository.existsById(request.getPatientId())) {
+        if (!idMembershipService.patientExists(request.getPatientId())) {
             throw new RuntimeException("Patient not found");
         }
         
         // Convert DTO to entity
         MedicalHistory.MedicalRecord record = new MedicalHistory.MedicalRecord();
+        record.setRecordId(UUID.randomUUID().toString());
         record.setRecordType(request.getRecord().getRecordType());
         record.setDescription(request.getRecord().getDescription());
         record.setDoctorNotes(request.getRecord().getDoctorNotes());
@@ -37,31 +83,83 @@ public class MedicalHistoryService {
         record.setRecordDate(LocalDateTime.now());
         record.setAttachments(request.getRecord().getAttachments());
         
-        // Find existing medical history or create new one
-        Optional<MedicalHistory> existingHistory = medicalHistoryRepository.findByPatientId(request.getPatientId());
-        
-        MedicalHistory medicalHistory;
-        if (existingHistory.isPresent()) {
-            medicalHistory = existingHistory.get();
-            medicalHistory.getRecords().add(record);
-            medicalHistory.setUpdatedAt(LocalDateTime.now());
-        } else {
-            medicalHistory = new MedicalHistory();
-            medicalHistory.setPatientId(request.getPatientId());
-            medicalHistory.setRecords(new ArrayList<>());
-            medicalHistory.getRecords().add(record);
-            medicalHistory.setCreatedAt(LocalDateTime.now());
-            medicalHistory.setUpdatedAt(LocalDateTime.now());
+        // Appending is order-independent, so a concurrent write is simply retried on the fresh document
+        for (int attempt = 1; ; attempt++) {
+            // Find existing medical history or create new one
+            Optional<MedicalHistory> existingHistory = medicalHistoryRepository.findByPatientId(request.getPatientId());
+            // Allocated after the read, so a save that wins the version check always carries the highest sequence
+            long sequence = medicalHistorySequenceService.next(request.getPatientId());
+            record.setSequence(sequence);
+            
+            MedicalHistory medicalHistory;
+            if (existingHistory.isPresent()) {
+                medicalHistory = existingHistory.get();
+                medicalHistory.getRecords().add(record);
+                medicalHistory.setUpdatedAt(LocalDateTime.now());
+            } else {
+                medicalHistory = new MedicalHistory();
+                medicalHistory.setPatientId(request.getPatientId());
+                medicalHistory.setRecords(new ArrayList<>());
+                medicalHistory.getRecords().add(record);
+                medicalHistory.setCreatedAt(LocalDateTime.now());
+                medicalHistory.setUpdatedAt(LocalDateTime.now());
+                // A recreated history has no tombstones for what came before, so older cursors must resync
+                medicalHistory.setTombstoneFloor(sequence);
+            }
+            medicalHistory.setChangeSequence(sequence);
+            
+            try {
+                MedicalHistory savedHistory = medicalHistoryRepository.save(medicalHistory);
+                recordAddedToSummary(savedHistory, record, existingHistory.isPresent());
+                return savedHistory;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+            }
         }
-        
-        return medicalHistoryRepository.save(medicalHistory);
     }
     
+    /**
+     * Concurrent calls for the same patient share one query (see {@link ReadCoalescer})
+     */
     public Optional<MedicalHistory> getPatientMedicalHistory(Long patientId) {
-        if (!patientRepository.existsById(patientId)) {
+        if (!idMembershipService.patientExists(patientId)) {
+            throw new RuntimeException("Patient not found");
+        }
+        return readCoalescer.execute("patient-medical-history", patientId,
+            () -> medicalHistoryRepository.findByPatientId(patientId));
+    }
+    
+    /**
+     * ID and version of a patient's medical history, without loading its records
+     */
+    public Optional<DocumentVersion> getPatientMedicalHistoryVersion(Long patientId) {
+        return medicalHistoryRepository.findVersionByPatientId(patientId);
+    }
+    
+    /**
+     * Streams the records of a patient's chart on the reactive driver; empty when the patient has no history yet
+     */
+    public Flux<MedicalHistory.MedicalRecord> streamPatientRecords(Long patientId) {
+        if (!idMembershipService.patientExists(patientId)) {
             throw new RuntimeException("Patient not found");
         }
-        return medicalHistoryRepository.findByPatientId(patientId);
+        return reactiveMedicalHistoryRepository.findByPatientId(patientId)
+            .flatMapIterable(history -> history.getRecords() != null ? history.getRecords() : List.of());
+    }
+    
+    /**
+     * Medical histories of several patients at once: the IDs are checked against the membership index and
+     * one $in query reads the histories. Patients without a history are left out of the map.
+     */
+    public Map<Long, MedicalHistory> getMedicalHistoriesForPatients(List<Long> patientIds) {
+        Set<Long> ids = idMembershipService.requireExistingPatients(patientIds);
+        Map<Long, MedicalHistory> found = medicalHistoryRepository.findByPatientIdIn(ids).stream()
+            .collect(Collectors.toMap(MedicalHistory::getPatientId, history -> history, (first, second) -> first));
+        Map<Long, MedicalHistory> byPatient = new LinkedHashMap<>();
+        ids.stream().filter(found::containsKey).forEach(patientId -> byPatient.put(patientId, found.get(patientId)));
+        return byPatient;
     }
     
     public MedicalHistory getMedicalHistoryById(String id) {
@@ -69,17 +167,33 @@ public class MedicalHistoryService {
             .orElseThrow(() -> new RuntimeException("Medical history not found"));
     }
     
+    /**
+     * Current version of a medical history from an ID/version projection; empty when it does not exist
+     */
+    public Optional<Long> getMedicalHistoryVersion(String id) {
+        return medicalHistoryRepository.findVersionById(id).map(DocumentVersion::getVersion);
+    }
+    
     public MedicalHistory updateMedicalRecord(String id, MedicalHistoryRequest request) {
+        return updateMedicalRecord(id, request, null);
+    }
+    
+    /**
+     * Appends a record using compare-and-set on the history version. A pinned
+     * version (If-Match) fails fast on mismatch; otherwise conflicts are retried.
+     */
+    public MedicalHistory updateMedicalRecord(String id, MedicalHistoryRequest request, Long expectedVersion) {
         MedicalHistory existingHistory = medicalHistoryRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Medical history not found"));
         
         // Validate patient exists
-        if (!patientRepository.existsById(request.getPatientId())) {
+        if (!idMembershipService.patientExists(request.getPatientId())) {
             throw new RuntimeException("Patient not found");
         }
         
         // Convert DTO to entity
         MedicalHistory.MedicalRecord record = new MedicalHistory.MedicalRecord();
+        record.setRecordId(UUID.randomUUID().toString());
         record.setRecordType(request.getRecord().getRecordType());
         record.setDescription(request.getRecord().getDescription());
         record.setDoctorNotes(request.getRecord().getDoctorNotes());
@@ -87,18 +201,39 @@ public class MedicalHistoryService {
         record.setRecordDate(LocalDateTime.now());
         record.setAttachments(request.getRecord().getAttachments());
         
-        // Add new record to existing history
-        existingHistory.getRecords().add(record);
-        existingHistory.setUpdatedAt(LocalDateTime.now());
-        
-        return medicalHistoryRepository.save(existingHistory);
+        for (int attempt = 1; ; attempt++) {
+            if (expectedVersion != null && !expectedVersion.equals(existingHistory.getVersion())) {
+                throw new OptimisticLockingFailureException(
+                    "Medical history was modified by another request (current version " + existingHistory.getVersion() + ")");
+            }
+            
+            long sequence = medicalHistorySequenceService.next(existingHistory.getPatientId());
+            record.setSequence(sequence);
+            
+            // Add new record to existing history
+            existingHistory.getRecords().add(record);
+            existingHistory.setChangeSequence(sequence);
+            existingHistory.setUpdatedAt(LocalDateTime.now());
+            
+            try {
+                MedicalHistory savedHistory = medicalHistoryRepository.save(existingHistory);
+                recordAddedToSummary(savedHistory, record, true);
+                return savedHistory;
+            } catch (OptimisticLockingFailureException e) {
+                if (expectedVersion != null || attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+                existingHistory = medicalHistoryRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Medical history not found"));
+            }
+        }
     }
     
     public void deleteMedicalHistory(String id) {
-        if (!medicalHistoryRepository.existsById(id)) {
-            throw new RuntimeException("Medical history not found");
-        }
+        MedicalHistory existingHistory = medicalHistoryRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Medical history not found"));
         medicalHistoryRepository.deleteById(id);
+        medicalHistorySummaryRepository.deleteById(existingHistory.getPatientId());
     }
     
     public MedicalHistory deleteMedicalRecord(String id, int recordIndex) {
@@ -109,13 +244,408 @@ public class MedicalHistoryService {
             throw new RuntimeException("Invalid record index");
         }
         
-        existingHistory.getRecords().remove(recordIndex);
+        MedicalHistory.MedicalRecord removedRecord = existingHistory.getRecords().remove(recordIndex);
+        long sequence = medicalHistorySequenceService.next(existingHistory.getPatientId());
+        addTombstone(existingHistory, removedRecord, sequence);
+        existingHistory.setChangeSequence(sequence);
         existingHistory.setUpdatedAt(LocalDateTime.now());
         
-        return medicalHistoryRepository.save(existingHistory);
+        MedicalHistory savedHistory = medicalHistoryRepository.save(existingHistory);
+        recordRemovedFromSummary(savedHistory, removedRecord);
+        return savedHistory;
+    }
+    
+    /**
+     * Returns only the records written and the record ids deleted after {@code since}.
+     * Filtering happens inside MongoDB, so the payload scales with the change set
+     * rather than the size of the chart.
+     */
+    public MedicalHistoryChanges getMedicalHistoryChanges(Long patientId, long since) {
+        if (!idMembershipService.patientExists(patientId)) {
+            throw new RuntimeException("Patient not found");
+        }
+        
+        // since <= 0 means "everything", including legacy records that were backfilled with sequence 0
+        Optional<MedicalHistory> delta = findChangesSince(patientId, since > 0 ? since : -1L);
+        if (delta.isEmpty()) {
+            // Nothing to sync from, but a client holding state must drop it (history was deleted)
+            return new MedicalHistoryChanges(patientId, null, 0L, since > 0, List.of(), List.of());
+        }
+        
+        MedicalHistory history = delta.get();
+        long currentSequence = history.getChangeSequence() != null ? history.getChangeSequence() : 0L;
+        boolean fullResync = since > 0 && (since > currentSequence
+            || (history.getTombstoneFloor() != null && since < history.getTombstoneFloor()));
+        if (fullResync) {
+            history = findChangesSince(patientId, -1L).orElse(history);
+        }
+        
+        List<String> deletedRecordIds = fullResync || history.getDeletedRecords() == null
+            ? List.of()
+            : history.getDeletedRecords().stream().map(MedicalHistory.RecordTombstone::getRecordId).collect(Collectors.toList());
+        return new MedicalHistoryChanges(
+            patientId,
+            history.getId(),
+            currentSequence,
+            fullResync,
+            history.getRecords() != null ? history.getRecords() : List.of(),
+            deletedRecordIds
+        );
+    }
+    
+    private Optional<MedicalHistory> findChangesSince(Long patientId, long since) {
+        Document newerThanSince = new Document("$gt", List.of("$$item.sequence", since));
+        AggregationOperation projectDelta = context -> new Document("$project", new Document("patientId", 1)
+            .append("changeSequence", 1)
+            .append("tombstoneFloor", 1)
+            .append("records", new Document("$filter", new Document("input", new Document("$ifNull", List.of("$records", List.of())))
+                .append("as", "item")
+                .append("cond", newerThanSince)))
+            .append("deletedRecords", new Document("$filter", new Document("input", new Document("$ifNull", List.of("$deletedRecords", List.of())))
+                .append("as", "item")
+                .append("cond", newerThanSince))));
+        
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(Criteria.where("patientId").is(patientId)),
+            projectDelta
+        );
+        return mongoTemplate.aggregate(aggregation, "medical_history", Document.class)
+            .getMappedResults().stream()
+            .findFirst()
+            .map(doc -> mongoTemplate.getConverter().read(MedicalHistory.class, doc));
+    }
+    
+    private void addTombstone(MedicalHistory history, MedicalHistory.MedicalRecord removedRecord, long sequence) {
+        if (removedRecord.getRecordId() == null) {
+            return;
+        }
+        if (history.getDeletedRecords() == null) {
+            history.setDeletedRecords(new ArrayList<>());
+        }
+        List<MedicalHistory.RecordTombstone> tombstones = history.getDeletedRecords();
+        tombstones.add(new MedicalHistory.RecordTombstone(removedRecord.getRecordId(), sequence));
+        // Keep tombstones bounded; anyone syncing from before the oldest dropped one gets a full resync
+        while (tombstones.size() > MAX_TOMBSTONES) {
+            history.setTombstoneFloor(tombstones.remove(0).getSequence());
+        }
+    }
+    
+    /**
+     * Returns the compact chart summary for a patient with a single _id lookup.
+     * Histories written before summaries existed are summarised once on first read.
+     */
+    public Optional<MedicalHistorySummary> getPatientSummary(Long patientId) {
+        Optional<MedicalHistorySummary> summary = medicalHistorySummaryRepository.findById(patientId);
+        if (summary.isPresent()) {
+            return summary;
+        }
+        return medicalHistoryRepository.findByPatientId(patientId)
+            .map(history -> medicalHistorySummaryRepository.save(buildSummary(history)));
     }
     
     public List<MedicalHistory> getAllMedicalHistories() {
         return medicalHistoryRepository.findAll();
     }
-}
\ No newline at end of file
+    
+    private void recordAddedToSummary(MedicalHistory history, MedicalHistory.MedicalRecord record, boolean historyExisted) {
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+            .set("medicalHistoryId", history.getId())
+            .inc("totalRecords", 1)
+            .inc("recordCountsByType." + summaryTypeKey(record.getRecordType()), 1)
+            .max("lastRecordDate", record.getRecordDate())
+            .set("updatedAt", now);
+        if (DIAGNOSIS.equalsIgnoreCase(record.getRecordType())) {
+            update.set("latestDiagnosis", toDigest(record));
+        } else if (TREATMENT.equalsIgnoreCase(record.getRecordType())) {
+            update.push("activeTreatments").slice(-MAX_ACTIVE_TREATMENTS).each(toDigest(record));
+        }
+        
+        UpdateResult result = mongoTemplate.upsert(
+            Query.query(Criteria.where("_id").is(history.getPatientId())), update, MedicalHistorySummary.class);
+        
+        // A history that predates summaries just got a summary holding only this record; rebuild it once
+        if (historyExisted && result.getUpsertedId() != null) {
+            medicalHistorySummaryRepository.save(buildSummary(history));
+        }
+    }
+    
+    private void recordRemovedFromSummary(MedicalHistory history, MedicalHistory.MedicalRecord removedRecord) {
+        List<MedicalHistory.MedicalRecord> records = history.getRecords();
+        Update update = new Update()
+            .inc("totalRecords", -1)
+            .inc("recordCountsByType." + summaryTypeKey(removedRecord.getRecordType()), -1)
+            .set("lastRecordDate", records.stream()
+                .map(MedicalHistory.MedicalRecord::getRecordDate)
+                .filter(date -> date != null)
+                .max(Comparator.naturalOrder())
+                .orElse(null))
+            .set("updatedAt", LocalDateTime.now());
+        // Derived fields can only be recomputed, but the remaining records are already in memory
+        if (DIAGNOSIS.equalsIgnoreCase(removedRecord.getRecordType())) {
+            update.set("latestDiagnosis", latestDiagnosis(records));
+        } else if (TREATMENT.equalsIgnoreCase(removedRecord.getRecordType())) {
+            update.set("activeTreatments", activeTreatments(records));
+        }
+        
+        mongoTemplate.updateFirst(
+            Query.query(Criteria.where("_id").is(history.getPatientId())), update, MedicalHistorySummary.class);
+    }
+    
+    private MedicalHistorySummary buildSummary(MedicalHistory history) {
+        List<MedicalHistory.MedicalRecord> records = history.getRecords() != null ? history.getRecords() : List.of();
+        Map<String, Long> countsByType = records.stream()
+            .collect(Collectors.groupingBy(record -> summaryTypeKey(record.getRecordType()), Collectors.counting()));
+        
+        MedicalHistorySummary summary = new MedicalHistorySummary();
+        summary.setPatientId(history.getPatientId());
+        summary.setMedicalHistoryId(history.getId());
+        summary.setTotalRecords((long) records.size());
+        summary.setRecordCountsByType(countsByType);
+        summary.setLatestDiagnosis(latestDiagnosis(records));
+        summary.setActiveTreatments(activeTreatments(records));
+        summary.setLastRecordDate(records.stream()
+            .map(MedicalHistory.MedicalRecord::getRecordDate)
+            .filter(date -> date != null)
+            .max(Comparator.naturalOrder())
+            .orElse(null));
+        summary.setUpdatedAt(LocalDateTime.now());
+        return summary;
+    }
+    
+    private MedicalHistorySummary.RecordDigest latestDiagnosis(List<MedicalHistory.MedicalRecord> records) {
+        // Records are appended chronologically, so the last matching one is the latest
+        for (int i = records.size() - 1; i >= 0; i--) {
+            if (DIAGNOSIS.equalsIgnoreCase(records.get(i).getRecordType())) {
+                return toDigest(records.get(i));
+            }
+        }
+        return null;
+    }
+    
+    private List<MedicalHistorySummary.RecordDigest> activeTreatments(List<MedicalHistory.MedicalRecord> records) {
+        List<MedicalHistorySummary.RecordDigest> treatments = records.stream()
+            .filter(record -> TREATMENT.equalsIgnoreCase(record.getRecordType()))
+            .map(this::toDigest)
+            .collect(Collectors.toList());
+        return new ArrayList<>(treatments.subList(Math.max(0, treatments.size() - MAX_ACTIVE_TREATMENTS), treatments.size()));
+    }
+    
+    private MedicalHistorySummary.RecordDigest toDigest(MedicalHistory.MedicalRecord record) {
+        return new MedicalHistorySummary.RecordDigest(record.getDescription(), record.getDoctorId(), record.getRecordDate());
+    }
+    
+    private String summaryTypeKey(String recordType) {
+        if (recordType == null || recordType.isBlank()) {
+            return "UNSPECIFIED";
+        }
+        // Map keys end up as field names, so strip characters Mongo treats specially
+        return recordType.trim().toUpperCase(Locale.ROOT).replace('.', '_').replace('$', '_');
+    }
+    
+    /**
+     * Full-text search over record descriptions and doctor notes, backed by the
+     * text index on their search terms in medical_history. Hits are individual records (not whole
+     * histories), ranked by how many of their words share a stem with the query, and optionally filtered
+     * by record type and doctor. Only the fields needed to build a snippet leave the database.
+     */
+    public List<MedicalRecordSearchHit> searchMedicalRecords(String query, String recordType, Long doctorId, int page, int size) {
+        if (query == null || query.isBlank()) {
+            throw new RuntimeException("Search query is required");
+        }
+        if (page < 0 || size < 1 || size > MAX_SEARCH_PAGE_SIZE) {
+            throw new RuntimeException("Page must be >= 0 and size between 1 and " + MAX_SEARCH_PAGE_SIZE);
+        }
+        
+        SearchQuery parsed = parseSearchQuery(query);
+        List<String> terms = parsed.terms();
+        List<String> stems = terms.stream()
+            .flatMap(term -> SearchTerms.of(term).stream())
+            .map(SearchTerms::stem)
+            .distinct()
+            .toList();
+        if (stems.isEmpty()) {
+            throw new RuntimeException("Search query must contain at least one positive term");
+        }
+        
+        // $text has to be in the first stage; the elemMatch narrows candidate histories early. The index
+        // holds single words, so phrases are searched as their words and checked per record further down.
+        Document textMatch = new Document("$text", new Document("$search", parsed.text()));
+        Criteria recordFilter = recordFilter(recordType, doctorId);
+        if (recordFilter != null) {
+            textMatch.append("records", new Document("$elemMatch", recordFilter.getCriteriaObject()));
+        }
+        AggregationOperation matchText = context -> new Document("$match", textMatch);
+        
+        // The text score covers the whole history, so each unwound record is scored on its own: words of
+        // the record sharing a stem with the query, description words counting double. The term arrays
+        // are plain even when the text itself is stored compressed.
+        String stemRegex = stems.stream().map(Pattern::quote).collect(Collectors.joining("|", "^(?:", ")"));
+        AggregationOperation addScore = context -> new Document("$addFields", new Document("score",
+            new Document("$add", List.of(
+                new Document("$multiply", List.of(2, matchingTerms("$records.descriptionTerms", stemRegex))),
+                matchingTerms("$records.doctorNotesTerms", stemRegex)))));
+        
+        AggregationOperation projectHit = context -> new Document("$project", new Document("patientId", 1)
+            .append("recordIndex", 1)
+            .append("score", 1)
+            .append("records.recordType", 1)
+            .append("records.doctorId", 1)
+            .append("records.recordDate", 1)
+            .append("records.description", 1)
+            .append("records.doctorNotes", 1));
+        
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(matchText);
+        stages.add(Aggregation.unwind("records", "recordIndex"));
+        if (recordFilter != null) {
+            stages.add(Aggregation.match(recordFilter(recordType, doctorId, "records.")));
+        }
+        stages.add(addScore);
+        // Only keep records that actually contain one of the searched words
+        stages.add(Aggregation.match(Criteria.where("score").gt(0)));
+        if (!parsed.phrases().isEmpty() || !parsed.excludedPhrases().isEmpty()) {
+            List<Document> phraseChecks = new ArrayList<>();
+            parsed.phrases().forEach(phrase -> phraseChecks.add(containsPhrase(phrase)));
+            parsed.excludedPhrases().forEach(phrase -> phraseChecks.add(new Document("$not", List.of(containsPhrase(phrase)))));
+            stages.add(context -> new Document("$match", new Document("$expr", new Document("$and", phraseChecks))));
+        }
+        stages.add(Aggregation.sort(Sort.by(Sort.Direction.DESC, "score", "records.recordDate")));
+        stages.add(Aggregation.skip((long) page * size));
+        stages.add(Aggregation.limit(size));
+        stages.add(projectHit);
+        Aggregation aggregation = Aggregation.newAggregation(stages);
+        
+        String termRegex = terms.stream().map(Pattern::quote).collect(Collectors.joining("|"));
+        Pattern highlight = Pattern.compile(termRegex, Pattern.CASE_INSENSITIVE);
+        return mongoTemplate.aggregate(aggregation, "medical_history", Document.class)
+            .getMappedResults().stream()
+            .map(doc -> toSearchHit(doc, highlight))
+            .collect(Collectors.toList());
+    }
+    
+    private Criteria recordFilter(String recordType, Long doctorId) {
+        return recordFilter(recordType, doctorId, "");
+    }
+    
+    private Criteria recordFilter(String recordType, Long doctorId, String prefix) {
+        Criteria criteria = null;
+        if (recordType != null && !recordType.isBlank()) {
+            criteria = Criteria.where(prefix + "recordType").is(recordType);
+        }
+        if (doctorId != null) {
+            criteria = criteria == null
+                ? Criteria.where(prefix + "doctorId").is(doctorId)
+                : criteria.and(prefix + "doctorId").is(doctorId);
+        }
+        return criteria;
+    }
+    
+    private static Document matchingTerms(String termsField, String stemRegex) {
+        Document terms = new Document("$ifNull", List.of(termsField, List.of()));
+        return new Document("$size", new Document("$filter", new Document("input", terms)
+            .append("as", "term")
+            .append("cond", new Document("$regexMatch", new Document("input", "$$term").append("regex", stemRegex)))));
+    }
+    
+    /**
+     * Splits a search query into the text handed to $text (phrases unquoted, excluded phrases dropped),
+     * the positive words and phrases used for scoring and snippets, and the phrases to check per record
+     */
+    private SearchQuery parseSearchQuery(String query) {
+        StringBuilder text = new StringBuilder();
+        List<String> terms = new ArrayList<>();
+        List<String> phrases = new ArrayList<>();
+        List<String> excludedPhrases = new ArrayList<>();
+        Matcher matcher = SEARCH_TERM.matcher(query);
+        while (matcher.find()) {
+            String phrase = matcher.group(2);
+            if (phrase != null) {
+                if (SearchTerms.of(phrase).isEmpty()) {
+                    continue;
+                }
+                if (matcher.group(1).isEmpty()) {
+                    text.append(' ').append(phrase);
+                    terms.add(phrase.toLowerCase(Locale.ROOT));
+                    phrases.add(phrase);
+                } else {
+                    excludedPhrases.add(phrase);
+                }
+                continue;
+            }
+            String word = matcher.group(3);
+            text.append(' ').append(word);
+            // "-term" excludes documents in a $text search, so it never produces a snippet
+            if (!word.startsWith("-")) {
+                terms.add(word.toLowerCase(Locale.ROOT));
+            }
+        }
+        return new SearchQuery(text.toString().trim(), terms, phrases, excludedPhrases);
+    }
+    
+    /**
+     * True when the unwound record contains the phrase in its description or doctor notes. Compressed
+     * text cannot be read on the server, so there the record needs every word of the phrase instead.
+     */
+    private static Document containsPhrase(String phrase) {
+        List<String> words = SearchTerms.of(phrase);
+        String regex = words.stream()
+            .map(Pattern::quote)
+            .collect(Collectors.joining("[^\\p{L}\\p{N}]+", "(?<![\\p{L}\\p{N}])", "(?![\\p{L}\\p{N}])"));
+        return new Document("$or", List.of(
+            phraseIn("$records.description", "$records.descriptionTerms", words, regex),
+            phraseIn("$records.doctorNotes", "$records.doctorNotesTerms", words, regex)));
+    }
+    
+    private static Document phraseIn(String textField, String termsField, List<String> words, String regex) {
+        return new Document("$cond", List.of(
+            new Document("$eq", List.of(new Document("$type", textField), "string")),
+            new Document("$regexMatch", new Document("input", textField).append("regex", regex).append("options", "i")),
+            new Document("$setIsSubset", List.of(words, new Document("$ifNull", List.of(termsField, List.of()))))));
+    }
+    
+    private MedicalRecordSearchHit toSearchHit(Document doc, Pattern highlight) {
+        // $project keeps the embedded record under "records" after the unwind
+        Document record = doc.get("records", Document.class);
+        Date recordDate = record.getDate("recordDate");
+        Number recordIndex = doc.get("recordIndex", Number.class);
+        Number score = doc.get("score", Number.class);
+        
+        // Large text may be stored compressed; decode lazily and only if the description had no match
+        String snippet = snippet(CompressibleText.valueOf(compressingTextConverter.fromStored(record.get("description"))), highlight);
+        if (snippet == null) {
+            snippet = snippet(CompressibleText.valueOf(compressingTextConverter.fromStored(record.get("doctorNotes"))), highlight);
+        }
+        
+        return new MedicalRecordSearchHit(
+            String.valueOf(doc.get("_id")),
+            toLong(doc.get("patientId")),
+            recordIndex != null ? recordIndex.intValue() : null,
+            record.getString("recordType"),
+            toLong(record.get("doctorId")),
+            recordDate != null ? LocalDateTime.ofInstant(recordDate.toInstant(), ZoneId.systemDefault()) : null,
+            snippet,
+            score != null ? score.doubleValue() : null
+        );
+    }
+    
+    private Long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+    
+    private String snippet(String text, Pattern highlight) {
+        if (text == null) {
+            return null;
+        }
+        Matcher matcher = highlight.matcher(text);
+        if (!matcher.find()) {
+            return null;
+        }
+        int start = Math.max(0, matcher.start() - SNIPPET_LENGTH / 2);
+        int end = Math.min(text.length(), start + SNIPPET_LENGTH);
+        return (start > 0 ? "..." : "") + text.substring(start, end) + (end < text.length() ? "..." : "");
+    }
+    
+    private record SearchQuery(String text, List<String> terms, List<String> phrases, List<String> excludedPhrases) {
+    }
+}
@@ -0,0 +1,95 @@
+package com.smartclinic.service;
+
+import com.smartclinic.dto.DashboardSection;
+import com.smartclinic.dto.PatientDashboard;
+import com.smartclinic.model.Appointment;
+import com.smartclinic.model.MedicalHistory;
+import com.smartclinic.model.Prescription;
+import com.smartclinic.repository.mongodb.MedicalHistoryRepository;
+import com.smartclinic.repository.mongodb.PrescriptionRepository;
+import com.smartclinic.repository.mysql.AppointmentRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Builds the patient dashboard by reading appointments (MySQL), prescriptions and medical history (MongoDB)
+ * concurrently, one virtual thread per read, under a single deadline. A read that fails or misses the
+ * deadline is cancelled and reported in its section while the others are still returned.
+ */
+@Service
+@Slf4j
+public class PatientDashboardService {
+    
+    private final IdMembershipService idMembershipService;
+    private final AppointmentRepository appointmentRepository;
+    private final PrescriptionRepository prescriptionRepository;
+    private final MedicalHistoryRepository medicalHistoryRepository;
+    private final Duration deadline;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    
+    public PatientDashboardService(
+            IdMembershipService idMembershipService,
+            AppointmentRepository appointmentRepository,
+            PrescriptionRepository prescriptionRepository,
+            MedicalHistoryRepository medicalHistoryRepository,
+            @Value("${smartclinic.dashboard.deadline:PT2S}") Duration deadline) {
+        this.idMembershipService = idMembershipService;
+        this.appointmentRepository = appointmentRepository;
+        this.prescriptionRepository = prescriptionRepository;
+        this.medicalHistoryRepository = medicalHistoryRepository;
+        this.deadline = deadline;
+    }
+    
+    public PatientDashboard getDashboard(Long patientId) {
+        if (!idMembershipService.patientExists(patientId)) {
+            throw new RuntimeException("Patient not found");
+        }
+        
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        Future<List<Appointment>> appointments = executor.submit(() -> appointmentRepository.findByPatientId(patientId));
+        Future<List<Prescription>> prescriptions = executor.submit(() -> prescriptionRepository.findByPatientIdOrderByCreatedAtDesc(patientId));
+        Future<MedicalHistory> medicalHistory = executor.submit(() -> medicalHistoryRepository.findByPatientId(patientId).orElse(null));
+        
+        return new PatientDashboard(
+            patientId,
+            await("appointments", appointments, deadlineNanos),
+            await("prescriptions", prescriptions, deadlineNanos),
+            await("medicalHistory", medicalHistory, deadlineNanos)
+        );
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    private <T> DashboardSection<T> await(String section, Future<T> read, long deadlineNanos) {
+        try {
+            return DashboardSection.ok(read.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            read.cancel(true);
+            log.warn("Dashboard section {} missed the {} deadline", section, deadline);
+            return DashboardSection.timedOut();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.warn("Dashboard section {} failed", section, cause);
+            // The cause stays in the log; its message may describe internals and is not for the client
+            return DashboardSection.failed("Unavailable");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            read.cancel(true);
+            return DashboardSection.failed("Interrupted");
+        }
+    }
+}
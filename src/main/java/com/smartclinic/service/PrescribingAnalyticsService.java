@@ -0,0 +1,192 @@
+package com.smartclinic.service;
+
+import com.smartclinic.dto.DailyPrescriptionVolume;
+import com.smartclinic.dto.DrugPrescriptionCount;
+import com.smartclinic.model.PrescribingRollup;
+import com.smartclinic.model.Prescription;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prescribing analytics served from per-day, per-doctor, per-drug rollups.
+ * Prescription writes adjust the rollups with $inc; {@link #rebuildRollups()} recomputes them from scratch.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PrescribingAnalyticsService {
+    
+    private static final String ALL_DRUGS = "*";
+    private static final int MAX_RANGE_DAYS = 366;
+    private static final int MAX_TOP_DRUGS = 100;
+    
+    private final MongoTemplate mongoTemplate;
+    
+    /**
+     * Rollup a prescription counts towards; a null drug is the all-drugs total
+     */
+    public record RollupKey(LocalDate day, Long doctorId, String drug) {
+        
+        String id() {
+            return day + "|" + doctorId + "|" + (drug == null ? ALL_DRUGS : drug);
+        }
+    }
+    
+    /**
+     * The day's total plus one key per distinct drug, so a drug listed twice on a prescription counts once
+     */
+    public Set<RollupKey> keysOf(Prescription prescription) {
+        LocalDate day = prescription.getCreatedAt().toLocalDate();
+        Set<RollupKey> keys = new HashSet<>();
+        keys.add(new RollupKey(day, prescription.getDoctorId(), null));
+        if (prescription.getMedicineList() != null) {
+            for (Prescription.Medicine medicine : prescription.getMedicineList()) {
+                if (medicine.getName() != null && !medicine.getName().isEmpty()) {
+                    keys.add(new RollupKey(day, prescription.getDoctorId(), medicine.getName()));
+                }
+            }
+        }
+        return keys;
+    }
+    
+    public void recordCreated(Collection<Prescription> prescriptions) {
+        Map<RollupKey, Integer> deltas = new HashMap<>();
+        prescriptions.forEach(prescription -> keysOf(prescription).forEach(key -> deltas.merge(key, 1, Integer::sum)));
+        apply(deltas);
+    }
+    
+    public void recordDeleted(Prescription prescription) {
+        recordChanged(keysOf(prescription), Set.of());
+    }
+    
+    /**
+     * Moves a prescription's counts from the rollups it used to belong to onto its current ones
+     */
+    public void recordChanged(Set<RollupKey> before, Set<RollupKey> after) {
+        Map<RollupKey, Integer> deltas = new HashMap<>();
+        before.stream().filter(key -> !after.contains(key)).forEach(key -> deltas.put(key, -1));
+        after.stream().filter(key -> !before.contains(key)).forEach(key -> deltas.put(key, 1));
+        apply(deltas);
+    }
+    
+    public List<DailyPrescriptionVolume> getDailyVolume(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        TypedAggregation<PrescribingRollup> aggregation = Aggregation.newAggregation(PrescribingRollup.class,
+            Aggregation.match(Criteria.where("drug").is(null).and("day").gte(from).lte(to)),
+            Aggregation.group("day").sum("prescriptions").as("prescriptions"),
+            Aggregation.project("prescriptions").and("day").previousOperation(),
+            Aggregation.sort(Sort.Direction.ASC, "day"));
+        return mongoTemplate.aggregate(aggregation, DailyPrescriptionVolume.class).getMappedResults();
+    }
+    
+    /**
+     * Most prescribed drugs in the Monday-to-Sunday week containing {@code weekOf}, for one doctor or (null) the whole clinic
+     */
+    public List<DrugPrescriptionCount> getTopDrugs(Long doctorId, LocalDate weekOf, int limit) {
+        if (limit < 1 || limit > MAX_TOP_DRUGS) {
+            throw new RuntimeException("Limit must be between 1 and " + MAX_TOP_DRUGS);
+        }
+        LocalDate weekStart = weekOf.with(DayOfWeek.MONDAY);
+        Criteria criteria = Criteria.where("drug").ne(null).and("day").gte(weekStart).lte(weekStart.plusDays(6));
+        if (doctorId != null) {
+            criteria.and("doctorId").is(doctorId);
+        }
+        TypedAggregation<PrescribingRollup> aggregation = Aggregation.newAggregation(PrescribingRollup.class,
+            Aggregation.match(criteria),
+            Aggregation.group("drug").sum("prescriptions").as("prescriptions"),
+            Aggregation.match(Criteria.where("prescriptions").gt(0)),
+            Aggregation.project("prescriptions").and("drug").previousOperation(),
+            Aggregation.sort(Sort.by(Sort.Direction.DESC, "prescriptions").and(Sort.by(Sort.Direction.ASC, "drug"))),
+            Aggregation.limit(limit));
+        return mongoTemplate.aggregate(aggregation, DrugPrescriptionCount.class).getMappedResults();
+    }
+    
+    /**
+     * Recomputes every rollup from the prescriptions collection in one server-side pipeline and
+     * replaces the rollup collection with the result ($out keeps its indexes). Increments that land
+     * while the rebuild runs may be lost, so run it when prescribing is quiet.
+     */
+    public long rebuildRollups() {
+        String zone = ZoneId.systemDefault().getId();
+        String rollups = mongoTemplate.getCollectionName(PrescribingRollup.class);
+        Document distinctDrugs = new Document("$filter", new Document("input",
+                new Document("$setUnion", List.of(new Document("$ifNull", List.of("$medicineList.name", List.of())))))
+            .append("cond", new Document("$gt", List.of("$$this", ""))));
+        List<Document> pipeline = List.of(
+            new Document("$match", new Document("doctorId", new Document("$ne", null))
+                .append("createdAt", new Document("$ne", null))),
+            new Document("$project", new Document("doctorId", 1)
+                .append("day", new Document("$dateToString", new Document("format", "%Y-%m-%d")
+                    .append("date", "$createdAt")
+                    .append("timezone", zone)))
+                // null stands for the all-drugs total
+                .append("drugs", new Document("$concatArrays", List.of(Arrays.asList((Object) null), distinctDrugs)))),
+            new Document("$unwind", "$drugs"),
+            new Document("$group", new Document("_id", new Document("day", "$day")
+                    .append("doctorId", "$doctorId")
+                    .append("drug", "$drugs"))
+                .append("prescriptions", new Document("$sum", 1L))),
+            new Document("$project", new Document("_id", new Document("$concat", List.of(
+                    "$_id.day", "|", new Document("$toString", "$_id.doctorId"), "|",
+                    new Document("$ifNull", List.of("$_id.drug", ALL_DRUGS)))))
+                .append("day", new Document("$dateFromString", new Document("dateString", "$_id.day")
+                    .append("timezone", zone)))
+                .append("doctorId", "$_id.doctorId")
+                .append("drug", "$_id.drug")
+                .append("prescriptions", 1)),
+            new Document("$out", rollups));
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Prescription.class))
+            .aggregate(pipeline)
+            .toCollection();
+        long count = mongoTemplate.getCollection(rollups).countDocuments();
+        log.info("Rebuilt {} prescribing rollups", count);
+        return count;
+    }
+    
+    private void apply(Map<RollupKey, Integer> deltas) {
+        deltas.values().removeIf(delta -> delta == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        // One unordered round trip however many rollups the change touches
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PrescribingRollup.class);
+        deltas.forEach((key, delta) -> bulk.upsert(
+            Query.query(Criteria.where("_id").is(key.id())),
+            new Update().inc("prescriptions", delta)
+                .setOnInsert("day", key.day())
+                .setOnInsert("doctorId", key.doctorId())
+                .setOnInsert("drug", key.drug())));
+        bulk.execute();
+    }
+    
+    private static void validateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new RuntimeException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new RuntimeException("Date range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.smartclinic.service;
+
+import com.smartclinic.model.Prescription;
+import com.smartclinic.model.PrescriptionRevision;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Append-only prescription revision history.
+ * Each change stores only the document paths that differ from the previous version, and every
+ * {@value #SNAPSHOT_INTERVAL}th version stores a full snapshot, so rebuilding any version reads one
+ * snapshot plus fewer than {@value #SNAPSHOT_INTERVAL} deltas.
+ * <p>
+ * Revisions are written after the prescription itself, outside a transaction, so a failed revision
+ * write cannot undo an accepted change. Gaps heal: the next update snapshots the state it replaces
+ * when that version has no revision, and the current version is rebuilt from the live prescription.
+ * Deleting a prescription appends a tombstone one version past the last, holding its final state.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PrescriptionRevisionService {
+    
+    static final int SNAPSHOT_INTERVAL = 10;
+    
+    // Identity and concurrency bookkeeping, not prescription content
+    private static final Set<String> UNTRACKED_FIELDS = Set.of("_id", "_class", "version");
+    
+    private final MongoTemplate mongoTemplate;
+    
+    /**
+     * Captures the stored form of a prescription, to diff against once it has been changed
+     */
+    public Document state(Prescription prescription) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(prescription, document);
+        UNTRACKED_FIELDS.forEach(document::remove);
+        return document;
+    }
+    
+    public void recordCreated(Prescription prescription) {
+        insert(snapshot(prescription.getId(), prescription.getVersion(), state(prescription)));
+    }
+    
+    public void recordCreated(Collection<Prescription> prescriptions) {
+        if (prescriptions.isEmpty()) {
+            return;
+        }
+        List<PrescriptionRevision> snapshots = prescriptions.stream()
+            .map(prescription -> snapshot(prescription.getId(), prescription.getVersion(), state(prescription)))
+            .toList();
+        try {
+            mongoTemplate.insert(snapshots, PrescriptionRevision.class);
+        } catch (DataAccessException e) {
+            log.warn("Failed to record {} prescription revisions; they are rebuilt from later updates", snapshots.size(), e);
+        }
+    }
+    
+    /**
+     * Records the change from {@code before} (at {@code previousVersion}) to the saved prescription
+     */
+    public void recordUpdated(Document before, Long previousVersion, Prescription after) {
+        String prescriptionId = after.getId();
+        long beforeVersion = Objects.requireNonNullElse(previousVersion, 0L);
+        Query beforeRevision = Query.query(Criteria.where("prescriptionId").is(prescriptionId).and("version").is(beforeVersion));
+        if (!mongoTemplate.exists(beforeRevision, PrescriptionRevision.class)) {
+            // Prescriptions created before revisions were kept, and versions whose revision write failed,
+            // continue the history from a snapshot of the state being replaced
+            insert(snapshot(prescriptionId, beforeVersion, before));
+        }
+        
+        Document afterState = state(after);
+        if (after.getVersion() % SNAPSHOT_INTERVAL == 0) {
+            insert(snapshot(prescriptionId, after.getVersion(), afterState));
+            return;
+        }
+        List<PrescriptionRevision.FieldChange> changes = new ArrayList<>();
+        diff("", before, afterState, changes);
+        PrescriptionRevision delta = new PrescriptionRevision();
+        delta.setPrescriptionId(prescriptionId);
+        delta.setVersion(after.getVersion());
+        delta.setChanges(changes);
+        insert(delta);
+    }
+    
+    /**
+     * Records the deletion as a tombstone after the final version, so the history still ends in the
+     * state that was deleted once the prescription itself is gone
+     */
+    public void recordDeleted(Prescription prescription) {
+        long finalVersion = Objects.requireNonNullElse(prescription.getVersion(), 0L);
+        PrescriptionRevision tombstone = snapshot(prescription.getId(), finalVersion + 1, state(prescription));
+        tombstone.setDeleted(true);
+        insert(tombstone);
+    }
+    
+    public List<PrescriptionRevision> getRevisions(String prescriptionId) {
+        Query query = Query.query(Criteria.where("prescriptionId").is(prescriptionId))
+            .with(Sort.by(Sort.Direction.ASC, "version"));
+        query.fields().exclude("state");
+        return mongoTemplate.find(query, PrescriptionRevision.class);
+    }
+    
+    /**
+     * Rebuilds a prescription as it was at the given version from the nearest earlier snapshot,
+     * or answers from the live prescription when that is the version asked for
+     */
+    public Prescription rebuild(String prescriptionId, long version) {
+        Query snapshotQuery = Query.query(Criteria.where("prescriptionId").is(prescriptionId)
+                .and("version").lte(version)
+                .and("snapshot").is(true))
+            .with(Sort.by(Sort.Direction.DESC, "version"))
+            .limit(1);
+        PrescriptionRevision base = mongoTemplate.findOne(snapshotQuery, PrescriptionRevision.class);
+        if (base == null) {
+            return currentVersion(prescriptionId, version);
+        }
+        if (base.isDeleted()) {
+            // Versions from the tombstone on were never a live prescription
+            throw new RuntimeException("Revision not found");
+        }
+        
+        Query deltaQuery = Query.query(Criteria.where("prescriptionId").is(prescriptionId)
+                .and("version").gt(base.getVersion()).lte(version))
+            .with(Sort.by(Sort.Direction.ASC, "version"));
+        List<PrescriptionRevision> deltas = mongoTemplate.find(deltaQuery, PrescriptionRevision.class);
+        if (base.getVersion() + deltas.size() != version) {
+            return currentVersion(prescriptionId, version);
+        }
+        
+        Document state = base.getState();
+        for (PrescriptionRevision delta : deltas) {
+            delta.getChanges().forEach(change -> apply(state, change));
+        }
+        Prescription prescription = mongoTemplate.getConverter().read(Prescription.class, state);
+        prescription.setId(prescriptionId);
+        prescription.setVersion(version);
+        return prescription;
+    }
+    
+    /**
+     * The live prescription, when it is at the requested version but that revision was never recorded,
+     * or the final state kept by the tombstone when it has since been deleted
+     */
+    private Prescription currentVersion(String prescriptionId, long version) {
+        Prescription current = mongoTemplate.findById(prescriptionId, Prescription.class);
+        if (current == null) {
+            Query tombstoneQuery = Query.query(Criteria.where("prescriptionId").is(prescriptionId)
+                .and("version").is(version + 1)
+                .and("deleted").is(true));
+            PrescriptionRevision tombstone = mongoTemplate.findOne(tombstoneQuery, PrescriptionRevision.class);
+            if (tombstone != null) {
+                current = mongoTemplate.getConverter().read(Prescription.class, tombstone.getState());
+                current.setId(prescriptionId);
+                current.setVersion(version);
+            }
+        }
+        if (current == null || current.getVersion() == null || current.getVersion() != version) {
+            throw new RuntimeException("Revision not found");
+        }
+        return current;
+    }
+    
+    /**
+     * Inserts a revision; a failure is logged rather than thrown, since the prescription change it
+     * describes has already been stored and the next update fills the gap
+     */
+    private void insert(PrescriptionRevision revision) {
+        try {
+            mongoTemplate.insert(revision);
+        } catch (DuplicateKeyException e) {
+            // A concurrent update already recorded this version
+        } catch (DataAccessException e) {
+            log.warn("Failed to record revision {} of prescription {}", revision.getVersion(), revision.getPrescriptionId(), e);
+        }
+    }
+    
+    private static PrescriptionRevision snapshot(String prescriptionId, Long version, Document state) {
+        PrescriptionRevision snapshot = new PrescriptionRevision();
+        snapshot.setPrescriptionId(prescriptionId);
+        snapshot.setVersion(version);
+        snapshot.setSnapshot(true);
+        snapshot.setState(state);
+        return snapshot;
+    }
+    
+    /**
+     * Collects the paths that differ, descending into sub-documents and into arrays whose length is unchanged;
+     * anything else (scalars, resized arrays) is recorded as a replacement of the whole value
+     */
+    static void diff(String path, Object before, Object after, List<PrescriptionRevision.FieldChange> changes) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        if (before instanceof Map<?, ?> beforeMap && after instanceof Map<?, ?> afterMap) {
+            Set<Object> keys = new LinkedHashSet<>(beforeMap.keySet());
+            keys.addAll(afterMap.keySet());
+            for (Object key : keys) {
+                String childPath = path.isEmpty() ? key.toString() : path + "." + key;
+                if (!afterMap.containsKey(key)) {
+                    changes.add(new PrescriptionRevision.FieldChange(childPath, null, true));
+                } else {
+                    diff(childPath, beforeMap.get(key), afterMap.get(key), changes);
+                }
+            }
+        } else if (before instanceof List<?> beforeList && after instanceof List<?> afterList
+                && beforeList.size() == afterList.size()) {
+            for (int i = 0; i < afterList.size(); i++) {
+                diff(path + "." + i, beforeList.get(i), afterList.get(i), changes);
+            }
+        } else {
+            changes.add(new PrescriptionRevision.FieldChange(path, after, false));
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    static void apply(Document state, PrescriptionRevision.FieldChange change) {
+        String[] segments = change.getPath().split("\\.");
+        Object container = state;
+        for (int i = 0; i < segments.length - 1; i++) {
+            container = container instanceof List<?> list
+                ? list.get(Integer.parseInt(segments[i]))
+                : ((Map<String, Object>) container).get(segments[i]);
+        }
+        String last = segments[segments.length - 1];
+        if (container instanceof List<?> list) {
+            ((List<Object>) list).set(Integer.parseInt(last), change.getValue());
+        } else if (change.isRemoved()) {
+            ((Map<String, Object>) container).remove(last);
+        } else {
+            ((Map<String, Object>) container).put(last, change.getValue());
+        }
+    }
+}
@@ -1,15 +1,44 @@
 package com.smartclinic.service;
 
+import com.smartclinic.dto.ActiveMedication;
+import com.smartclinic.dto.BulkPrescriptionResult;
+import com.smartclinic.dto.CursorPage;
+import com.smartclinic.dto.DocumentVersion;
+import com.smartclinic.dto.PrescriptionPatchRequest;
 import com.smartclinic.dto.PrescriptionRequest;
+import com.smartclinic.formulary.MedicineNames;
+import com.smartclinic.interaction.InteractionWarning;
 import com.smartclinic.model.Prescription;
+import com.smartclinic.projection.SparseFieldset;
 import com.smartclinic.repository.mongodb.PrescriptionRepository;
-import com.smartclinic.repository.mysql.DoctorRepository;
-import com.smartclinic.repository.mysql.PatientRepository;
+import com.smartclinic.repository.mongodb.reactive.ReactivePrescriptionRepository;
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -19,97 +48,550 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class PrescriptionService {
     
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+    private static final int MAX_PAGE_SIZE = 100;
+    
+    /**
+     * Fields a list request may select with {@code ?fields=}
+     */
+    public static final Set<String> LIST_FIELDS =
+        Set.of("id", "version", "patientId", "doctorId", "medicineList", "notes", "createdAt", "endsAt");
+    
     private final PrescriptionRepository prescriptionRepository;
-    private final PatientRepository patientRepository;
-    private final DoctorRepository doctorRepository;
+    private final ReactivePrescriptionRepository reactivePrescriptionRepository;
+    private final IdMembershipService idMembershipService;
+    private final MongoTemplate mongoTemplate;
+    private final DrugInteractionService drugInteractionService;
+    private final FormularyService formularyService;
+    private final PrescriptionRevisionService prescriptionRevisionService;
+    private final PrescribingAnalyticsService prescribingAnalyticsService;
+    private final ReadCoalescer readCoalescer;
     
     public Prescription createPrescription(PrescriptionRequest request) {
         // Validate patient and doctor exist
-        if (!patientRepository.existsById(request.getPatientId())) {
+        if (!idMembershipService.patientExists(request.getPatientId())) {
             throw new RuntimeException("Patient not found");
         }
         
-        if (!doctorRepository.existsById(request.getDoctorId())) {
+        if (!idMembershipService.doctorExists(request.getDoctorId())) {
             throw new RuntimeException("Doctor not found");
         }
         
-        // Convert DTOs to entities
-        List<Prescription.Medicine> medicines = request.getMedicineList().stream()
-            .map(dto -> new Prescription.Medicine(
-                dto.getName(),
-                dto.getDosage(),
-                dto.getFrequency(),
-                dto.getDuration(),
-                dto.getInstructions()
-            ))
-            .collect(Collectors.toList());
+        Prescription prescription = newPrescription(request, LocalDateTime.now());
+        List<InteractionWarning> warnings =
+            drugInteractionService.checkNewPrescription(request.getPatientId(), prescription.getMedicineList());
         
-        Prescription prescription = new Prescription();
-        prescription.setPatientId(request.getPatientId());
-        prescription.setDoctorId(request.getDoctorId());
-        prescription.setMedicineList(medicines);
-        prescription.setNotes(request.getNotes());
-        prescription.setCreatedAt(LocalDateTime.now());
+        Prescription saved = prescriptionRepository.save(prescription);
+        prescriptionRevisionService.recordCreated(saved);
+        prescribingAnalyticsService.recordCreated(List.of(saved));
+        saved.setInteractionWarnings(warnings);
+        return saved;
+    }
+    
+    /**
+     * Creates many prescriptions at once. Patient and doctor IDs are validated against the
+     * membership index, and every valid item goes to Mongo in a single unordered insertMany,
+     * so one failing document does not stop the rest. Results come back in request order,
+     * with drug interaction warnings for the items that were created, including interactions
+     * with items created earlier in the same batch for the same patient.
+     */
+    public List<BulkPrescriptionResult> createPrescriptions(List<PrescriptionRequest> requests) {
+        Set<Long> patientIds = requests.stream().map(PrescriptionRequest::getPatientId).collect(Collectors.toSet());
+        Set<Long> doctorIds = requests.stream().map(PrescriptionRequest::getDoctorId).collect(Collectors.toSet());
+        Set<Long> missingPatients = idMembershipService.findMissingPatients(patientIds);
+        Set<Long> missingDoctors = idMembershipService.findMissingDoctors(doctorIds);
+        
+        BulkPrescriptionResult[] results = new BulkPrescriptionResult[requests.size()];
+        List<Prescription> toInsert = new ArrayList<>();
+        List<Integer> insertedPositions = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        
+        for (int i = 0; i < requests.size(); i++) {
+            PrescriptionRequest request = requests.get(i);
+            if (missingPatients.contains(request.getPatientId())) {
+                results[i] = BulkPrescriptionResult.failed(i, "Patient not found");
+            } else if (missingDoctors.contains(request.getDoctorId())) {
+                results[i] = BulkPrescriptionResult.failed(i, "Doctor not found");
+            } else {
+                // Bulk inserts neither report generated ids nor initialise @Version, so set both up front
+                Prescription prescription = newPrescription(request, now);
+                prescription.setId(new ObjectId().toHexString());
+                prescription.setVersion(0L);
+                toInsert.add(prescription);
+                insertedPositions.add(i);
+            }
+        }
         
-        return prescriptionRepository.save(prescription);
+        // One read of active prescriptions for every patient whose new medicines could interact
+        Set<Long> patientsToCheck = toInsert.stream()
+            .filter(prescription -> drugInteractionService.mentionsKnownDrug(prescription.getMedicineList()))
+            .map(Prescription::getPatientId)
+            .collect(Collectors.toSet());
+        Map<Long, List<Prescription>> activeByPatient = patientsToCheck.isEmpty() ? new HashMap<>()
+            : drugInteractionService.findActivePrescriptions(patientsToCheck).stream()
+                .collect(Collectors.groupingBy(Prescription::getPatientId, HashMap::new, Collectors.toCollection(ArrayList::new)));
+        
+        Map<Integer, String> writeErrors = new HashMap<>();
+        if (!toInsert.isEmpty()) {
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Prescription.class)
+                    .insert(toInsert)
+                    .execute();
+            } catch (BulkOperationException e) {
+                e.getErrors().forEach(error -> writeErrors.put(error.getIndex(), error.getMessage()));
+            }
+        }
+        
+        List<Prescription> created = new ArrayList<>();
+        for (int i = 0; i < toInsert.size(); i++) {
+            int position = insertedPositions.get(i);
+            String error = writeErrors.get(i);
+            if (error != null) {
+                results[position] = BulkPrescriptionResult.failed(position, error);
+                continue;
+            }
+            Prescription prescription = toInsert.get(i);
+            List<InteractionWarning> warnings = List.of();
+            if (patientsToCheck.contains(prescription.getPatientId())) {
+                // Items created earlier in the batch are active too, so they join the patient's list as they are accepted
+                List<Prescription> active = activeByPatient.computeIfAbsent(prescription.getPatientId(), id -> new ArrayList<>());
+                warnings = drugInteractionService.check(prescription.getMedicineList(), active);
+                active.add(prescription);
+            }
+            results[position] = BulkPrescriptionResult.created(position, prescription.getId(), warnings);
+            created.add(prescription);
+        }
+        prescriptionRevisionService.recordCreated(created);
+        prescribingAnalyticsService.recordCreated(created);
+        return Arrays.asList(results);
     }
     
+    /**
+     * Concurrent calls for the same patient share one query (see {@link ReadCoalescer})
+     */
     public List<Prescription> getPatientPrescriptions(Long patientId) {
-        if (!patientRepository.existsById(patientId)) {
+        if (!idMembershipService.patientExists(patientId)) {
+            throw new RuntimeException("Patient not found");
+        }
+        return readCoalescer.execute("patient-prescriptions", patientId,
+            () -> prescriptionRepository.findByPatientIdOrderByCreatedAtDesc(patientId));
+    }
+    
+    /**
+     * A patient's prescriptions, newest first, with only the selected fields read and returned
+     */
+    public List<Map<String, Object>> getPatientPrescriptions(Long patientId, SparseFieldset fields) {
+        if (!idMembershipService.patientExists(patientId)) {
             throw new RuntimeException("Patient not found");
         }
-        return prescriptionRepository.findByPatientIdOrderByCreatedAtDesc(patientId);
+        return prescriptionRepository.findByPatientIdWithFields(patientId, fields.names()).stream()
+            .map(fields::select)
+            .toList();
+    }
+    
+    /**
+     * Streams a patient's prescriptions, newest first, on the reactive driver. The patient is
+     * validated before the stream is returned, so an unknown ID fails before the response starts.
+     */
+    public Flux<Prescription> streamPatientPrescriptions(Long patientId) {
+        if (!idMembershipService.patientExists(patientId)) {
+            throw new RuntimeException("Patient not found");
+        }
+        return reactivePrescriptionRepository.findByPatientIdOrderByCreatedAtDesc(patientId);
+    }
+    
+    /**
+     * Prescriptions of several patients at once, newest first per patient. The IDs are validated
+     * against the membership index and the prescriptions read with one $in query; every requested patient
+     * is a key, with an empty list when they have no prescriptions.
+     */
+    public Map<Long, List<Prescription>> getPrescriptionsForPatients(List<Long> patientIds) {
+        Set<Long> ids = idMembershipService.requireExistingPatients(patientIds);
+        Map<Long, List<Prescription>> byPatient = new LinkedHashMap<>();
+        ids.forEach(patientId -> byPatient.put(patientId, new ArrayList<>()));
+        prescriptionRepository.findByPatientIdInOrderByCreatedAtDesc(ids)
+            .forEach(prescription -> byPatient.get(prescription.getPatientId()).add(prescription));
+        return byPatient;
+    }
+    
+    /**
+     * Medicines the patient is currently taking, answered from the endsAt index
+     * rather than by loading every prescription
+     */
+    public List<ActiveMedication> getActiveMedications(Long patientId) {
+        if (!idMembershipService.patientExists(patientId)) {
+            throw new RuntimeException("Patient not found");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return prescriptionRepository.findActiveByPatientIds(List.of(patientId), now).stream()
+            .flatMap(prescription -> prescription.getMedicineList().stream()
+                .filter(medicine -> medicine.isActiveAt(now))
+                .map(medicine -> new ActiveMedication(
+                    prescription.getId(),
+                    prescription.getDoctorId(),
+                    medicine.getName(),
+                    medicine.getDosage(),
+                    medicine.getFrequency(),
+                    medicine.getInstructions(),
+                    prescription.getCreatedAt(),
+                    medicine.getEndsAt()
+                )))
+            .collect(Collectors.toList());
     }
     
     public List<Prescription> getDoctorPrescriptions(Long doctorId) {
-        if (!doctorRepository.existsById(doctorId)) {
+        if (!idMembershipService.doctorExists(doctorId)) {
             throw new RuntimeException("Doctor not found");
         }
         return prescriptionRepository.findByDoctorId(doctorId);
     }
     
+    public List<Map<String, Object>> getDoctorPrescriptions(Long doctorId, SparseFieldset fields) {
+        if (!idMembershipService.doctorExists(doctorId)) {
+            throw new RuntimeException("Doctor not found");
+        }
+        return prescriptionRepository.findByDoctorIdWithFields(doctorId, fields.names()).stream()
+            .map(fields::select)
+            .toList();
+    }
+    
+    public Flux<Prescription> streamDoctorPrescriptions(Long doctorId) {
+        if (!idMembershipService.doctorExists(doctorId)) {
+            throw new RuntimeException("Doctor not found");
+        }
+        return reactivePrescriptionRepository.findByDoctorIdOrderByCreatedAtDesc(doctorId);
+    }
+    
+    public CursorPage<Prescription> getPatientPrescriptionsPage(Long patientId, String cursor, int size) {
+        if (!idMembershipService.patientExists(patientId)) {
+            throw new RuntimeException("Patient not found");
+        }
+        validatePageSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+        return toPage(prescriptionRepository.findPageByPatientId(patientId, after.createdAt(), after.id(), size + 1), size);
+    }
+    
+    public CursorPage<Prescription> getDoctorPrescriptionsPage(Long doctorId, String cursor, int size) {
+        if (!idMembershipService.doctorExists(doctorId)) {
+            throw new RuntimeException("Doctor not found");
+        }
+        validatePageSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+        return toPage(prescriptionRepository.findPageByDoctorId(doctorId, after.createdAt(), after.id(), size + 1), size);
+    }
+    
     public Prescription getPrescriptionById(String id) {
         return prescriptionRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Prescription not found"));
     }
     
+    /**
+     * Current version of a prescription from an ID/version projection; empty when it does not exist
+     */
+    public Optional<Long> getPrescriptionVersion(String id) {
+        return prescriptionRepository.findVersionById(id).map(DocumentVersion::getVersion);
+    }
+    
     public Prescription updatePrescription(String id, PrescriptionRequest request) {
+        return updatePrescription(id, request, null);
+    }
+    
+    /**
+     * Replaces a prescription using compare-and-set on its version. A write that loses the
+     * race fails with a conflict, with or without If-Match: re-applying the whole body to the
+     * newer document would silently undo the other write.
+     */
+    public Prescription updatePrescription(String id, PrescriptionRequest request, Long expectedVersion) {
         Prescription existingPrescription = prescriptionRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Prescription not found"));
         
         // Validate patient and doctor exist
-        if (!patientRepository.existsById(request.getPatientId())) {
+        if (!idMembershipService.patientExists(request.getPatientId())) {
             throw new RuntimeException("Patient not found");
         }
         
-        if (!doctorRepository.existsById(request.getDoctorId())) {
+        if (!idMembershipService.doctorExists(request.getDoctorId())) {
             throw new RuntimeException("Doctor not found");
         }
         
-        // Convert DTOs to entities
-        List<Prescription.Medicine> medicines = request.getMedicineList().stream()
-            .map(dto -> new Prescription.Medicine(
-                dto.getName(),
-                dto.getDosage(),
-                dto.getFrequency(),
-                dto.getDuration(),
-                dto.getInstructions()
-            ))
-            .collect(Collectors.toList());
+        checkVersion(existingPrescription, expectedVersion);
+        Document before = prescriptionRevisionService.state(existingPrescription);
+        Long previousVersion = existingPrescription.getVersion();
+        Set<PrescribingAnalyticsService.RollupKey> rollupsBefore = prescribingAnalyticsService.keysOf(existingPrescription);
         
         // Update prescription
         existingPrescription.setPatientId(request.getPatientId());
         existingPrescription.setDoctorId(request.getDoctorId());
-        existingPrescription.setMedicineList(medicines);
+        existingPrescription.setMedicineList(toMedicines(request));
+        applyEndDates(existingPrescription);
         existingPrescription.setNotes(request.getNotes());
         
-        return prescriptionRepository.save(existingPrescription);
+        Prescription saved = prescriptionRepository.save(existingPrescription);
+        prescriptionRevisionService.recordUpdated(before, previousVersion, saved);
+        prescribingAnalyticsService.recordChanged(rollupsBefore, prescribingAnalyticsService.keysOf(saved));
+        return saved;
+    }
+    
+    /**
+     * Applies a partial update as one findAndModify with targeted $set/$push/$pull operators,
+     * so write and validation cost follow the size of the edit rather than the document.
+     * A concurrent write is retried against the fresh version, except for updateMedicines, whose
+     * indexes may no longer point at the same medicines and so fail with a conflict instead.
+     * Only patient/doctor IDs present in the patch are validated. Mongo rejects mixing these
+     * operators on the same array, so a patch may carry one medicine list operation at most.
+     */
+    public Prescription patchPrescription(String id, PrescriptionPatchRequest patch, Long expectedVersion) {
+        Update update = new Update();
+        
+        if (patch.getPatientId() != null) {
+            update.set("patientId", patch.getPatientId());
+        }
+        if (patch.getDoctorId() != null) {
+            update.set("doctorId", patch.getDoctorId());
+        }
+        if (patch.getNotes() != null) {
+            update.set("notes", patch.getNotes());
+        }
+        
+        boolean adds = patch.getAddMedicines() != null && !patch.getAddMedicines().isEmpty();
+        boolean changes = patch.getUpdateMedicines() != null && !patch.getUpdateMedicines().isEmpty();
+        boolean removals = patch.getRemoveMedicines() != null && !patch.getRemoveMedicines().isEmpty();
+        if ((adds ? 1 : 0) + (changes ? 1 : 0) + (removals ? 1 : 0) > 1) {
+            throw new RuntimeException("Only one of addMedicines, updateMedicines or removeMedicines may be used per patch");
+        }
+        List<Prescription.Medicine> added = adds ? toMedicines(patch.getAddMedicines()) : List.of();
+        if (adds) {
+            update.push("medicineList").each(added.toArray());
+        }
+        int highestIndex = -1;
+        if (changes) {
+            for (PrescriptionPatchRequest.MedicineChange change : patch.getUpdateMedicines()) {
+                String path = "medicineList." + change.getIndex() + ".";
+                setIfPresent(update, path + "name", formularyService.canonicalize(change.getName()));
+                setIfPresent(update, path + "dosage", change.getDosage());
+                setIfPresent(update, path + "frequency", change.getFrequency());
+                setIfPresent(update, path + "duration", change.getDuration());
+                setIfPresent(update, path + "instructions", change.getInstructions());
+                highestIndex = Math.max(highestIndex, change.getIndex());
+            }
+        }
+        List<String> removed = removals
+            ? patch.getRemoveMedicines().stream().map(formularyService::canonicalize).toList()
+            : List.of();
+        if (removals) {
+            update.pull("medicineList", new Document("name", new Document("$in", removed)));
+        }
+        
+        if (update.getUpdateObject().isEmpty()) {
+            throw new RuntimeException("Nothing to update");
+        }
+        update.inc("version", 1);
+        
+        // The revision history needs the state being replaced, so the patch is a compare-and-set
+        // against the version just read; that also keeps positional $set inside the array it was checked against
+        for (int attempt = 1; ; attempt++) {
+            Prescription current = prescriptionRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Prescription not found"));
+            checkVersion(current, expectedVersion);
+            checkChangedIds(current, patch);
+            int medicineCount = current.getMedicineList() == null ? 0 : current.getMedicineList().size();
+            if (highestIndex >= medicineCount) {
+                throw new RuntimeException("Medicine index out of range");
+            }
+            
+            if (adds || changes || removals) {
+                setEndDates(update, current, added, changes ? patch.getUpdateMedicines() : List.of(), removed);
+            }
+            Document before = prescriptionRevisionService.state(current);
+            Query sameVersion = Query.query(Criteria.where("_id").is(id).and("version").is(current.getVersion()));
+            Prescription patched = mongoTemplate.findAndModify(
+                sameVersion, update, FindAndModifyOptions.options().returnNew(true), Prescription.class);
+            if (patched != null) {
+                prescriptionRevisionService.recordUpdated(before, current.getVersion(), patched);
+                prescribingAnalyticsService.recordChanged(
+                    prescribingAnalyticsService.keysOf(current), prescribingAnalyticsService.keysOf(patched));
+                return patched;
+            }
+            // Index-based changes were checked against a list that may since have been reordered
+            if (expectedVersion != null || changes || attempt >= MAX_UPDATE_ATTEMPTS) {
+                throw new OptimisticLockingFailureException("Prescription was modified by another request");
+            }
+        }
     }
     
     public void deletePrescription(String id) {
-        if (!prescriptionRepository.existsById(id)) {
-            throw new RuntimeException("Prescription not found");
+        Prescription prescription = prescriptionRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Prescription not found"));
+        prescriptionRepository.delete(prescription);
+        prescriptionRevisionService.recordDeleted(prescription);
+        prescribingAnalyticsService.recordDeleted(prescription);
+    }
+    
+    private Prescription newPrescription(PrescriptionRequest request, LocalDateTime createdAt) {
+        Prescription prescription = new Prescription();
+        prescription.setPatientId(request.getPatientId());
+        prescription.setDoctorId(request.getDoctorId());
+        prescription.setMedicineList(toMedicines(request));
+        prescription.setNotes(request.getNotes());
+        prescription.setCreatedAt(createdAt);
+        applyEndDates(prescription);
+        return prescription;
+    }
+    
+    private List<Prescription.Medicine> toMedicines(PrescriptionRequest request) {
+        return toMedicines(request.getMedicineList());
+    }
+    
+    private List<Prescription.Medicine> toMedicines(List<PrescriptionRequest.MedicineDto> dtos) {
+        // Convert DTOs to entities; names are canonicalized against the formulary
+        return dtos.stream()
+            .map(dto -> new Prescription.Medicine(
+                formularyService.canonicalize(dto.getName()),
+                dosageOrStrength(dto.getDosage(), dto.getName()),
+                dto.getFrequency(),
+                dto.getDuration(),
+                dto.getInstructions()
+            ))
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Keeps a strength typed into the name ("Amoxicillin 500mg") when no dosage was given,
+     * since canonicalization drops it from the name
+     */
+    private static String dosageOrStrength(String dosage, String medicineName) {
+        return dosage == null || dosage.isBlank() ? MedicineNames.strength(medicineName) : dosage;
+    }
+    
+    /**
+     * Adds the derived end dates of the medicine list a patch produces from {@code current} to the
+     * patch, so they are written by the same compare-and-set and version bump as the edit itself.
+     * Added medicines get theirs on the objects being pushed; a changed medicine's is set only when
+     * its duration changes, and the prescription's latest end date is always set.
+     */
+    private static void setEndDates(Update update, Prescription current, List<Prescription.Medicine> added,
+            List<PrescriptionPatchRequest.MedicineChange> changes, List<String> removed) {
+        List<Prescription.Medicine> medicines = new ArrayList<>();
+        if (current.getMedicineList() != null) {
+            for (Prescription.Medicine medicine : current.getMedicineList()) {
+                medicines.add(new Prescription.Medicine(medicine.getName(), medicine.getDosage(),
+                    medicine.getFrequency(), medicine.getDuration(), medicine.getInstructions()));
+            }
+        }
+        for (PrescriptionPatchRequest.MedicineChange change : changes) {
+            if (change.getDuration() != null) {
+                medicines.get(change.getIndex()).setDuration(change.getDuration());
+            }
+        }
+        medicines.removeIf(medicine -> removed.contains(medicine.getName()));
+        medicines.addAll(added);
+        
+        Prescription result = new Prescription();
+        result.setCreatedAt(current.getCreatedAt());
+        result.setMedicineList(medicines);
+        applyEndDates(result);
+        for (PrescriptionPatchRequest.MedicineChange change : changes) {
+            if (change.getDuration() != null) {
+                update.set("medicineList." + change.getIndex() + ".endsAt", medicines.get(change.getIndex()).getEndsAt());
+            }
+        }
+        update.set("endsAt", result.getEndsAt());
+    }
+    
+    /**
+     * Sets each medicine's end date (createdAt + duration) and the prescription's latest end date,
+     * which stays null while any medicine is open-ended
+     */
+    private static void applyEndDates(Prescription prescription) {
+        List<Prescription.Medicine> medicines = prescription.getMedicineList();
+        if (medicines == null || medicines.isEmpty()) {
+            prescription.setEndsAt(prescription.getCreatedAt());
+            return;
+        }
+        LocalDateTime latest = null;
+        boolean openEnded = false;
+        for (Prescription.Medicine medicine : medicines) {
+            if (medicine.getDuration() == null) {
+                medicine.setEndsAt(null);
+                openEnded = true;
+                continue;
+            }
+            medicine.setEndsAt(prescription.getCreatedAt().plusDays(medicine.getDuration()));
+            if (latest == null || medicine.getEndsAt().isAfter(latest)) {
+                latest = medicine.getEndsAt();
+            }
+        }
+        prescription.setEndsAt(openEnded ? null : latest);
+    }
+    
+    private static void setIfPresent(Update update, String path, Object value) {
+        if (value != null) {
+            update.set(path, value);
+        }
+    }
+    
+    private void checkVersion(Prescription prescription, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(prescription.getVersion())) {
+            throw new OptimisticLockingFailureException(
+                "Prescription was modified by another request (current version " + prescription.getVersion() + ")");
+        }
+    }
+    
+    /**
+     * Checks only the ids the patch actually changes; repeating the current id needs no lookup
+     */
+    private void checkChangedIds(Prescription current, PrescriptionPatchRequest patch) {
+        if (patch.getPatientId() != null && !patch.getPatientId().equals(current.getPatientId())
+                && !idMembershipService.patientExists(patch.getPatientId())) {
+            throw new RuntimeException("Patient not found");
+        }
+        if (patch.getDoctorId() != null && !patch.getDoctorId().equals(current.getDoctorId())
+                && !idMembershipService.doctorExists(patch.getDoctorId())) {
+            throw new RuntimeException("Doctor not found");
+        }
+    }
+    
+    private void validatePageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new RuntimeException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+    
+    private CursorPage<Prescription> toPage(List<Prescription> fetched, int size) {
+        // One extra row is fetched purely to learn whether another page exists
+        boolean hasMore = fetched.size() > size;
+        List<Prescription> items = hasMore ? fetched.subList(0, size) : fetched;
+        String nextCursor = hasMore ? PageCursor.encode(items.get(items.size() - 1)) : null;
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+    
+    /**
+     * Opaque keyset cursor: the (createdAt, id) of the last prescription on the previous page.
+     */
+    private record PageCursor(LocalDateTime createdAt, String id) {
+        
+        private static final PageCursor FIRST_PAGE = new PageCursor(null, null);
+        
+        static String encode(Prescription last) {
+            long createdAtMillis = last.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            String raw = createdAtMillis + ":" + last.getId();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        static PageCursor decode(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return FIRST_PAGE;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf(':');
+                // Mongo stores dates with millisecond precision in the default zone, so round-trip the same way
+                LocalDateTime createdAt = LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(Long.parseLong(raw.substring(0, separator))), ZoneId.systemDefault());
+                return new PageCursor(createdAt, raw.substring(separator + 1));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new RuntimeException("Invalid cursor");
+            }
         }
-        prescriptionRepository.deleteById(id);
     }
-}
\ No newline at end of file
+}
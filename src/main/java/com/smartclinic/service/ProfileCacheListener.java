@@ -0,0 +1,61 @@
+package com.smartclinic.service;
+
+import com.smartclinic.config.CacheConfig;
+import com.smartclinic.model.Doctor;
+import com.smartclinic.model.Patient;
+import com.smartclinic.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * JPA entity listener that invalidates cached profiles when doctors, patients or users change.
+ * The cache manager is transaction-aware, so evictions take effect (and are broadcast) after commit.
+ */
+public class ProfileCacheListener {
+    
+    private final ObjectProvider<CacheManager> cacheManager;
+    
+    public ProfileCacheListener(ObjectProvider<CacheManager> cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+    
+    @PostPersist
+    public void persisted(Object entity) {
+        if (entity instanceof Doctor) {
+            clear(CacheConfig.SPECIALIZATIONS);
+        }
+    }
+    
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        if (entity instanceof Doctor doctor) {
+            evict(CacheConfig.DOCTOR_PROFILES, doctor.getId());
+            clear(CacheConfig.SPECIALIZATIONS);
+        } else if (entity instanceof Patient patient) {
+            evict(CacheConfig.PATIENT_PROFILES, patient.getId());
+        } else if (entity instanceof User) {
+            // Profiles carry the user's name and email but are keyed by doctor/patient ID; user edits are rare
+            clear(CacheConfig.DOCTOR_PROFILES);
+            clear(CacheConfig.PATIENT_PROFILES);
+        }
+    }
+    
+    private void evict(String cacheName, Long key) {
+        Cache cache = cacheManager.getObject().getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+    
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getObject().getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.smartclinic.service;
+
+import com.smartclinic.config.CacheConfig;
+import com.smartclinic.dto.DoctorProfile;
+import com.smartclinic.dto.PatientProfile;
+import com.smartclinic.repository.mysql.DoctorRepository;
+import com.smartclinic.repository.mysql.PatientRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Read-mostly doctor and patient profile data, served from the two-level cache.
+ * Entries are invalidated by {@link ProfileCacheListener} when the underlying rows change.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProfileService {
+    
+    private final DoctorRepository doctorRepository;
+    private final PatientRepository patientRepository;
+    
+    @Cacheable(CacheConfig.DOCTOR_PROFILES)
+    public DoctorProfile getDoctorProfile(Long doctorId) {
+        return doctorRepository.findProfileById(doctorId)
+            .orElseThrow(() -> new RuntimeException("Doctor not found"));
+    }
+    
+    @Cacheable(CacheConfig.PATIENT_PROFILES)
+    public PatientProfile getPatientProfile(Long patientId) {
+        return patientRepository.findProfileById(patientId)
+            .orElseThrow(() -> new RuntimeException("Patient not found"));
+    }
+    
+    @Cacheable(CacheConfig.SPECIALIZATIONS)
+    public List<String> getSpecializations() {
+        return List.copyOf(doctorRepository.findSpecializations());
+    }
+}
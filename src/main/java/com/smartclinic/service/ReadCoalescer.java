@@ -0,0 +1,62 @@
+package com.smartclinic.service;
+
+import com.smartclinic.concurrent.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight layer for hot reads: concurrent identical reads (same read name and key) share one
+ * database call. Results are shared between callers, so coalesced reads must not be mutated.
+ * Per read it publishes {@code smartclinic.reads.coalesced} counters by role and a collapse-ratio gauge.
+ */
+@Service
+public class ReadCoalescer {
+    
+    private static final String ROLE_DESCRIPTION =
+        "Coalesced reads by role: leader queried, follower shared an in-flight query, timeout stopped waiting and queried";
+    
+    private final MeterRegistry meterRegistry;
+    private final Duration timeout;
+    private final ConcurrentMap<String, SingleFlight<Object, Object>> flights = new ConcurrentHashMap<>();
+    
+    public ReadCoalescer(MeterRegistry meterRegistry,
+            @Value("${smartclinic.reads.coalescing-timeout:PT5S}") Duration timeout) {
+        this.meterRegistry = meterRegistry;
+        this.timeout = timeout;
+    }
+    
+    @SuppressWarnings("unchecked")
+    public <K, V> V execute(String read, K key, Supplier<V> loader) {
+        SingleFlight<Object, Object> flight = flights.computeIfAbsent(read, this::register);
+        return (V) flight.execute(key, (Supplier<Object>) loader);
+    }
+    
+    private SingleFlight<Object, Object> register(String read) {
+        SingleFlight<Object, Object> flight = new SingleFlight<>(timeout);
+        FunctionCounter.builder("smartclinic.reads.coalesced", flight, SingleFlight::leaders)
+            .description(ROLE_DESCRIPTION)
+            .tags("read", read, "role", "leader")
+            .register(meterRegistry);
+        FunctionCounter.builder("smartclinic.reads.coalesced", flight, SingleFlight::followers)
+            .description(ROLE_DESCRIPTION)
+            .tags("read", read, "role", "follower")
+            .register(meterRegistry);
+        FunctionCounter.builder("smartclinic.reads.coalesced", flight, SingleFlight::timeouts)
+            .description(ROLE_DESCRIPTION)
+            .tags("read", read, "role", "timeout")
+            .register(meterRegistry);
+        Gauge.builder("smartclinic.reads.collapse.ratio", flight, SingleFlight::collapseRatio)
+            .description("Share of reads served by another caller's query")
+            .tags("read", read)
+            .register(meterRegistry);
+        return flight;
+    }
+}
@@ -1,13 +1,21 @@
 package com.smartclinic.smart_clinic;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.AutoConfigurationExcludeFilter;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.context.TypeExcludeFilter;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@ComponentScan(basePackages = "com.smartclinic")
+// Same exclude filters as @SpringBootApplication, so test-only configurations are not picked up
+@ComponentScan(basePackages = "com.smartclinic", excludeFilters = {
+		@ComponentScan.Filter(type = FilterType.CUSTOM, classes = TypeExcludeFilter.class),
+		@ComponentScan.Filter(type = FilterType.CUSTOM, classes = AutoConfigurationExcludeFilter.class) })
 @EntityScan(basePackages = "com.smartclinic.model")
+@EnableScheduling
 public class SmartClinicApplication {
 
 	public static void main(String[] args) {
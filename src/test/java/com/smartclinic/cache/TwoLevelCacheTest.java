@@ -0,0 +1,94 @@
+package com.smartclinic.cache;
+
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TwoLevelCacheTest {
+
+    private InMemoryL2Cache l2;
+    private TwoLevelCacheManager nodeA;
+    private TwoLevelCacheManager nodeB;
+
+    @BeforeEach
+    void setUp() {
+        // Two nodes sharing one L2 and one invalidation bus
+        l2 = new InMemoryL2Cache();
+        InMemoryCacheInvalidationBus bus = new InMemoryCacheInvalidationBus();
+        nodeA = manager(l2, bus);
+        nodeB = manager(l2, bus);
+    }
+
+    @Test
+    void get_ShouldFillL1FromL2_WhenAnotherNodeLoadedTheValue() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("Dr. Rao", nodeA.getCache("doctorProfiles").get(1L, () -> "Dr. Rao" + suffix(loads)));
+        assertEquals("Dr. Rao", nodeB.getCache("doctorProfiles").get(1L, () -> "Dr. Rao" + suffix(loads)));
+
+        assertEquals(1, loads.get());
+        assertEquals("Dr. Rao", l2.get("doctorProfiles", 1L));
+    }
+
+    @Test
+    void evict_ShouldDropEntryFromBothLevelsOnEveryNode() {
+        nodeA.getCache("doctorProfiles").put(1L, "Dr. Rao");
+        nodeB.getCache("doctorProfiles").get(1L, () -> "unused");
+
+        nodeA.getCache("doctorProfiles").evict(1L);
+
+        assertNull(nodeA.getCache("doctorProfiles").get(1L));
+        assertNull(nodeB.getCache("doctorProfiles").get(1L));
+        assertNull(l2.get("doctorProfiles", 1L));
+    }
+
+    @Test
+    void clear_ShouldBroadcastToOtherNodes_WithoutL2() {
+        InMemoryCacheInvalidationBus bus = new InMemoryCacheInvalidationBus();
+        TwoLevelCacheManager first = manager(null, bus);
+        TwoLevelCacheManager second = manager(null, bus);
+        second.getCache("specializations").put("all", List.of("Cardiology"));
+
+        first.getCache("specializations").clear();
+
+        assertNull(second.getCache("specializations").get("all"));
+    }
+
+    @Test
+    void metrics_ShouldReportHitsMissesAndSizePerCache() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Cache decorated = manager(null, new InMemoryCacheInvalidationBus()).getCache("doctorProfiles");
+        TwoLevelCache cache = (TwoLevelCache) ((TransactionAwareCacheDecorator) decorated).getTargetCache();
+        CaffeineCacheMetrics.monitor(registry, cache.getNativeCache(), cache.getName());
+
+        cache.get(1L);
+        cache.put(1L, "Dr. Rao");
+        Cache.ValueWrapper hit = cache.get(1L);
+
+        assertNotNull(hit);
+        assertEquals(1, registry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.size").gauge().value());
+    }
+
+    private static TwoLevelCacheManager manager(L2Cache l2, CacheInvalidationBus bus) {
+        TwoLevelCacheManager manager = new TwoLevelCacheManager(
+            Map.of("doctorProfiles", "maximumSize=100", "specializations", "maximumSize=1"), l2, bus);
+        manager.afterPropertiesSet();
+        return manager;
+    }
+
+    private static String suffix(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return "";
+    }
+}
@@ -0,0 +1,131 @@
+package com.smartclinic.codec;
+
+import com.smartclinic.model.MedicalHistory;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressingTextConverterTest {
+
+    private static final int THRESHOLD = 1024;
+    private static final TextCodecs CODECS = new TextCodecs(List.of(new DeflateTextCodec()));
+
+    private MongoMappingContext mappingContext;
+    private MappingMongoConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        CompressingTextConverter textConverter = new CompressingTextConverter(new DeflateTextCodec(), CODECS, THRESHOLD);
+        MongoCustomConversions conversions = MongoCustomConversions.create(adapter -> adapter
+            .registerConverter(new CompressingTextConverter.PlainTextWritingConverter())
+            .registerConverter(new CompressingTextConverter.PlainTextReadingConverter())
+            .configurePropertyConversions(registrar -> registrar
+                .registerConverter(MedicalHistory.MedicalRecord.class, "description", textConverter)
+                .registerConverter(MedicalHistory.MedicalRecord.class, "doctorNotes", textConverter)));
+        mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+    }
+
+    @Test
+    void write_ShouldKeepSmallTextPlainAndCompressLargeText() {
+        // Arrange
+        String dictatedNotes = "Patient tolerating metformin poorly, GI upset after meals. ".repeat(100);
+        MedicalHistory history = historyWith("Type 2 diabetes", dictatedNotes);
+
+        // Act
+        Document stored = new Document();
+        converter.write(history, stored);
+
+        // Assert
+        Document record = stored.getList("records", Document.class).get(0);
+        assertEquals("Type 2 diabetes", record.get("description"));
+        Document notes = record.get("doctorNotes", Document.class);
+        assertEquals(DeflateTextCodec.NAME, notes.getString("codec"));
+        assertTrue(notes.get("data", Binary.class).getData().length < dictatedNotes.length() / 10);
+    }
+
+    @Test
+    void read_ShouldDecodeOnlyWhenFieldIsAccessed() {
+        // Arrange
+        String dictatedNotes = "Follow-up echocardiogram shows preserved ejection fraction. ".repeat(60);
+        Document stored = new Document();
+        converter.write(historyWith("Hypertension", dictatedNotes), stored);
+
+        // Act
+        MedicalHistory loaded = converter.read(MedicalHistory.class, stored);
+        CompressibleText notes = (CompressibleText) new DirectFieldAccessor(
+            loaded.getRecords().get(0)).getPropertyValue("doctorNotes");
+
+        // Assert
+        assertTrue(notes.isEncoded());
+        assertEquals(dictatedNotes, loaded.getRecords().get(0).getDoctorNotes());
+        assertFalse(notes.isEncoded());
+    }
+
+    @Test
+    void write_ShouldReuseStoredBytes_WhenTextWasNeverDecoded() {
+        // Arrange
+        byte[] encoded = new DeflateTextCodec().encode("x".repeat(5000));
+        CompressibleText untouched = CompressibleText.encoded(new DeflateTextCodec(), encoded);
+
+        // Act
+        Object written = new CompressingTextConverter(new DeflateTextCodec(), CODECS, THRESHOLD).write(untouched, null);
+
+        // Assert
+        assertArrayEquals(encoded, ((Document) written).get("data", Binary.class).getData());
+        assertTrue(untouched.isEncoded());
+    }
+
+    @Test
+    void write_ShouldKeepSearchTermsPlain_WhenTextIsCompressed() {
+        // Arrange
+        String dictatedNotes = "Patient tolerating metformin poorly, GI upset after meals. ".repeat(100);
+
+        // Act
+        Document stored = new Document();
+        converter.write(historyWith("Type 2 diabetes", dictatedNotes), stored);
+
+        // Assert
+        Document record = stored.getList("records", Document.class).get(0);
+        assertInstanceOf(Document.class, record.get("doctorNotes"));
+        assertEquals(List.of("patient", "tolerating", "metformin", "poorly", "gi", "upset", "after", "meals"),
+            record.getList("doctorNotesTerms", String.class));
+        assertEquals(List.of("type", "2", "diabetes"), record.getList("descriptionTerms", String.class));
+    }
+
+    @Test
+    void read_ShouldFail_WhenStoredCodecIsUnknown() {
+        // Arrange
+        Document stored = new Document("codec", "zstd").append("data", new Binary(new byte[] {1, 2, 3}));
+        CompressingTextConverter textConverter = new CompressingTextConverter(new DeflateTextCodec(), CODECS, THRESHOLD);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> textConverter.fromStored(stored));
+    }
+
+    private MedicalHistory historyWith(String description, String doctorNotes) {
+        MedicalHistory.MedicalRecord record = new MedicalHistory.MedicalRecord();
+        record.setRecordType("DIAGNOSIS");
+        record.setDescription(description);
+        record.setDoctorNotes(doctorNotes);
+
+        MedicalHistory history = new MedicalHistory();
+        history.setPatientId(1L);
+        history.setRecords(new ArrayList<>(List.of(record)));
+        return history;
+    }
+}
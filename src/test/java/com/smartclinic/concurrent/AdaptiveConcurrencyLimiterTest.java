@@ -0,0 +1,101 @@
+package com.smartclinic.concurrent;
+
+import com.smartclinic.concurrent.AdaptiveConcurrencyLimiter.Permit;
+import com.smartclinic.concurrent.AdaptiveConcurrencyLimiter.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void limit_ShouldGrow_WhileSaturatedAndLatencyIsSteady() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20);
+
+        runRounds(limiter, 20, 50, 10);
+
+        assertTrue(limiter.getLimit() > 20, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    void limit_ShouldShrink_WhenLatencyClimbsAboveBaseline() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = limiter(100);
+        runRounds(limiter, 60, 20, 10);
+        int before = limiter.getLimit();
+
+        // Act
+        runRounds(limiter, 60, 20, 100);
+
+        // Assert
+        assertTrue(limiter.getLimit() < before / 2, before + " -> " + limiter.getLimit());
+    }
+
+    @Test
+    void limit_ShouldNotGrow_WhenMostlyIdle() {
+        AdaptiveConcurrencyLimiter limiter = limiter(100);
+
+        runRounds(limiter, 5, 50, 10);
+
+        assertEquals(100, limiter.getLimit());
+    }
+
+    @Test
+    void tryAcquire_ShouldShedSheddableBeforeCritical() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+        List<Permit> held = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            held.add(limiter.tryAcquire(Priority.CRITICAL).orElseThrow());
+        }
+
+        // Act & Assert
+        assertTrue(limiter.tryAcquire(Priority.SHEDDABLE).isEmpty());
+        assertTrue(limiter.tryAcquire(Priority.NORMAL).isPresent());
+        assertTrue(limiter.tryAcquire(Priority.NORMAL).isPresent());
+        assertTrue(limiter.tryAcquire(Priority.NORMAL).isPresent());
+        assertTrue(limiter.tryAcquire(Priority.NORMAL).isEmpty());
+        assertTrue(limiter.tryAcquire(Priority.CRITICAL).isPresent());
+        assertTrue(limiter.tryAcquire(Priority.CRITICAL).isEmpty());
+        assertEquals(10, limiter.getInFlight());
+        assertEquals(1, limiter.getRejected(Priority.SHEDDABLE));
+        assertEquals(1, limiter.getRejected(Priority.NORMAL));
+        assertEquals(1, limiter.getRejected(Priority.CRITICAL));
+    }
+
+    @Test
+    void permit_ShouldReleaseItsSlotOnlyOnce() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+        Permit permit = limiter.tryAcquire(Priority.NORMAL).orElseThrow();
+
+        permit.onIgnore();
+        permit.onComplete();
+
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, 1, 1000, 1.5, 0.2, clock::get);
+    }
+
+    /**
+     * Admits {@code concurrency} calls at once, advances the clock by {@code latencyMillis} and completes them
+     */
+    private void runRounds(AdaptiveConcurrencyLimiter limiter, int concurrency, int rounds, long latencyMillis) {
+        for (int round = 0; round < rounds; round++) {
+            List<Permit> permits = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                limiter.tryAcquire(Priority.CRITICAL).ifPresent(permits::add);
+            }
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+            permits.forEach(Permit::onComplete);
+        }
+    }
+}
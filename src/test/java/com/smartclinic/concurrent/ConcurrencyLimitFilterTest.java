@@ -0,0 +1,70 @@
+package com.smartclinic.concurrent;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartclinic.concurrent.AdaptiveConcurrencyLimiter.Priority;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 10, 10, 1.5, 0.2);
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter,
+        List.of("POST /api/appointments", "/api/auth/**"), List.of("/api/analytics/**", "/api/**/stream"),
+        List.of("/actuator/**"), new ObjectMapper());
+
+    @Test
+    void priorityOf_ShouldClassifyByMethodAndPath() {
+        assertEquals(Priority.CRITICAL, filter.priorityOf(request("POST", "/api/appointments")));
+        assertEquals(Priority.CRITICAL, filter.priorityOf(request("POST", "/api/auth/login")));
+        assertEquals(Priority.NORMAL, filter.priorityOf(request("GET", "/api/appointments/patient/1")));
+        assertEquals(Priority.SHEDDABLE, filter.priorityOf(request("GET", "/api/analytics/prescriptions/volume")));
+        assertEquals(Priority.SHEDDABLE, filter.priorityOf(request("GET", "/api/prescriptions/patient/1/stream")));
+    }
+
+    @Test
+    void doFilter_ShouldShedAnalyticsWith503_WhileBookingIsStillAdmitted() throws Exception {
+        // Arrange
+        for (int i = 0; i < 6; i++) {
+            limiter.tryAcquire(Priority.CRITICAL).orElseThrow();
+        }
+        MockHttpServletResponse analytics = new MockHttpServletResponse();
+        MockHttpServletResponse booking = new MockHttpServletResponse();
+        MockFilterChain analyticsChain = new MockFilterChain();
+        MockFilterChain bookingChain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(request("GET", "/api/analytics/prescriptions/volume"), analytics, analyticsChain);
+        filter.doFilter(request("POST", "/api/appointments"), booking, bookingChain);
+
+        // Assert
+        assertEquals(503, analytics.getStatus());
+        assertEquals("1", analytics.getHeader("Retry-After"));
+        assertTrue(analytics.getContentAsString().contains("\"status\":\"error\""));
+        assertNull(analyticsChain.getRequest());
+        assertEquals(200, booking.getStatus());
+        assertNotNull(bookingChain.getRequest());
+        assertEquals(6, limiter.getInFlight());
+    }
+
+    @Test
+    void doFilter_ShouldNotLimitExcludedPaths() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire(Priority.CRITICAL).orElseThrow();
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("GET", "/actuator/health"), response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        return new MockHttpServletRequest(method, path);
+    }
+}
@@ -0,0 +1,31 @@
+package com.smartclinic.config;
+
+import com.smartclinic.config.HibernateCacheConfig.HibernateCacheSettings;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.CacheManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HibernateCacheConfigTest {
+
+    private final HibernateCacheConfig config = new HibernateCacheConfig();
+
+    @Test
+    void hibernateCacheManager_ShouldNotCollide_WhenTwoContextsRunInOneJvm() {
+        // Arrange
+        HibernateCacheSettings settings = config.hibernateCacheSettings();
+
+        // Act
+        try (CacheManager first = config.hibernateCacheManager(settings);
+             CacheManager second = config.hibernateCacheManager(settings)) {
+
+            // Assert
+            assertNotSame(first, second);
+            assertNotNull(second.getCache(HibernateCacheConfig.DOCTORS));
+            assertNotNull(second.getCache(HibernateCacheConfig.UPDATE_TIMESTAMPS));
+            first.getCache(HibernateCacheConfig.DOCTORS).put(1L, "cached");
+            assertNull(second.getCache(HibernateCacheConfig.DOCTORS).get(1L));
+        }
+    }
+}
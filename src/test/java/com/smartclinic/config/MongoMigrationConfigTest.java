@@ -0,0 +1,101 @@
+package com.smartclinic.config;
+
+import com.mongodb.client.result.UpdateResult;
+import com.smartclinic.model.MedicalHistory;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MongoMigrationConfigTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final MongoMigrationConfig config = new MongoMigrationConfig();
+
+    @Test
+    void backfillMedicalRecordIds_ShouldRetryAgainstFreshVersion_WhenHistoryChangedInBetween() throws Exception {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(MedicalHistory.class))).thenReturn(List.of(history(3L, 1)));
+        when(mongoTemplate.findOne(any(Query.class), eq(MedicalHistory.class))).thenReturn(history(4L, 2));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(MedicalHistory.class)))
+            .thenReturn(UpdateResult.acknowledged(0, 0L, null), UpdateResult.acknowledged(1, 1L, null));
+
+        // Act
+        config.backfillMedicalRecordIds(mongoTemplate).run(null);
+
+        // Assert
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateFirst(queries.capture(), updates.capture(), eq(MedicalHistory.class));
+        assertEquals(3L, queries.getAllValues().get(0).getQueryObject().get("version"));
+        assertEquals(4L, queries.getAllValues().get(1).getQueryObject().get("version"));
+        Update written = updates.getAllValues().get(1);
+        assertEquals(new Document("version", 1), written.getUpdateObject().get("$inc"));
+        // The re-read state, with the record added concurrently, is what gets written
+        List<?> records = (List<?>) written.getUpdateObject().get("$set", Document.class).get("records");
+        assertEquals(2, records.size());
+        records.forEach(record -> assertNotNull(((MedicalHistory.MedicalRecord) record).getRecordId()));
+    }
+
+    @Test
+    void backfillMedicalRecordIds_ShouldStop_WhenHistoryNoLongerNeedsIt() throws Exception {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(MedicalHistory.class))).thenReturn(List.of(history(3L, 1)));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(MedicalHistory.class)))
+            .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        // Act
+        config.backfillMedicalRecordIds(mongoTemplate).run(null);
+
+        // Assert
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(Update.class), eq(MedicalHistory.class));
+        verify(mongoTemplate, times(1)).findOne(any(Query.class), eq(MedicalHistory.class));
+    }
+
+    @Test
+    void indexMedicalRecordSearchTerms_ShouldGuardBackfillWithVersion() throws Exception {
+        // Arrange
+        MedicalHistory history = history(2L, 1);
+        history.getRecords().get(0).setDescription("Seasonal asthma");
+        when(mongoTemplate.find(any(Query.class), eq(MedicalHistory.class))).thenReturn(List.of(history));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(MedicalHistory.class)))
+            .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        IndexOperations indexes = mock(IndexOperations.class);
+        when(mongoTemplate.indexOps(MedicalHistory.class)).thenReturn(indexes);
+
+        // Act
+        config.indexMedicalRecordSearchTerms(mongoTemplate).run(null);
+
+        // Assert
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(MedicalHistory.class));
+        assertEquals(2L, query.getValue().getQueryObject().get("version"));
+        assertEquals(new Document("version", 1), update.getValue().getUpdateObject().get("$inc"));
+        assertEquals(List.of("seasonal", "asthma"), history.getRecords().get(0).getDescriptionTerms());
+        verify(indexes).ensureIndex(any());
+    }
+
+    private static MedicalHistory history(Long version, int records) {
+        MedicalHistory history = new MedicalHistory();
+        history.setId("h1");
+        history.setVersion(version);
+        List<MedicalHistory.MedicalRecord> list = new ArrayList<>();
+        for (int i = 0; i < records; i++) {
+            list.add(new MedicalHistory.MedicalRecord());
+        }
+        history.setRecords(list);
+        return history;
+    }
+}
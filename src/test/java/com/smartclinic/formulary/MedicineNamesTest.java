@@ -0,0 +1,33 @@
+package com.smartclinic.formulary;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MedicineNamesTest {
+
+    @Test
+    void normalize_ShouldDropTrailingStrengthOnly() {
+        // Act & Assert
+        assertEquals("warfarin", MedicineNames.normalize("Warfarin 5mg"));
+        assertEquals("amoxicillin", MedicineNames.normalize(" Amoxicillin  500 mg "));
+        assertEquals("paracetamol", MedicineNames.normalize("Paracetamol 250mg/5ml"));
+        assertEquals("co-amoxiclav", MedicineNames.normalize("Co-amoxiclav 500/125mg"));
+        assertEquals("vitamin b12", MedicineNames.normalize("Vitamin B12"));
+        assertEquals("vitamin b12", MedicineNames.normalize("Vitamin B12 1000mcg"));
+        assertEquals("5-fluorouracil", MedicineNames.normalize("5-Fluorouracil"));
+        assertEquals("", MedicineNames.normalize(null));
+    }
+
+    @Test
+    void strength_ShouldReturnTrailingStrengthToken() {
+        // Act & Assert
+        assertEquals("500mg", MedicineNames.strength("Amoxicillin 500mg"));
+        assertEquals("500 mg", MedicineNames.strength("Amoxicillin 500 mg"));
+        assertEquals("100 units/ml", MedicineNames.strength("Insulin Glargine 100 units/ml"));
+        assertEquals("1000mcg", MedicineNames.strength("Vitamin B12 1000mcg"));
+        assertNull(MedicineNames.strength("Vitamin B12"));
+        assertNull(MedicineNames.strength("5-Fluorouracil"));
+        assertNull(MedicineNames.strength(null));
+    }
+}
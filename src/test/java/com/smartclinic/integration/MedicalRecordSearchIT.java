@@ -0,0 +1,113 @@
+package com.smartclinic.integration;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.smartclinic.codec.CompressingTextConverter;
+import com.smartclinic.codec.DeflateTextCodec;
+import com.smartclinic.codec.TextCodecs;
+import com.smartclinic.config.MongoMigrationConfig;
+import com.smartclinic.dto.MedicalRecordSearchHit;
+import com.smartclinic.repository.mongodb.MedicalHistoryRepository;
+import com.smartclinic.repository.mongodb.MedicalHistorySummaryRepository;
+import com.smartclinic.repository.mongodb.reactive.ReactiveMedicalHistoryRepository;
+import com.smartclinic.search.SearchTerms;
+import com.smartclinic.service.IdMembershipService;
+import com.smartclinic.service.MedicalHistorySequenceService;
+import com.smartclinic.service.MedicalHistoryService;
+import com.smartclinic.service.ReadCoalescer;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs medical record search against a real text index, including records whose notes are stored compressed
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class MedicalRecordSearchIT {
+
+    @Container
+        @SuppressWarnings("resource")
+        static MongoDBContainer mongo = new MongoDBContainer("mongo:6.0");
+
+    private MongoClient client;
+    private MedicalHistoryService medicalHistoryService;
+
+    @BeforeAll
+    void setUp() throws Exception {
+        client = MongoClients.create(mongo.getConnectionString());
+        MongoTemplate mongoTemplate = new MongoTemplate(client, "searchdb");
+        DeflateTextCodec codec = new DeflateTextCodec();
+        CompressingTextConverter converter = new CompressingTextConverter(codec, new TextCodecs(List.of(codec)), 4096);
+        medicalHistoryService = new MedicalHistoryService(mock(MedicalHistoryRepository.class),
+            mock(ReactiveMedicalHistoryRepository.class), mock(MedicalHistorySummaryRepository.class),
+            mock(IdMembershipService.class), mock(MedicalHistorySequenceService.class), mongoTemplate,
+            mock(ReadCoalescer.class), converter);
+
+        String longNotes = "Long dictated note. ".repeat(300) + "Stopped after metformin intolerance was confirmed.";
+        mongoTemplate.getCollection("medical_history").insertMany(List.of(
+            new Document("patientId", 1L).append("version", 0L).append("records", List.of(
+                record("Patient reports metformin intolerance with GI upset"),
+                record("Metformin dose increased; no intolerance so far"))),
+            new Document("patientId", 2L).append("version", 0L).append("records", List.of(
+                record("Follow-up visit")
+                    .append("doctorNotes", new Document("codec", DeflateTextCodec.NAME)
+                        .append("data", new Binary(codec.encode(longNotes))))
+                    .append("doctorNotesTerms", SearchTerms.of(longNotes))))));
+        new MongoMigrationConfig().indexMedicalRecordSearchTerms(mongoTemplate).run(null);
+    }
+
+    @AfterAll
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    void phraseQuery_ShouldReturnRecordsContainingThePhrase() {
+        List<MedicalRecordSearchHit> hits = medicalHistoryService.searchMedicalRecords(
+            "\"metformin intolerance\"", null, null, 0, 20);
+
+        // The second record of patient 1 has both words, but not next to each other
+        assertEquals(2, hits.size());
+        assertTrue(hits.stream().anyMatch(hit -> hit.getPatientId() == 1L && hit.getRecordIndex() == 0));
+        assertTrue(hits.stream().anyMatch(hit -> hit.getPatientId() == 2L
+            && hit.getSnippet().contains("metformin intolerance")));
+    }
+
+    @Test
+    void wordQuery_ShouldMatchOtherFormsOfTheWord() {
+        List<MedicalRecordSearchHit> hits = medicalHistoryService.searchMedicalRecords("intolerant", null, null, 0, 20);
+
+        assertEquals(3, hits.size());
+    }
+
+    @Test
+    void excludedPhrase_ShouldDropRecordsContainingIt() {
+        List<MedicalRecordSearchHit> hits = medicalHistoryService.searchMedicalRecords(
+            "metformin -\"metformin intolerance\"", null, null, 0, 20);
+
+        assertEquals(1, hits.size());
+        assertEquals(1, hits.get(0).getRecordIndex());
+    }
+
+    private static Document record(String description) {
+        return new Document("recordType", "DIAGNOSIS")
+            .append("doctorId", 7L)
+            .append("recordDate", new Date())
+            .append("description", description)
+            .append("descriptionTerms", SearchTerms.of(description));
+    }
+}
@@ -0,0 +1,143 @@
+package com.smartclinic.integration;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.smartclinic.model.Prescription;
+import com.smartclinic.repository.mongodb.PrescriptionRepositoryImpl;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.domain.Sort;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Explain-based checks that prescription queries are served by the declared indexes
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class PrescriptionIndexIT {
+
+    @Container
+        @SuppressWarnings("resource")
+        static MongoDBContainer mongo = new MongoDBContainer("mongo:6.0");
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private MongoPersistentEntity<?> entity;
+
+    @BeforeAll
+    void setUp() {
+        client = MongoClients.create(mongo.getConnectionString());
+        mongoTemplate = new MongoTemplate(client, "prescriptionsdb");
+        entity = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(Prescription.class);
+
+        // Create exactly what auto-index-creation would create from the annotations
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+            .resolveIndexFor(Prescription.class)
+            .forEach(index -> mongoTemplate.indexOps(Prescription.class).createIndex(index));
+
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        List<Prescription> prescriptions = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Prescription prescription = new Prescription();
+            prescription.setPatientId((long) (i % 50));
+            prescription.setDoctorId((long) (i % 7));
+            prescription.setNotes("note " + i);
+            prescription.setCreatedAt(start.plusMinutes(i));
+            prescriptions.add(prescription);
+        }
+        mongoTemplate.insertAll(prescriptions);
+    }
+
+    @AfterAll
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    void patientKeysetQuery_ShouldUsePatientCreatedIndexWithoutInMemorySort() {
+        List<Prescription> firstPage = mongoTemplate.find(
+            PrescriptionRepositoryImpl.keysetQuery("patientId", 3L, null, null, 10), Prescription.class);
+        Prescription last = firstPage.get(firstPage.size() - 1);
+
+        Document plan = explain(PrescriptionRepositoryImpl.keysetQuery("patientId", 3L, last.getCreatedAt(), last.getId(), 10));
+
+        assertIndexedWithoutSort(plan, "patient_created_idx");
+    }
+
+    @Test
+    void doctorKeysetQuery_ShouldUseDoctorCreatedIndexWithoutInMemorySort() {
+        Document plan = explain(PrescriptionRepositoryImpl.keysetQuery("doctorId", 2L, null, null, 10));
+
+        assertIndexedWithoutSort(plan, "doctor_created_idx");
+    }
+
+    @Test
+    void createdAtRangeQuery_ShouldUseCreatedIndex() {
+        LocalDateTime now = LocalDateTime.now();
+        Document plan = explain(Query.query(Criteria.where("createdAt").gte(now.minusDays(10)).lt(now.minusDays(5))));
+
+        assertIndexedWithoutSort(plan, "created_idx");
+    }
+
+    @Test
+    void patientNewestFirstQuery_ShouldUsePatientCreatedIndex() {
+        // Mirrors PrescriptionRepository.findByPatientIdOrderByCreatedAtDesc
+        Document plan = explain(Query.query(Criteria.where("patientId").is(5L))
+            .with(Sort.by(Sort.Direction.DESC, "createdAt")));
+
+        assertIndexedWithoutSort(plan, "patient_created_idx");
+    }
+
+    private Document explain(Query query) {
+        QueryMapper mapper = new QueryMapper(mongoTemplate.getConverter());
+        Document filter = mapper.getMappedObject(query.getQueryObject(), entity);
+        Document sort = mapper.getMappedSort(query.getSortObject(), entity);
+        return mongoTemplate.getCollection("prescriptions")
+            .find(filter)
+            .sort(sort)
+            .limit(query.getLimit())
+            .explain();
+    }
+
+    private void assertIndexedWithoutSort(Document explain, String indexName) {
+        Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+        List<String> stages = new ArrayList<>();
+        List<String> indexes = new ArrayList<>();
+        collectStages(winningPlan, stages, indexes);
+
+        assertFalse(stages.contains("COLLSCAN"), "Expected an index scan but got " + stages);
+        assertFalse(stages.contains("SORT"), "Expected the index to provide the sort but got " + stages);
+        assertTrue(indexes.contains(indexName), "Expected " + indexName + " but plan used " + indexes);
+    }
+
+    private void collectStages(Object node, List<String> stages, List<String> indexes) {
+        if (node instanceof Document document) {
+            if (document.containsKey("stage")) {
+                stages.add(document.getString("stage"));
+            }
+            if (document.containsKey("indexName")) {
+                indexes.add(document.getString("indexName"));
+            }
+            document.values().forEach(value -> collectStages(value, stages, indexes));
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> collectStages(value, stages, indexes));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.smartclinic.integration;
+
+import com.smartclinic.config.HibernateCacheConfig;
+import com.smartclinic.model.Doctor;
+import com.smartclinic.model.User;
+import com.smartclinic.repository.mysql.DoctorRepository;
+import com.smartclinic.repository.mysql.UserRepository;
+import com.smartclinic.service.IdMembershipService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that repeated Doctor/User lookups are answered from the Hibernate second-level and query caches
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SecondLevelCacheIT {
+
+    @Container
+    @SuppressWarnings("resource")
+    static MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", mysql::getJdbcUrl);
+        registry.add("spring.datasource.username", mysql::getUsername);
+        registry.add("spring.datasource.password", mysql::getPassword);
+    }
+
+    @SpringBootConfiguration
+    @EntityScan(basePackages = "com.smartclinic.model")
+    @EnableJpaRepositories(basePackages = "com.smartclinic.repository.mysql")
+    @Import(HibernateCacheConfig.class)
+    static class Config {
+    }
+
+    // Required by the entity listeners on User, Doctor and Patient
+    @MockitoBean
+    private IdMembershipService idMembershipService;
+
+    @MockitoBean
+    private CacheManager cacheManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Doctor doctor;
+
+    @BeforeEach
+    void setUp() {
+        String email = "doc+" + System.nanoTime() + "@example.com";
+        User user = userRepository.save(new User(null, "Dr. Rao", email, User.Role.DOCTOR, "secret1"));
+        doctor = doctorRepository.save(new Doctor(null, "Cardiology", user, null));
+
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findById_ShouldHitSecondLevelCache_OnRepeatedLookups() {
+        assertTrue(doctorRepository.findById(doctor.getId()).isPresent());
+        long statementsAfterFirstLoad = statistics.getPrepareStatementCount();
+
+        assertTrue(doctorRepository.findById(doctor.getId()).isPresent());
+        assertTrue(doctorRepository.findById(doctor.getId()).isPresent());
+
+        assertEquals(statementsAfterFirstLoad, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getDomainDataRegionStatistics(HibernateCacheConfig.DOCTORS).getHitCount());
+    }
+
+    @Test
+    void findByEmail_ShouldHitQueryCache_OnRepeatedLogins() {
+        String email = doctor.getUser().getEmail();
+        assertTrue(userRepository.findByEmail(email).isPresent());
+        long statementsAfterFirstLoad = statistics.getPrepareStatementCount();
+
+        assertTrue(userRepository.findByEmail(email).isPresent());
+
+        assertEquals(statementsAfterFirstLoad, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    void findBySpecialization_ShouldHitQueryCache_UntilDoctorsChange() {
+        doctorRepository.findBySpecialization("Cardiology");
+        long statementsAfterFirstLoad = statistics.getPrepareStatementCount();
+
+        doctorRepository.findBySpecialization("Cardiology");
+        assertEquals(statementsAfterFirstLoad, statistics.getPrepareStatementCount());
+
+        doctor.setSpecialization("Neurology");
+        doctorRepository.save(doctor);
+        assertTrue(doctorRepository.findBySpecialization("Cardiology").stream()
+            .noneMatch(found -> found.getId().equals(doctor.getId())));
+    }
+}
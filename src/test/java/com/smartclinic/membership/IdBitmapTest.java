@@ -0,0 +1,130 @@
+package com.smartclinic.membership;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Container layout is checked through {@link IdBitmap#sizeInBytes()}: 8 bytes per container key, plus
+ * 2 bytes per value in an array container or a flat 8192 bytes for a bitmap container
+ */
+class IdBitmapTest {
+
+    private static final long KEY_BYTES = 8;
+    private static final long BITMAP_BYTES = 8192;
+
+    @Test
+    void with_ShouldSwitchArrayToBitmap_WhenContainerGrowsPastArrayMax() {
+        // Arrange
+        IdBitmap full = IdBitmap.of(range(0, IdBitmap.ARRAY_MAX));
+
+        // Act
+        IdBitmap switched = full.with(IdBitmap.ARRAY_MAX);
+        IdBitmap grown = switched.with(IdBitmap.ARRAY_MAX + 1);
+
+        // Assert
+        assertEquals(IdBitmap.ARRAY_MAX + 2, grown.cardinality());
+        // An array container would have grown by 2 bytes with the second add
+        assertEquals(KEY_BYTES + BITMAP_BYTES, switched.sizeInBytes());
+        assertEquals(KEY_BYTES + BITMAP_BYTES, grown.sizeInBytes());
+        for (long id = 0; id <= IdBitmap.ARRAY_MAX + 1; id++) {
+            assertTrue(grown.contains(id), "missing " + id);
+        }
+        assertFalse(grown.contains(IdBitmap.ARRAY_MAX + 2));
+        assertFalse(full.contains(IdBitmap.ARRAY_MAX));
+    }
+
+    @Test
+    void of_ShouldPickContainerBySize() {
+        // Act
+        IdBitmap array = IdBitmap.of(range(0, 100));
+        IdBitmap bitmap = IdBitmap.of(range(0, IdBitmap.ARRAY_MAX + 1));
+
+        // Assert
+        assertEquals(KEY_BYTES + 100 * 2, array.sizeInBytes());
+        assertEquals(KEY_BYTES + BITMAP_BYTES, bitmap.sizeInBytes());
+        assertEquals(IdBitmap.ARRAY_MAX + 1, bitmap.cardinality());
+    }
+
+    @Test
+    void without_ShouldConvertBitmapBackToSortedArray_WhenContainerShrinksToArrayMax() {
+        // Arrange
+        IdBitmap bitmap = IdBitmap.of(range(0, IdBitmap.ARRAY_MAX + 1));
+
+        // Act
+        IdBitmap converted = bitmap.without(10);
+        IdBitmap shrunk = converted.without(4000);
+
+        // Assert
+        assertEquals(IdBitmap.ARRAY_MAX - 1, shrunk.cardinality());
+        // A bitmap container would have stayed at 8192 bytes
+        assertEquals(KEY_BYTES + (IdBitmap.ARRAY_MAX - 1) * 2L, shrunk.sizeInBytes());
+        // Lookups binary-search the array, so every remaining value is only found if it stayed sorted
+        for (long id = 0; id <= IdBitmap.ARRAY_MAX; id++) {
+            assertEquals(id != 10 && id != 4000, shrunk.contains(id), "wrong answer for " + id);
+        }
+        assertTrue(bitmap.contains(10));
+    }
+
+    @Test
+    void with_ShouldKeepContainersOrdered_WhenIdsCrossContainerKeys() {
+        // Arrange
+        IdBitmap bitmap = IdBitmap.of(List.of(65_535L, 3L << 16));
+
+        // Act
+        IdBitmap updated = bitmap.with(65_536L).with(1L << 40).with(2L << 16);
+
+        // Assert
+        assertEquals(5, updated.cardinality());
+        assertTrue(updated.contains(65_535L));
+        assertTrue(updated.contains(65_536L));
+        assertTrue(updated.contains(2L << 16));
+        assertTrue(updated.contains(3L << 16));
+        assertTrue(updated.contains(1L << 40));
+        assertFalse(updated.contains(65_537L));
+        assertFalse(updated.contains((1L << 40) + 1));
+        assertFalse(updated.contains(0L));
+        assertEquals(5 * KEY_BYTES + 5 * 2, updated.sizeInBytes());
+        assertFalse(bitmap.contains(65_536L));
+    }
+
+    @Test
+    void without_ShouldDropContainer_WhenItsLastIdIsRemoved() {
+        // Arrange
+        IdBitmap bitmap = IdBitmap.of(List.of(5L, 70_000L, 200_000L));
+
+        // Act
+        IdBitmap middleRemoved = bitmap.without(70_000L);
+        IdBitmap empty = middleRemoved.without(5L).without(200_000L);
+
+        // Assert
+        assertEquals(2, middleRemoved.cardinality());
+        assertEquals(2 * KEY_BYTES + 2 * 2, middleRemoved.sizeInBytes());
+        assertTrue(middleRemoved.contains(5L));
+        assertTrue(middleRemoved.contains(200_000L));
+        assertFalse(middleRemoved.contains(70_000L));
+        assertEquals(0, empty.cardinality());
+        assertEquals(0, empty.sizeInBytes());
+        assertTrue(empty.with(70_000L).contains(70_000L));
+    }
+
+    @Test
+    void withAndWithout_ShouldReturnSameBitmap_WhenNothingChanges() {
+        // Arrange
+        IdBitmap bitmap = IdBitmap.of(List.of(1L, 2L));
+
+        // Act & Assert
+        assertSame(bitmap, bitmap.with(2L));
+        assertSame(bitmap, bitmap.without(3L));
+        assertSame(bitmap, bitmap.without(-1L));
+        assertFalse(bitmap.contains(-1L));
+        assertThrows(IllegalArgumentException.class, () -> bitmap.with(-1L));
+    }
+
+    private static List<Long> range(long from, long toExclusive) {
+        return LongStream.range(from, toExclusive).boxed().toList();
+    }
+}
@@ -0,0 +1,252 @@
+package com.smartclinic.resilience;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartclinic.concurrent.AdaptiveConcurrencyLimiter;
+import com.smartclinic.concurrent.ConcurrencyLimitFilter;
+import com.smartclinic.config.ResilienceConfig;
+import com.smartclinic.config.ResilienceConfig.ResilienceSettings;
+import com.smartclinic.controller.AppointmentController;
+import com.smartclinic.controller.MedicalHistoryController;
+import com.smartclinic.exception.GlobalExceptionHandler;
+import com.smartclinic.model.MedicalHistory;
+import com.smartclinic.service.AppointmentService;
+import com.smartclinic.service.MedicalHistoryService;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Injects latency into the MongoDB-backed medical history reads and checks that the MySQL-backed
+ * appointment endpoints keep answering promptly while the Mongo bulkhead refuses and its circuit opens
+ */
+class DatastoreIsolationChaosTest {
+
+    private static final long MONGO_LATENCY_MILLIS = 500;
+
+    private final MedicalHistoryService medicalHistoryService = mock(MedicalHistoryService.class);
+    private final AppointmentService appointmentService = mock(AppointmentService.class);
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(100, 10, 500, 1.5, 0.2);
+    private DatastoreIsolation isolation;
+    private DatastoreBulkheadAspect aspect;
+
+    @Test
+    void slowMongo_ShouldNotAffectAppointmentEndpoints() throws Exception {
+        // Arrange
+        MockMvc mockMvc = mockMvc(false);
+        CountDownLatch mongoCallsStuck = new CountDownLatch(4);
+        when(medicalHistoryService.getPatientMedicalHistory(1L)).thenAnswer(invocation -> {
+            mongoCallsStuck.countDown();
+            Thread.sleep(MONGO_LATENCY_MILLIS);
+            return Optional.empty();
+        });
+        when(appointmentService.getPatientAppointments(1L)).thenReturn(List.of());
+        mockMvc.perform(get("/api/appointments/patient/1")).andExpect(status().isOk());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<MvcResult>> mongoRequests = new ArrayList<>();
+            List<Future<Long>> mongoDurations = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                long[] started = new long[1];
+                Future<MvcResult> request = executor.submit(() -> {
+                    started[0] = System.nanoTime();
+                    return mockMvc.perform(get("/api/medical-history/patient/1")).andReturn();
+                });
+                mongoRequests.add(request);
+                mongoDurations.add(executor.submit(() -> {
+                    request.get();
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started[0]);
+                }));
+            }
+            assertTrue(mongoCallsStuck.await(5, TimeUnit.SECONDS));
+
+            // Act
+            long slowestAppointment = 0;
+            for (int i = 0; i < 20; i++) {
+                long started = System.nanoTime();
+                mockMvc.perform(get("/api/appointments/patient/1")).andExpect(status().isOk());
+                slowestAppointment = Math.max(slowestAppointment, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            }
+
+            // Assert
+            assertTrue(slowestAppointment < MONGO_LATENCY_MILLIS / 2, "slowest appointment read took " + slowestAppointment + "ms");
+            int served = 0;
+            int refused = 0;
+            for (int i = 0; i < mongoRequests.size(); i++) {
+                MvcResult result = mongoRequests.get(i).get(5, TimeUnit.SECONDS);
+                if (result.getResponse().getStatus() == 200) {
+                    served++;
+                } else {
+                    assertEquals(503, result.getResponse().getStatus());
+                    assertEquals("1", result.getResponse().getHeader("Retry-After"));
+                    assertTrue(mongoDurations.get(i).get() < MONGO_LATENCY_MILLIS, "refusal was not fast");
+                    refused++;
+                }
+            }
+            assertEquals(4, served);
+            assertEquals(8, refused);
+        }
+
+        // Every admitted Mongo call was slow, so the circuit is open and further reads fail without a query
+        assertEquals(CircuitBreaker.State.OPEN, isolation.circuitBreaker(Datastore.MONGO).getState());
+        assertEquals(CircuitBreaker.State.CLOSED, isolation.circuitBreaker(Datastore.MYSQL).getState());
+        mockMvc.perform(get("/api/medical-history/patient/1"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(jsonPath("$.status").value("error"));
+        verify(medicalHistoryService, times(4)).getPatientMedicalHistory(1L);
+        mockMvc.perform(get("/api/appointments/patient/1")).andExpect(status().isOk());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void openCircuit_ShouldServeLastGoodResponseAsStale_WhenFallbackIsEnabled() throws Exception {
+        // Arrange
+        MockMvc mockMvc = mockMvc(true);
+        MedicalHistory history = new MedicalHistory();
+        history.setId("h1");
+        history.setVersion(3L);
+        history.setPatientId(1L);
+        when(medicalHistoryService.getPatientMedicalHistory(1L)).thenReturn(Optional.of(history));
+        mockMvc.perform(get("/api/medical-history/patient/1")).andExpect(status().isOk());
+
+        // Act
+        isolation.circuitBreaker(Datastore.MONGO).transitionToOpenState();
+
+        // Assert
+        mockMvc.perform(get("/api/medical-history/patient/1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Warning", DatastoreIsolation.STALE_WARNING))
+            .andExpect(header().string("ETag", "\"h1-3\""))
+            .andExpect(jsonPath("$.data.id").value("h1"));
+        mockMvc.perform(get("/api/medical-history/patient/2")).andExpect(status().isServiceUnavailable());
+        verify(medicalHistoryService, times(1)).getPatientMedicalHistory(1L);
+    }
+
+    @Test
+    void fastMongoFailures_ShouldOpenCircuit_WhenControllerAnswersThemWith4xx() throws Exception {
+        // Arrange
+        MockMvc mockMvc = mockMvc(false);
+        when(medicalHistoryService.getPatientMedicalHistory(1L))
+            .thenThrow(new DataAccessResourceFailureException("Timed out waiting for a server"));
+
+        // Act
+        for (int i = 0; i < 4; i++) {
+            mockMvc.perform(get("/api/medical-history/patient/1")).andExpect(status().isNotFound());
+        }
+
+        // Assert
+        assertEquals(CircuitBreaker.State.OPEN, isolation.circuitBreaker(Datastore.MONGO).getState());
+        mockMvc.perform(get("/api/medical-history/patient/1")).andExpect(status().isServiceUnavailable());
+        verify(medicalHistoryService, times(4)).getPatientMedicalHistory(1L);
+    }
+
+    @Test
+    void notFound_ShouldNotCountAsDatastoreFailure() throws Exception {
+        // Arrange
+        MockMvc mockMvc = mockMvc(false);
+        when(medicalHistoryService.getPatientMedicalHistory(1L)).thenThrow(new RuntimeException("Patient not found"));
+
+        // Act
+        for (int i = 0; i < 6; i++) {
+            mockMvc.perform(get("/api/medical-history/patient/1")).andExpect(status().isNotFound());
+        }
+
+        // Assert
+        assertEquals(CircuitBreaker.State.CLOSED, isolation.circuitBreaker(Datastore.MONGO).getState());
+    }
+
+    @Test
+    void mongoStreams_ShouldHoldBulkheadPermitUntilTheStreamEnds() {
+        // Arrange
+        mockMvc(false);
+        MedicalHistoryController controller = proxy(new MedicalHistoryController(medicalHistoryService), aspect);
+        when(medicalHistoryService.streamPatientRecords(1L)).thenReturn(Flux.never());
+        Flux<MedicalHistory.MedicalRecord> stream = controller.streamPatientRecords(1L);
+
+        // Act
+        List<Disposable> running = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            running.add(stream.subscribe());
+        }
+
+        // Assert
+        assertThrows(DatastoreUnavailableException.class, stream::blockFirst);
+        running.get(0).dispose();
+        List<Throwable> errors = new ArrayList<>();
+        running.add(stream.subscribe(record -> { }, errors::add));
+        assertTrue(errors.isEmpty());
+        running.forEach(Disposable::dispose);
+        // Cancelled streams are neither successes nor failures
+        assertEquals(0, isolation.circuitBreaker(Datastore.MONGO).getMetrics().getNumberOfBufferedCalls());
+    }
+
+    @Test
+    void mongoStreamErrors_ShouldOpenCircuit() {
+        // Arrange
+        mockMvc(false);
+        MedicalHistoryController controller = proxy(new MedicalHistoryController(medicalHistoryService), aspect);
+        when(medicalHistoryService.streamPatientRecords(1L))
+            .thenReturn(Flux.error(new DataAccessResourceFailureException("Timed out waiting for a server")));
+
+        // Act
+        for (int i = 0; i < 4; i++) {
+            assertThrows(DataAccessResourceFailureException.class, () -> controller.streamPatientRecords(1L).blockFirst());
+        }
+
+        // Assert
+        assertEquals(CircuitBreaker.State.OPEN, isolation.circuitBreaker(Datastore.MONGO).getState());
+        assertThrows(DatastoreUnavailableException.class, () -> controller.streamPatientRecords(1L).blockFirst());
+    }
+
+    private MockMvc mockMvc(boolean staleFallback) {
+        ResilienceConfig config = new ResilienceConfig();
+        ResilienceSettings settings = config.resilienceSettings();
+        settings.getMongo().setMaxConcurrentCalls(4);
+        settings.getMongo().setMaxWait(Duration.ZERO);
+        settings.getMongo().setSlowCallThreshold(Duration.ofMillis(MONGO_LATENCY_MILLIS / 2));
+        settings.getMongo().setSlidingWindowSize(4);
+        settings.getMongo().setMinimumNumberOfCalls(4);
+        settings.getMongo().setOpenDuration(Duration.ofMinutes(1));
+        settings.getMongo().setStaleFallback(staleFallback);
+        isolation = config.datastoreIsolation(settings, config.datastoreBulkheads(settings),
+            config.datastoreCircuitBreakers(settings), new SimpleMeterRegistry());
+        aspect = config.datastoreBulkheadAspect(isolation, settings);
+
+        ConcurrencyLimitFilter concurrencyLimitFilter = new ConcurrencyLimitFilter(limiter,
+            List.of("POST /api/appointments"), List.of(), List.of(), new ObjectMapper());
+        return MockMvcBuilders
+            .standaloneSetup(proxy(new AppointmentController(appointmentService), aspect),
+                proxy(new MedicalHistoryController(proxy(medicalHistoryService, aspect)), aspect))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .addFilters(concurrencyLimitFilter)
+            .build();
+    }
+
+    private static <T> T proxy(T target, DatastoreBulkheadAspect aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+}
@@ -0,0 +1,34 @@
+package com.smartclinic.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTermsTest {
+
+    @Test
+    void of_ShouldReturnDistinctLowerCaseWords() {
+        // Act & Assert
+        assertEquals(List.of("metformin", "intolerance", "gi", "upset"),
+            SearchTerms.of("Metformin intolerance; GI-upset, metformin"));
+        assertEquals(List.of(), SearchTerms.of("  -- "));
+        assertNull(SearchTerms.of(null));
+    }
+
+    @Test
+    void stem_ShouldMapInflectionsToTheSamePrefix() {
+        // Act & Assert
+        assertEquals("intoler", SearchTerms.stem("intolerance"));
+        assertEquals("intoler", SearchTerms.stem("intolerant"));
+        assertEquals("allerg", SearchTerms.stem("allergy"));
+        assertEquals("allerg", SearchTerms.stem("allergies"));
+        assertEquals("allerg", SearchTerms.stem("allergic"));
+        assertEquals("fractur", SearchTerms.stem("fractured"));
+        assertEquals("metformin", SearchTerms.stem("metformin"));
+        // Short words are left alone rather than cut down to a prefix that matches everything
+        assertEquals("pain", SearchTerms.stem("pain"));
+        assertEquals("uses", SearchTerms.stem("uses"));
+    }
+}
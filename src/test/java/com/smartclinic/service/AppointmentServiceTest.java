@@ -5,6 +5,7 @@ import com.smartclinic.model.Appointment;
 import com.smartclinic.model.Doctor;
 import com.smartclinic.model.Patient;
 import com.smartclinic.model.User;
+import com.smartclinic.projection.SparseFieldset;
 import com.smartclinic.repository.mysql.AppointmentRepository;
 import com.smartclinic.repository.mysql.DoctorRepository;
 import com.smartclinic.repository.mysql.PatientRepository;
@@ -16,7 +17,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -37,6 +39,9 @@ class AppointmentServiceTest {
     @Mock
     private DoctorRepository doctorRepository;
 
+    @Mock
+    private ProfileService profileService;
+
     @InjectMocks
     private AppointmentService appointmentService;
 
@@ -79,8 +84,8 @@ class AppointmentServiceTest {
     @Test
     void bookAppointment_ShouldCreateAppointmentSuccessfully() {
         // Given
-        when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
-        when(doctorRepository.findById(2L)).thenReturn(Optional.of(doctor));
+        when(patientRepository.getReferenceById(1L)).thenReturn(patient);
+        when(doctorRepository.getReferenceById(2L)).thenReturn(doctor);
         
         Appointment savedAppointment = new Appointment();
         savedAppointment.setId(1L);
@@ -102,15 +107,17 @@ class AppointmentServiceTest {
         assertEquals(patient, result.getPatient());
         assertEquals(doctor, result.getDoctor());
 
-        verify(patientRepository).findById(1L);
-        verify(doctorRepository).findById(2L);
+        verify(profileService).getPatientProfile(1L);
+        verify(profileService).getDoctorProfile(2L);
+        verify(patientRepository, never()).findById(any());
+        verify(doctorRepository, never()).findById(any());
         verify(appointmentRepository).save(any(Appointment.class));
     }
 
     @Test
     void bookAppointment_ShouldThrowExceptionWhenPatientNotFound() {
         // Given
-        when(patientRepository.findById(1L)).thenReturn(Optional.empty());
+        when(profileService.getPatientProfile(1L)).thenThrow(new RuntimeException("Patient not found"));
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, 
@@ -123,8 +130,7 @@ class AppointmentServiceTest {
     @Test
     void bookAppointment_ShouldThrowExceptionWhenDoctorNotFound() {
         // Given
-        when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
-        when(doctorRepository.findById(2L)).thenReturn(Optional.empty());
+        when(profileService.getDoctorProfile(2L)).thenThrow(new RuntimeException("Doctor not found"));
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, 
@@ -134,6 +140,23 @@ class AppointmentServiceTest {
         verify(appointmentRepository, never()).save(any(Appointment.class));
     }
 
+    @Test
+    void getDoctorAppointments_ShouldSelectOnlyRequestedColumns_WhenFieldsetGiven() {
+        // Given
+        SparseFieldset fields = SparseFieldset.parse("date,status", AppointmentService.LIST_FIELDS);
+        List<Map<String, Object>> rows = List.of(Map.of("id", 5L, "date", appointmentRequest.getDate(), "status", "PENDING"));
+        when(appointmentRepository.findFieldsByDoctorId(2L, List.of("id", "date", "status"))).thenReturn(rows);
+
+        // When
+        List<Map<String, Object>> result = appointmentService.getDoctorAppointments(2L, fields);
+
+        // Then
+        assertSame(rows, result);
+        verify(profileService).getDoctorProfile(2L);
+        verify(doctorRepository, never()).existsById(any());
+        verify(appointmentRepository, never()).findByDoctorId(any());
+    }
+
     @Test
     void bookAppointment_ShouldThrowExceptionWhenDateIsInPast() {
         // Given
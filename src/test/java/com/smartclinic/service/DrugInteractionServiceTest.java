@@ -0,0 +1,136 @@
+package com.smartclinic.service;
+
+import com.smartclinic.interaction.InteractionWarning;
+import com.smartclinic.model.Prescription;
+import com.smartclinic.repository.mongodb.PrescriptionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DrugInteractionServiceTest {
+
+    private static final String DATASET = """
+        # drug_a,drug_b,severity,description
+        warfarin,aspirin,major,Increased risk of bleeding
+        simvastatin,clarithromycin,MAJOR,Risk of myopathy, raised statin levels
+        """;
+
+    @Mock
+    private PrescriptionRepository prescriptionRepository;
+
+    private final MutableResource dataset = new MutableResource(DATASET);
+
+    @Test
+    void check_ShouldWarnAboutPairsWithinPrescription_IgnoringCaseAndStrength() {
+        // Arrange
+        DrugInteractionService service = new DrugInteractionService(dataset, prescriptionRepository);
+
+        // Act
+        List<InteractionWarning> warnings = service.check(
+            List.of(medicine("Warfarin 5mg", 30), medicine("Paracetamol", 5), medicine("ASPIRIN", 30)), List.of());
+
+        // Assert
+        assertEquals(1, warnings.size());
+        assertEquals("Warfarin 5mg", warnings.get(0).getMedicine());
+        assertEquals("ASPIRIN", warnings.get(0).getInteractingMedicine());
+        assertEquals("MAJOR", warnings.get(0).getSeverity());
+        assertNull(warnings.get(0).getInteractingPrescriptionId());
+    }
+
+    @Test
+    void checkNewPrescription_ShouldWarnAboutMedicinesThatAreStillActive() {
+        // Arrange
+        Prescription.Medicine running = medicine("Clarithromycin", 7);
+        running.setEndsAt(LocalDateTime.now().plusDays(5));
+        Prescription.Medicine finished = medicine("Clarithromycin", 7);
+        finished.setEndsAt(LocalDateTime.now().minusDays(1));
+        Prescription active = prescription("active1", running);
+        Prescription partlyFinished = prescription("partly1", finished, medicine("Vitamin D", null));
+        when(prescriptionRepository.findActiveByPatientIds(eq(List.of(1L)), any(LocalDateTime.class)))
+            .thenReturn(List.of(active, partlyFinished));
+        DrugInteractionService service = new DrugInteractionService(dataset, prescriptionRepository);
+
+        // Act
+        List<InteractionWarning> warnings = service.checkNewPrescription(1L, List.of(medicine("Simvastatin 20mg", 30)));
+
+        // Assert
+        assertEquals(1, warnings.size());
+        assertEquals("active1", warnings.get(0).getInteractingPrescriptionId());
+        assertEquals("Risk of myopathy, raised statin levels", warnings.get(0).getDescription());
+    }
+
+    @Test
+    void checkNewPrescription_ShouldSkipActiveLookup_WhenNoMedicineIsInTheTable() {
+        // Arrange
+        DrugInteractionService service = new DrugInteractionService(dataset, prescriptionRepository);
+
+        // Act
+        List<InteractionWarning> warnings = service.checkNewPrescription(1L, List.of(medicine("Paracetamol", 5)));
+
+        // Assert
+        assertTrue(warnings.isEmpty());
+        verify(prescriptionRepository, never()).findActiveByPatientIds(anyCollection(), any());
+    }
+
+    @Test
+    void reload_ShouldSwapTable_AndKeepCurrentTableWhenDatasetIsMalformed() {
+        // Arrange
+        DrugInteractionService service = new DrugInteractionService(dataset, prescriptionRepository);
+        dataset.content = "warfarin,aspirin,MAJOR\nfluoxetine,tramadol,MAJOR\n";
+
+        // Act
+        int reloaded = service.reload();
+        dataset.content = "not a valid line";
+
+        // Assert
+        assertEquals(2, reloaded);
+        assertThrows(UncheckedIOException.class, service::reload);
+        assertFalse(service.check(List.of(medicine("Fluoxetine", 30), medicine("Tramadol", 5)), List.of()).isEmpty());
+    }
+
+    private static Prescription.Medicine medicine(String name, Integer duration) {
+        return new Prescription.Medicine(name, "1 tablet", "Once daily", duration, null);
+    }
+
+    private static Prescription prescription(String id, Prescription.Medicine... medicines) {
+        Prescription prescription = new Prescription();
+        prescription.setId(id);
+        prescription.setPatientId(1L);
+        prescription.setMedicineList(List.of(medicines));
+        return prescription;
+    }
+
+    /**
+     * In-memory dataset whose content can be replaced to exercise reloads
+     */
+    private static class MutableResource extends ByteArrayResource {
+
+        private String content;
+
+        MutableResource(String content) {
+            super(new byte[0], "test dataset");
+            this.content = content;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
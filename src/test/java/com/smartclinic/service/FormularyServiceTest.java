@@ -0,0 +1,74 @@
+package com.smartclinic.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FormularyServiceTest {
+
+    private static final String FORMULARY = """
+        # Canonical Name,aliases
+        Amoxicillin,Amoxycillin,Amoxil
+        Amoxicillin Clavulanate,Co-amoxiclav,Augmentin
+        Amlodipine,Norvasc
+        Acyclovir,Zovirax
+        Aspirin
+        Warfarin,Coumadin
+        """;
+
+    private FormularyService formularyService;
+
+    @BeforeEach
+    void setUp() {
+        formularyService = new FormularyService(new ByteArrayResource(FORMULARY.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void suggest_ShouldReturnDistinctCanonicalNamesForPrefix() {
+        // Act & Assert
+        assertEquals(List.of("Amlodipine", "Amoxicillin", "Amoxicillin Clavulanate"), formularyService.suggest("Am", 10));
+        assertEquals(List.of("Acyclovir"), formularyService.suggest("ac", 10));
+        assertEquals(List.of("Amoxicillin"), formularyService.suggest("amoxi", 1));
+        assertEquals(List.of("Warfarin"), formularyService.suggest("COUM", 10));
+        assertTrue(formularyService.suggest("xyz", 10).isEmpty());
+        assertTrue(formularyService.suggest(" ", 10).isEmpty());
+    }
+
+    @Test
+    void suggest_ShouldOfferClosestName_WhenNothingMatchesThePrefix() {
+        // Act & Assert
+        assertEquals(List.of("Amoxicillin"), formularyService.suggest("amoxicilin", 10));
+        assertEquals(List.of("Warfarin"), formularyService.suggest("warfarn", 10));
+        assertTrue(formularyService.suggest("Asprn", 10).isEmpty());
+    }
+
+    @Test
+    void canonicalize_ShouldResolveCaseAliasesAndStrength() {
+        // Act & Assert
+        assertEquals("Amoxicillin", formularyService.canonicalize("AMOXICILLIN"));
+        assertEquals("Amoxicillin", formularyService.canonicalize("amoxicillin 500"));
+        assertEquals("Amoxicillin", formularyService.canonicalize("Amoxil 250mg"));
+        assertEquals("Warfarin", formularyService.canonicalize("coumadin"));
+        assertEquals("Amoxicillin Clavulanate", formularyService.canonicalize("co-amoxiclav"));
+    }
+
+    @Test
+    void canonicalize_ShouldKeepUnknownAndShortNamesAsEntered() {
+        // Act & Assert
+        assertEquals("Mystery Tonic", formularyService.canonicalize("  Mystery Tonic "));
+        assertEquals("Asprn", formularyService.canonicalize("Asprn"));
+    }
+
+    @Test
+    void canonicalize_ShouldNotCorrectNearMissesToAnotherDrug() {
+        // Act & Assert
+        assertEquals("ampicillin", formularyService.canonicalize("ampicillin"));
+        assertEquals("Famciclovir 250mg", formularyService.canonicalize("Famciclovir 250mg"));
+        assertEquals("amoxicilin 500", formularyService.canonicalize("amoxicilin 500"));
+    }
+}
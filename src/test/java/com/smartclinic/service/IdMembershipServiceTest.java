@@ -0,0 +1,113 @@
+package com.smartclinic.service;
+
+import com.smartclinic.repository.mysql.DoctorRepository;
+import com.smartclinic.repository.mysql.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdMembershipServiceTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private DoctorRepository doctorRepository;
+
+    @InjectMocks
+    private IdMembershipService idMembershipService;
+
+    @BeforeEach
+    void setUp() {
+        // Dense run of IDs (bitmap container) plus a few sparse ones in a second container
+        List<Long> patientIds = LongStream.concat(LongStream.rangeClosed(1, 5000), LongStream.of(70_000, 70_005))
+            .boxed().toList();
+        when(patientRepository.findAllIds()).thenReturn(patientIds);
+        when(doctorRepository.findAllIds()).thenReturn(List.of(1L, 2L, 4L));
+        idMembershipService.reload();
+    }
+
+    @Test
+    void exists_ShouldAnswerFromMemory_WhenIdIsAtOrBelowWatermark() {
+        assertTrue(idMembershipService.patientExists(4321L));
+        assertTrue(idMembershipService.patientExists(70_005L));
+        assertFalse(idMembershipService.patientExists(70_001L));
+        assertTrue(idMembershipService.doctorExists(2L));
+        assertFalse(idMembershipService.doctorExists(3L));
+        assertFalse(idMembershipService.doctorExists(null));
+
+        verify(patientRepository, never()).findExistingIds(anyCollection());
+        verify(doctorRepository, never()).findExistingIds(anyCollection());
+    }
+
+    @Test
+    void exists_ShouldFallBackToDatabaseAndRemember_WhenIdIsAboveWatermark() {
+        when(doctorRepository.findExistingIds(List.of(5L))).thenReturn(List.of(5L));
+
+        assertTrue(idMembershipService.doctorExists(5L));
+        assertTrue(idMembershipService.doctorExists(5L));
+
+        verify(doctorRepository, times(1)).findExistingIds(anyCollection());
+    }
+
+    @Test
+    void findMissingPatients_ShouldOnlyQueryIdsAboveWatermark() {
+        when(patientRepository.findExistingIds(List.of(80_000L, 80_001L))).thenReturn(List.of(80_001L));
+
+        Set<Long> missing = idMembershipService.findMissingPatients(List.of(1L, 6000L, 80_000L, 80_001L));
+
+        assertEquals(List.of(6000L, 80_000L), List.copyOf(missing));
+        assertTrue(idMembershipService.patientExists(80_001L));
+    }
+
+    @Test
+    void requireExistingPatients_ShouldReturnDistinctIdsInRequestOrder() {
+        Set<Long> ids = idMembershipService.requireExistingPatients(List.of(70_005L, 2L, 70_005L));
+
+        assertEquals(List.of(70_005L, 2L), List.copyOf(ids));
+        verify(patientRepository, never()).findExistingIds(anyCollection());
+    }
+
+    @Test
+    void requireExistingPatients_ShouldListUnknownPatients() {
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> idMembershipService.requireExistingPatients(List.of(1L, 7000L, 6000L)));
+
+        assertEquals("Patients not found: [6000, 7000]", exception.getMessage());
+    }
+
+    @Test
+    void requireExistingPatients_ShouldRejectEmptyOrOversizedBatch() {
+        List<Long> oversized = LongStream.rangeClosed(1, IdMembershipService.MAX_BATCH_PATIENTS + 1).boxed().toList();
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> idMembershipService.requireExistingPatients(oversized));
+        assertEquals("Between 1 and 100 patient IDs are required", exception.getMessage());
+        assertThrows(RuntimeException.class, () -> idMembershipService.requireExistingPatients(List.of()));
+    }
+
+    @Test
+    void registeredAndRemoved_ShouldUpdateIndexWithoutDatabase() {
+        idMembershipService.patientRemoved(42L);
+        idMembershipService.patientRemoved(70_000L);
+        idMembershipService.patientRegistered(5001L);
+
+        assertFalse(idMembershipService.patientExists(42L));
+        assertFalse(idMembershipService.patientExists(70_000L));
+        assertTrue(idMembershipService.patientExists(5001L));
+        assertTrue(idMembershipService.patientExists(4999L));
+        verify(patientRepository, never()).findExistingIds(anyCollection());
+    }
+}
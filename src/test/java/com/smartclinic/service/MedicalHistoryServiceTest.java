@@ -1,23 +1,57 @@
 package com.smartclinic.service;
 
+import com.smartclinic.codec.CompressingTextConverter;
+import com.smartclinic.codec.DeflateTextCodec;
+import com.smartclinic.codec.TextCodecs;
+import com.smartclinic.dto.DocumentVersion;
+import com.smartclinic.dto.MedicalHistoryChanges;
 import com.smartclinic.dto.MedicalHistoryRequest;
+import com.smartclinic.dto.MedicalRecordSearchHit;
 import com.smartclinic.model.MedicalHistory;
+import com.smartclinic.model.MedicalHistorySummary;
 import com.smartclinic.repository.mongodb.MedicalHistoryRepository;
-import com.smartclinic.repository.mysql.PatientRepository;
+import com.smartclinic.repository.mongodb.MedicalHistorySummaryRepository;
+import com.smartclinic.repository.mongodb.reactive.ReactiveMedicalHistoryRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,7 +61,26 @@ class MedicalHistoryServiceTest {
     private MedicalHistoryRepository medicalHistoryRepository;
 
     @Mock
-    private PatientRepository patientRepository;
+    private ReactiveMedicalHistoryRepository reactiveMedicalHistoryRepository;
+
+    @Mock
+    private MedicalHistorySummaryRepository medicalHistorySummaryRepository;
+
+    @Mock
+    private IdMembershipService idMembershipService;
+
+    @Mock
+    private MedicalHistorySequenceService medicalHistorySequenceService;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ReadCoalescer readCoalescer;
+
+    @Spy
+    private CompressingTextConverter compressingTextConverter = new CompressingTextConverter(
+        new DeflateTextCodec(), new TextCodecs(List.of(new DeflateTextCodec())), 4096);
 
     @InjectMocks
     private MedicalHistoryService medicalHistoryService;
@@ -37,6 +90,8 @@ class MedicalHistoryServiceTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(readCoalescer.execute(anyString(), any(), any()))
+            .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(2).get());
         // Create medical record DTO
         MedicalHistoryRequest.MedicalRecordDto recordDto = new MedicalHistoryRequest.MedicalRecordDto();
         recordDto.setRecordType("DIAGNOSIS");
@@ -70,9 +125,11 @@ class MedicalHistoryServiceTest {
     @Test
     void addMedicalRecord_ShouldReturnMedicalHistory_WhenValidRequestAndPatientExists() {
         // Arrange
-        when(patientRepository.existsById(1L)).thenReturn(true);
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
         when(medicalHistoryRepository.findByPatientId(1L)).thenReturn(Optional.empty());
         when(medicalHistoryRepository.save(any(MedicalHistory.class))).thenReturn(medicalHistory);
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(MedicalHistorySummary.class)))
+            .thenReturn(UpdateResult.acknowledged(0, 0L, new BsonString("1")));
 
         // Act
         MedicalHistory result = medicalHistoryService.addMedicalRecord(medicalHistoryRequest);
@@ -84,7 +141,7 @@ class MedicalHistoryServiceTest {
         assertNotNull(result.getRecords());
         assertEquals(1, result.getRecords().size());
         
-        verify(patientRepository, times(1)).existsById(1L);
+        verify(idMembershipService, times(1)).patientExists(1L);
         verify(medicalHistoryRepository, times(1)).findByPatientId(1L);
         verify(medicalHistoryRepository, times(1)).save(any(MedicalHistory.class));
     }
@@ -97,9 +154,11 @@ class MedicalHistoryServiceTest {
         existingHistory.setPatientId(1L);
         existingHistory.setRecords(new ArrayList<>());
         
-        when(patientRepository.existsById(1L)).thenReturn(true);
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
         when(medicalHistoryRepository.findByPatientId(1L)).thenReturn(Optional.of(existingHistory));
         when(medicalHistoryRepository.save(any(MedicalHistory.class))).thenReturn(existingHistory);
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(MedicalHistorySummary.class)))
+            .thenReturn(UpdateResult.acknowledged(1, 1L, null));
 
         // Act
         MedicalHistory result = medicalHistoryService.addMedicalRecord(medicalHistoryRequest);
@@ -109,7 +168,7 @@ class MedicalHistoryServiceTest {
         assertEquals(existingHistory.getId(), result.getId());
         assertEquals(existingHistory.getPatientId(), result.getPatientId());
         
-        verify(patientRepository, times(1)).existsById(1L);
+        verify(idMembershipService, times(1)).patientExists(1L);
         verify(medicalHistoryRepository, times(1)).findByPatientId(1L);
         verify(medicalHistoryRepository, times(1)).save(any(MedicalHistory.class));
     }
@@ -117,7 +176,7 @@ class MedicalHistoryServiceTest {
     @Test
     void addMedicalRecord_ShouldThrowException_WhenPatientNotFound() {
         // Arrange
-        when(patientRepository.existsById(1L)).thenReturn(false);
+        when(idMembershipService.patientExists(1L)).thenReturn(false);
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -125,7 +184,7 @@ class MedicalHistoryServiceTest {
         });
 
         assertEquals("Patient not found", exception.getMessage());
-        verify(patientRepository, times(1)).existsById(1L);
+        verify(idMembershipService, times(1)).patientExists(1L);
         verify(medicalHistoryRepository, never()).findByPatientId(any());
         verify(medicalHistoryRepository, never()).save(any());
     }
@@ -133,7 +192,7 @@ class MedicalHistoryServiceTest {
     @Test
     void getPatientMedicalHistory_ShouldReturnMedicalHistory_WhenPatientExists() {
         // Arrange
-        when(patientRepository.existsById(1L)).thenReturn(true);
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
         when(medicalHistoryRepository.findByPatientId(1L)).thenReturn(Optional.of(medicalHistory));
 
         // Act
@@ -144,14 +203,14 @@ class MedicalHistoryServiceTest {
         assertEquals(medicalHistory.getId(), result.get().getId());
         assertEquals(medicalHistory.getPatientId(), result.get().getPatientId());
         
-        verify(patientRepository, times(1)).existsById(1L);
+        verify(idMembershipService, times(1)).patientExists(1L);
         verify(medicalHistoryRepository, times(1)).findByPatientId(1L);
     }
 
     @Test
     void getPatientMedicalHistory_ShouldReturnEmpty_WhenNoHistoryExists() {
         // Arrange
-        when(patientRepository.existsById(1L)).thenReturn(true);
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
         when(medicalHistoryRepository.findByPatientId(1L)).thenReturn(Optional.empty());
 
         // Act
@@ -160,14 +219,14 @@ class MedicalHistoryServiceTest {
         // Assert
         assertFalse(result.isPresent());
         
-        verify(patientRepository, times(1)).existsById(1L);
+        verify(idMembershipService, times(1)).patientExists(1L);
         verify(medicalHistoryRepository, times(1)).findByPatientId(1L);
     }
 
     @Test
     void getPatientMedicalHistory_ShouldThrowException_WhenPatientNotFound() {
         // Arrange
-        when(patientRepository.existsById(1L)).thenReturn(false);
+        when(idMembershipService.patientExists(1L)).thenReturn(false);
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -175,7 +234,310 @@ class MedicalHistoryServiceTest {
         });
 
         assertEquals("Patient not found", exception.getMessage());
-        verify(patientRepository, times(1)).existsById(1L);
+        verify(idMembershipService, times(1)).patientExists(1L);
+        verify(medicalHistoryRepository, never()).findByPatientId(any());
+    }
+
+    @Test
+    void getPatientMedicalHistoryVersion_ShouldReadProjectionWithoutLoadingRecords() {
+        // Arrange
+        when(medicalHistoryRepository.findVersionByPatientId(1L)).thenReturn(Optional.of(new DocumentVersion("mh-1", 7L)));
+
+        // Act
+        Optional<DocumentVersion> result = medicalHistoryService.getPatientMedicalHistoryVersion(1L);
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals("mh-1", result.get().getId());
+        assertEquals(7L, result.get().getVersion());
         verify(medicalHistoryRepository, never()).findByPatientId(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getMedicalHistoryVersion_ShouldReturnEmpty_WhenHistoryDoesNotExist() {
+        when(medicalHistoryRepository.findVersionById("missing")).thenReturn(Optional.empty());
+
+        assertTrue(medicalHistoryService.getMedicalHistoryVersion("missing").isEmpty());
+        verify(medicalHistoryRepository, never()).findById(any());
+    }
+
+    @Test
+    void streamPatientRecords_ShouldEmitEachRecordOfTheChart() {
+        // Arrange
+        MedicalHistory history = new MedicalHistory();
+        history.setPatientId(1L);
+        history.setRecords(List.of(new MedicalHistory.MedicalRecord(), new MedicalHistory.MedicalRecord()));
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
+        when(reactiveMedicalHistoryRepository.findByPatientId(1L)).thenReturn(Mono.just(history));
+
+        // Act
+        List<MedicalHistory.MedicalRecord> streamed = medicalHistoryService.streamPatientRecords(1L).collectList().block();
+
+        // Assert
+        assertEquals(history.getRecords(), streamed);
+        verifyNoInteractions(medicalHistoryRepository);
+    }
+
+    @Test
+    void getMedicalHistoriesForPatients_ShouldOmitPatientsWithoutHistory() {
+        // Arrange
+        MedicalHistory history = new MedicalHistory();
+        history.setPatientId(2L);
+        when(idMembershipService.requireExistingPatients(List.of(1L, 2L))).thenReturn(new LinkedHashSet<>(List.of(1L, 2L)));
+        when(medicalHistoryRepository.findByPatientIdIn(anyCollection())).thenReturn(List.of(history));
+
+        // Act
+        Map<Long, MedicalHistory> result = medicalHistoryService.getMedicalHistoriesForPatients(List.of(1L, 2L));
+
+        // Assert
+        assertEquals(1, result.size());
+        assertSame(history, result.get(2L));
+    }
+
+    @Test
+    void getMedicalHistoriesForPatients_ShouldRejectOversizedBatch() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 101; id++) {
+            ids.add(id);
+        }
+        when(idMembershipService.requireExistingPatients(ids))
+            .thenThrow(new RuntimeException("Between 1 and 100 patient IDs are required"));
+
+        assertThrows(RuntimeException.class, () -> medicalHistoryService.getMedicalHistoriesForPatients(ids));
+        verifyNoInteractions(medicalHistoryRepository);
+    }
+
+    @Test
+    void searchMedicalRecords_ShouldReturnRankedHitsWithSnippets() {
+        // Arrange
+        ObjectId historyId = new ObjectId();
+        Document record = new Document("recordType", "DIAGNOSIS")
+            .append("doctorId", 7L)
+            .append("recordDate", new Date())
+            .append("description", "Patient reports metformin intolerance with GI upset");
+        Document hit = new Document("_id", historyId)
+            .append("patientId", 1L)
+            .append("recordIndex", 2L)
+            .append("score", 1.5)
+            .append("records", record);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("medical_history"), eq(Document.class)))
+            .thenReturn(new AggregationResults<>(List.of(hit), new Document()));
+
+        // Act
+        List<MedicalRecordSearchHit> result = medicalHistoryService.searchMedicalRecords(
+            "\"metformin intolerance\"", "DIAGNOSIS", 7L, 0, 20);
+
+        // Assert
+        assertEquals(1, result.size());
+        MedicalRecordSearchHit searchHit = result.get(0);
+        assertEquals(historyId.toHexString(), searchHit.getMedicalHistoryId());
+        assertEquals(1L, searchHit.getPatientId());
+        assertEquals(2, searchHit.getRecordIndex());
+        assertEquals(7L, searchHit.getDoctorId());
+        assertTrue(searchHit.getSnippet().contains("metformin intolerance"));
+
+        ArgumentCaptor<Aggregation> captor = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregate(captor.capture(), eq("medical_history"), eq(Document.class));
+        List<Document> pipeline = captor.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        Document firstStage = pipeline.get(0).get("$match", Document.class);
+        // The text index holds single words, so the phrase goes to $text unquoted and is checked per record
+        assertEquals("metformin intolerance", firstStage.get("$text", Document.class).getString("$search"));
+        assertNotNull(firstStage.get("records"));
+        assertEquals(new Document("records.recordType", "DIAGNOSIS").append("records.doctorId", 7L),
+            pipeline.get(2).get("$match", Document.class));
+        // Each record is scored on its plain term arrays, which are kept even when the text is compressed,
+        // matching on stems so "intolerant" in a record counts for "intolerance" in the query
+        String score = pipeline.get(3).toJson();
+        assertTrue(score.contains("$records.descriptionTerms"));
+        assertTrue(score.contains("$records.doctorNotesTerms"));
+        assertTrue(score.contains("\\\\Qintoler\\\\E"));
+        assertEquals(new Document("score", new Document("$gt", 0)), pipeline.get(4).get("$match", Document.class));
+        String phraseCheck = pipeline.get(5).toJson();
+        assertTrue(phraseCheck.contains("$regexMatch"));
+        assertTrue(phraseCheck.contains("\\\\Qmetformin\\\\E[^\\\\p{L}\\\\p{N}]+\\\\Qintolerance\\\\E"));
+        assertTrue(phraseCheck.contains("$setIsSubset"));
+        assertEquals(new Document("score", -1).append("records.recordDate", -1), pipeline.get(6).get("$sort", Document.class));
+    }
+
+    @Test
+    void searchMedicalRecords_ShouldBuildSnippetFromCompressedNotes() {
+        // Arrange
+        String notes = "Long dictated note. ".repeat(300) + "Started warfarin after the DVT diagnosis.";
+        Document record = new Document("recordType", "TREATMENT")
+            .append("description", "Anticoagulation")
+            .append("doctorNotes", new Document("codec", DeflateTextCodec.NAME)
+                .append("data", new Binary(new DeflateTextCodec().encode(notes))));
+        Document hit = new Document("_id", new ObjectId())
+            .append("patientId", 1L)
+            .append("records", record);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("medical_history"), eq(Document.class)))
+            .thenReturn(new AggregationResults<>(List.of(hit), new Document()));
+
+        // Act
+        List<MedicalRecordSearchHit> result = medicalHistoryService.searchMedicalRecords("warfarin", null, null, 0, 20);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertTrue(result.get(0).getSnippet().contains("Started warfarin"));
+    }
+
+    @Test
+    void searchMedicalRecords_ShouldThrowException_WhenQueryIsBlank() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            medicalHistoryService.searchMedicalRecords("  ", null, null, 0, 20);
+        });
+
+        assertEquals("Search query is required", exception.getMessage());
+        verify(mongoTemplate, never()).aggregate(any(Aggregation.class), any(String.class), any());
+    }
+
+    @Test
+    void addMedicalRecord_ShouldIncrementSummaryCountersAndSetLatestDiagnosis() {
+        // Arrange
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
+        when(medicalHistoryRepository.findByPatientId(1L)).thenReturn(Optional.empty());
+        when(medicalHistoryRepository.save(any(MedicalHistory.class))).thenReturn(medicalHistory);
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(MedicalHistorySummary.class)))
+            .thenReturn(UpdateResult.acknowledged(0, 0L, new BsonString("1")));
+
+        // Act
+        medicalHistoryService.addMedicalRecord(medicalHistoryRequest);
+
+        // Assert
+        ArgumentCaptor<Update> captor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(any(Query.class), captor.capture(), eq(MedicalHistorySummary.class));
+        Document update = captor.getValue().getUpdateObject();
+        assertEquals(1, update.get("$inc", Document.class).get("totalRecords"));
+        assertEquals(1, update.get("$inc", Document.class).get("recordCountsByType.DIAGNOSIS"));
+        assertNotNull(update.get("$max", Document.class).get("lastRecordDate"));
+        assertNotNull(update.get("$set", Document.class).get("latestDiagnosis"));
+        // A brand-new history never needs the one-off rebuild
+        verify(medicalHistorySummaryRepository, never()).save(any());
+    }
+
+    @Test
+    void deleteMedicalRecord_ShouldDecrementSummaryAndRecomputeLatestDiagnosis() {
+        // Arrange
+        when(medicalHistoryRepository.findById("history123")).thenReturn(Optional.of(medicalHistory));
+        when(medicalHistoryRepository.save(any(MedicalHistory.class))).thenReturn(medicalHistory);
+
+        // Act
+        MedicalHistory result = medicalHistoryService.deleteMedicalRecord("history123", 0);
+
+        // Assert
+        assertTrue(result.getRecords().isEmpty());
+        ArgumentCaptor<Update> captor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), captor.capture(), eq(MedicalHistorySummary.class));
+        Document update = captor.getValue().getUpdateObject();
+        assertEquals(-1, update.get("$inc", Document.class).get("totalRecords"));
+        assertEquals(-1, update.get("$inc", Document.class).get("recordCountsByType.DIAGNOSIS"));
+        assertTrue(update.get("$set", Document.class).containsKey("latestDiagnosis"));
+        assertNull(update.get("$set", Document.class).get("latestDiagnosis"));
+    }
+
+    @Test
+    void getPatientSummary_ShouldBuildSummaryFromHistory_WhenSummaryMissing() {
+        // Arrange
+        when(medicalHistorySummaryRepository.findById(1L)).thenReturn(Optional.empty());
+        when(medicalHistoryRepository.findByPatientId(1L)).thenReturn(Optional.of(medicalHistory));
+        when(medicalHistorySummaryRepository.save(any(MedicalHistorySummary.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Optional<MedicalHistorySummary> result = medicalHistoryService.getPatientSummary(1L);
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals(1L, result.get().getTotalRecords());
+        assertEquals(1L, result.get().getRecordCountsByType().get("DIAGNOSIS"));
+        assertEquals("High blood pressure", result.get().getLatestDiagnosis().getDescription());
+        assertTrue(result.get().getActiveTreatments().isEmpty());
+    }
+
+    @Test
+    void updateMedicalRecord_ShouldNotRetry_WhenPinnedVersionLosesRace() {
+        // Arrange
+        medicalHistory.setVersion(2L);
+        when(medicalHistoryRepository.findById("history123")).thenReturn(Optional.of(medicalHistory));
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
+        when(medicalHistoryRepository.save(any(MedicalHistory.class)))
+            .thenThrow(new OptimisticLockingFailureException("stale"));
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> {
+            medicalHistoryService.updateMedicalRecord("history123", medicalHistoryRequest, 2L);
+        });
+
+        verify(medicalHistoryRepository, times(1)).save(any(MedicalHistory.class));
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(MedicalHistorySummary.class));
+    }
+
+    @Test
+    void deleteMedicalRecord_ShouldLeaveTombstoneWithNewSequence() {
+        // Arrange
+        medicalHistory.getRecords().get(0).setRecordId("record-1");
+        when(medicalHistoryRepository.findById("history123")).thenReturn(Optional.of(medicalHistory));
+        when(medicalHistoryRepository.save(any(MedicalHistory.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(medicalHistorySequenceService.next(1L)).thenReturn(9L);
+
+        // Act
+        MedicalHistory result = medicalHistoryService.deleteMedicalRecord("history123", 0);
+
+        // Assert
+        assertEquals(9L, result.getChangeSequence());
+        assertEquals(1, result.getDeletedRecords().size());
+        assertEquals("record-1", result.getDeletedRecords().get(0).getRecordId());
+        assertEquals(9L, result.getDeletedRecords().get(0).getSequence());
+    }
+
+    @Test
+    void getMedicalHistoryChanges_ShouldReturnOnlyDelta() {
+        // Arrange
+        Document delta = new Document("_id", "history123")
+            .append("patientId", 1L)
+            .append("changeSequence", 12L)
+            .append("tombstoneFloor", 1L)
+            .append("records", List.of(new Document("recordId", "record-2").append("sequence", 12L)))
+            .append("deletedRecords", List.of(new Document("recordId", "record-1").append("sequence", 11L)));
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("medical_history"), eq(Document.class)))
+            .thenReturn(new AggregationResults<>(List.of(delta), new Document()));
+        when(mongoTemplate.getConverter()).thenReturn(mongoConverter());
+
+        // Act
+        MedicalHistoryChanges result = medicalHistoryService.getMedicalHistoryChanges(1L, 10L);
+
+        // Assert
+        assertFalse(result.isFullResync());
+        assertEquals(12L, result.getSequence());
+        assertEquals(1, result.getChangedRecords().size());
+        assertEquals("record-2", result.getChangedRecords().get(0).getRecordId());
+        assertEquals(List.of("record-1"), result.getDeletedRecordIds());
+    }
+
+    @Test
+    void getMedicalHistoryChanges_ShouldRequestFullResync_WhenHistoryWasDeleted() {
+        // Arrange
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("medical_history"), eq(Document.class)))
+            .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+        // Act
+        MedicalHistoryChanges result = medicalHistoryService.getMedicalHistoryChanges(1L, 10L);
+
+        // Assert
+        assertTrue(result.isFullResync());
+        assertTrue(result.getChangedRecords().isEmpty());
+    }
+
+    private MappingMongoConverter mongoConverter() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+}
@@ -0,0 +1,105 @@
+package com.smartclinic.service;
+
+import com.smartclinic.dto.DashboardSection;
+import com.smartclinic.dto.PatientDashboard;
+import com.smartclinic.model.Appointment;
+import com.smartclinic.model.MedicalHistory;
+import com.smartclinic.model.Prescription;
+import com.smartclinic.repository.mongodb.MedicalHistoryRepository;
+import com.smartclinic.repository.mongodb.PrescriptionRepository;
+import com.smartclinic.repository.mysql.AppointmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientDashboardServiceTest {
+
+    @Mock
+    private IdMembershipService idMembershipService;
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    @Mock
+    private PrescriptionRepository prescriptionRepository;
+
+    @Mock
+    private MedicalHistoryRepository medicalHistoryRepository;
+
+    private PatientDashboardService patientDashboardService;
+
+    @BeforeEach
+    void setUp() {
+        patientDashboardService = new PatientDashboardService(idMembershipService, appointmentRepository,
+            prescriptionRepository, medicalHistoryRepository, Duration.ofMillis(300));
+    }
+
+    @AfterEach
+    void tearDown() {
+        patientDashboardService.shutdown();
+    }
+
+    @Test
+    void getDashboard_ShouldReturnAllSections_WhenEveryReadSucceeds() {
+        // Arrange
+        MedicalHistory history = new MedicalHistory();
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
+        when(appointmentRepository.findByPatientId(1L)).thenReturn(List.of(new Appointment()));
+        when(prescriptionRepository.findByPatientIdOrderByCreatedAtDesc(1L)).thenReturn(List.of(new Prescription()));
+        when(medicalHistoryRepository.findByPatientId(1L)).thenReturn(Optional.of(history));
+
+        // Act
+        PatientDashboard dashboard = patientDashboardService.getDashboard(1L);
+
+        // Assert
+        assertTrue(dashboard.isComplete());
+        assertEquals(1, dashboard.getAppointments().getData().size());
+        assertEquals(1, dashboard.getPrescriptions().getData().size());
+        assertSame(history, dashboard.getMedicalHistory().getData());
+        verify(idMembershipService, times(1)).patientExists(1L);
+    }
+
+    @Test
+    void getDashboard_ShouldReturnPartialResult_WhenOneStoreIsSlowAndAnotherFails() {
+        // Arrange
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
+        when(appointmentRepository.findByPatientId(1L)).thenReturn(List.of());
+        when(prescriptionRepository.findByPatientIdOrderByCreatedAtDesc(1L)).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return List.of();
+        });
+        when(medicalHistoryRepository.findByPatientId(1L)).thenThrow(new RuntimeException("Timed out connecting to mongo-0:27017"));
+
+        // Act
+        long started = System.nanoTime();
+        PatientDashboard dashboard = patientDashboardService.getDashboard(1L);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        // Assert
+        assertFalse(dashboard.isComplete());
+        assertEquals(DashboardSection.Status.OK, dashboard.getAppointments().getStatus());
+        assertEquals(DashboardSection.Status.TIMED_OUT, dashboard.getPrescriptions().getStatus());
+        assertEquals(DashboardSection.Status.FAILED, dashboard.getMedicalHistory().getStatus());
+        assertEquals("Unavailable", dashboard.getMedicalHistory().getError());
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(2)) < 0, "waited " + elapsed);
+    }
+
+    @Test
+    void getDashboard_ShouldThrowException_WhenPatientNotFound() {
+        when(idMembershipService.patientExists(1L)).thenReturn(false);
+
+        assertThrows(RuntimeException.class, () -> patientDashboardService.getDashboard(1L));
+        verifyNoInteractions(appointmentRepository, prescriptionRepository, medicalHistoryRepository);
+    }
+}
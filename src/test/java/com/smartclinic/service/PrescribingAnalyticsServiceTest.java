@@ -0,0 +1,129 @@
+package com.smartclinic.service;
+
+import com.smartclinic.dto.DrugPrescriptionCount;
+import com.smartclinic.model.PrescribingRollup;
+import com.smartclinic.model.Prescription;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PrescribingAnalyticsServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private PrescribingAnalyticsService prescribingAnalyticsService;
+
+    @Test
+    void keysOf_ShouldCountEachDrugOncePlusTheDailyTotal() {
+        // Arrange
+        Prescription prescription = prescription(7L, "Amoxicillin", "Ibuprofen", "Amoxicillin");
+
+        // Act
+        Set<PrescribingAnalyticsService.RollupKey> keys = prescribingAnalyticsService.keysOf(prescription);
+
+        // Assert
+        LocalDate day = LocalDate.of(2026, 10, 19);
+        assertEquals(Set.of(
+            new PrescribingAnalyticsService.RollupKey(day, 7L, null),
+            new PrescribingAnalyticsService.RollupKey(day, 7L, "Amoxicillin"),
+            new PrescribingAnalyticsService.RollupKey(day, 7L, "Ibuprofen")), keys);
+    }
+
+    @Test
+    void recordChanged_ShouldIncrementOnlyTheRollupsThatDiffer() {
+        // Arrange
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PrescribingRollup.class)).thenReturn(bulk);
+        Prescription before = prescription(7L, "Amoxicillin", "Ibuprofen");
+        Prescription after = prescription(7L, "Amoxicillin", "Paracetamol");
+
+        // Act
+        prescribingAnalyticsService.recordChanged(
+            prescribingAnalyticsService.keysOf(before), prescribingAnalyticsService.keysOf(after));
+
+        // Assert
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(2)).upsert(queries.capture(), updates.capture());
+        verify(bulk).execute();
+        Map<Object, Object> increments = new HashMap<>();
+        for (int i = 0; i < 2; i++) {
+            increments.put(queries.getAllValues().get(i).getQueryObject().get("_id"),
+                updates.getAllValues().get(i).getUpdateObject().get("$inc", Document.class).get("prescriptions"));
+        }
+        assertEquals(Map.of("2026-10-19|7|Ibuprofen", -1, "2026-10-19|7|Paracetamol", 1), increments);
+    }
+
+    @Test
+    void recordChanged_ShouldNotWrite_WhenRollupsAreUnchanged() {
+        // Arrange
+        Set<PrescribingAnalyticsService.RollupKey> keys = prescribingAnalyticsService.keysOf(prescription(7L, "Amoxicillin"));
+
+        // Act
+        prescribingAnalyticsService.recordChanged(keys, keys);
+
+        // Assert
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getTopDrugs_ShouldReadRollupsForTheWholeWeek() {
+        // Arrange
+        List<DrugPrescriptionCount> expected = List.of(new DrugPrescriptionCount("Amoxicillin", 12));
+        when(mongoTemplate.aggregate(any(TypedAggregation.class), eq(DrugPrescriptionCount.class)))
+            .thenReturn(new AggregationResults<>(expected, new Document()));
+
+        // Act
+        List<DrugPrescriptionCount> result = prescribingAnalyticsService.getTopDrugs(7L, LocalDate.of(2026, 10, 22), 5);
+
+        // Assert
+        assertEquals(expected, result);
+        ArgumentCaptor<TypedAggregation<PrescribingRollup>> aggregation = ArgumentCaptor.forClass(TypedAggregation.class);
+        verify(mongoTemplate).aggregate(aggregation.capture(), eq(DrugPrescriptionCount.class));
+        Document match = aggregation.getValue().getPipeline().getOperations().get(0)
+            .toPipelineStages(Aggregation.DEFAULT_CONTEXT).get(0)
+            .get("$match", Document.class);
+        assertEquals(7L, match.get("doctorId"));
+        Document day = match.get("day", Document.class);
+        assertEquals(LocalDate.of(2026, 10, 19), day.get("$gte"));
+        assertEquals(LocalDate.of(2026, 10, 25), day.get("$lte"));
+    }
+
+    private static Prescription prescription(Long doctorId, String... drugs) {
+        Prescription prescription = new Prescription();
+        prescription.setDoctorId(doctorId);
+        prescription.setCreatedAt(LocalDateTime.of(2026, 10, 19, 9, 30));
+        prescription.setMedicineList(Arrays.stream(drugs)
+            .map(drug -> new Prescription.Medicine(drug, "1 tablet", "Once daily", 5, null))
+            .toList());
+        return prescription;
+    }
+}
@@ -0,0 +1,258 @@
+package com.smartclinic.service;
+
+import com.smartclinic.model.Prescription;
+import com.smartclinic.model.PrescriptionRevision;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PrescriptionRevisionServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private PrescriptionRevisionService prescriptionRevisionService;
+
+    private final MappingMongoConverter converter = mongoConverter();
+    private Prescription prescription;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(mongoTemplate.getConverter()).thenReturn(converter);
+
+        prescription = new Prescription();
+        prescription.setId("prescription123");
+        prescription.setVersion(0L);
+        prescription.setPatientId(1L);
+        prescription.setDoctorId(2L);
+        prescription.setNotes("Follow up in 2 weeks");
+        prescription.setCreatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+        prescription.setMedicineList(new ArrayList<>(List.of(
+            new Prescription.Medicine("Amoxicillin", "500mg", "Three times daily", 7, null),
+            new Prescription.Medicine("Ibuprofen", "200mg", "As needed", 5, "Take with food"))));
+    }
+
+    @Test
+    void recordUpdated_ShouldStoreOnlyChangedPaths() {
+        // Arrange
+        when(mongoTemplate.exists(any(Query.class), eq(PrescriptionRevision.class))).thenReturn(true);
+        Document before = prescriptionRevisionService.state(prescription);
+        prescription.setNotes("Review after lab results");
+        prescription.getMedicineList().get(1).setDosage("400mg");
+        prescription.setVersion(1L);
+
+        // Act
+        prescriptionRevisionService.recordUpdated(before, 0L, prescription);
+
+        // Assert
+        PrescriptionRevision delta = stored(capturedRevisions(1).get(0));
+        assertFalse(delta.isSnapshot());
+        assertNull(delta.getState());
+        assertEquals(Set.of("notes", "medicineList.1.dosage"),
+            delta.getChanges().stream().map(PrescriptionRevision.FieldChange::getPath).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void rebuild_ShouldApplyDeltasOnNearestSnapshot() {
+        // Arrange
+        when(mongoTemplate.exists(any(Query.class), eq(PrescriptionRevision.class))).thenReturn(true);
+        prescriptionRevisionService.recordCreated(prescription);
+
+        Document v0 = prescriptionRevisionService.state(prescription);
+        prescription.getMedicineList().get(0).setDosage("250mg");
+        prescription.setVersion(1L);
+        prescriptionRevisionService.recordUpdated(v0, 0L, prescription);
+
+        Document v1 = prescriptionRevisionService.state(prescription);
+        prescription.getMedicineList().add(new Prescription.Medicine("Paracetamol", "1g", "Every 6 hours", 3, null));
+        prescription.setNotes(null);
+        prescription.setVersion(2L);
+        prescriptionRevisionService.recordUpdated(v1, 1L, prescription);
+
+        List<PrescriptionRevision> stored = capturedRevisions(3).stream().map(this::stored).toList();
+        when(mongoTemplate.findOne(any(Query.class), eq(PrescriptionRevision.class))).thenReturn(stored.get(0));
+        when(mongoTemplate.find(any(Query.class), eq(PrescriptionRevision.class)))
+            .thenReturn(List.of(stored.get(1)))
+            .thenReturn(List.of(stored.get(1), stored.get(2)));
+
+        // Act
+        Prescription atVersion1 = prescriptionRevisionService.rebuild("prescription123", 1L);
+        Prescription atVersion2 = prescriptionRevisionService.rebuild("prescription123", 2L);
+
+        // Assert
+        assertEquals(1L, atVersion1.getVersion());
+        assertEquals("250mg", atVersion1.getMedicineList().get(0).getDosage());
+        assertEquals(2, atVersion1.getMedicineList().size());
+        assertEquals("Follow up in 2 weeks", atVersion1.getNotes());
+        assertEquals(prescription.getCreatedAt(), atVersion1.getCreatedAt());
+
+        assertEquals(3, atVersion2.getMedicineList().size());
+        assertEquals("Paracetamol", atVersion2.getMedicineList().get(2).getName());
+        assertNull(atVersion2.getNotes());
+    }
+
+    @Test
+    void recordUpdated_ShouldStartHistoryForLegacyPrescription_AndSnapshotPeriodically() {
+        // Arrange
+        when(mongoTemplate.exists(any(Query.class), eq(PrescriptionRevision.class))).thenReturn(false);
+        Document before = prescriptionRevisionService.state(prescription);
+        prescription.setNotes("Changed");
+        prescription.setVersion((long) PrescriptionRevisionService.SNAPSHOT_INTERVAL);
+
+        // Act
+        prescriptionRevisionService.recordUpdated(before, 9L, prescription);
+
+        // Assert
+        List<PrescriptionRevision> revisions = capturedRevisions(2);
+        assertTrue(revisions.get(0).isSnapshot());
+        assertEquals(9L, revisions.get(0).getVersion());
+        assertEquals("Follow up in 2 weeks", revisions.get(0).getState().getString("notes"));
+        assertTrue(revisions.get(1).isSnapshot());
+        assertEquals("Changed", revisions.get(1).getState().getString("notes"));
+    }
+
+    @Test
+    void recordUpdated_ShouldSnapshotReplacedState_WhenItsRevisionWasNeverRecorded() {
+        // Arrange
+        when(mongoTemplate.exists(any(Query.class), eq(PrescriptionRevision.class))).thenReturn(false);
+        Document before = prescriptionRevisionService.state(prescription);
+        prescription.getMedicineList().get(0).setDosage("250mg");
+        prescription.setVersion(5L);
+
+        // Act
+        prescriptionRevisionService.recordUpdated(before, 4L, prescription);
+
+        // Assert
+        ArgumentCaptor<Query> existsQuery = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).exists(existsQuery.capture(), eq(PrescriptionRevision.class));
+        assertEquals(4L, existsQuery.getValue().getQueryObject().get("version"));
+        List<PrescriptionRevision> revisions = capturedRevisions(2);
+        assertTrue(revisions.get(0).isSnapshot());
+        assertEquals(4L, revisions.get(0).getVersion());
+        assertEquals(5L, revisions.get(1).getVersion());
+        assertFalse(revisions.get(1).isSnapshot());
+    }
+
+    @Test
+    void recordUpdated_ShouldNotFail_WhenRevisionWriteFails() {
+        // Arrange
+        when(mongoTemplate.exists(any(Query.class), eq(PrescriptionRevision.class))).thenReturn(true);
+        when(mongoTemplate.insert(any(PrescriptionRevision.class))).thenThrow(new DataAccessResourceFailureException("down"));
+        Document before = prescriptionRevisionService.state(prescription);
+        prescription.setNotes("Changed");
+        prescription.setVersion(1L);
+
+        // Act & Assert
+        assertDoesNotThrow(() -> prescriptionRevisionService.recordUpdated(before, 0L, prescription));
+    }
+
+    @Test
+    void rebuild_ShouldAnswerFromLivePrescription_WhenCurrentVersionHasNoRevision() {
+        // Arrange
+        prescription.setVersion(3L);
+        when(mongoTemplate.findOne(any(Query.class), eq(PrescriptionRevision.class))).thenReturn(null);
+        when(mongoTemplate.findById("prescription123", Prescription.class)).thenReturn(prescription);
+
+        // Act
+        Prescription atVersion3 = prescriptionRevisionService.rebuild("prescription123", 3L);
+
+        // Assert
+        assertSame(prescription, atVersion3);
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> prescriptionRevisionService.rebuild("prescription123", 2L));
+        assertEquals("Revision not found", exception.getMessage());
+    }
+
+    @Test
+    void recordDeleted_ShouldAppendTombstoneHoldingFinalState() {
+        // Arrange
+        prescription.setVersion(4L);
+
+        // Act
+        prescriptionRevisionService.recordDeleted(prescription);
+
+        // Assert
+        PrescriptionRevision tombstone = stored(capturedRevisions(1).get(0));
+        assertEquals("prescription123", tombstone.getPrescriptionId());
+        assertEquals(5L, tombstone.getVersion());
+        assertTrue(tombstone.isDeleted());
+        assertTrue(tombstone.isSnapshot());
+        assertEquals(prescriptionRevisionService.state(prescription), tombstone.getState());
+    }
+
+    @Test
+    void rebuild_ShouldAnswerFromTombstone_WhenFinalVersionHasNoRevision() {
+        // Arrange
+        prescription.setVersion(4L);
+        PrescriptionRevision tombstone = new PrescriptionRevision();
+        tombstone.setPrescriptionId("prescription123");
+        tombstone.setVersion(5L);
+        tombstone.setSnapshot(true);
+        tombstone.setDeleted(true);
+        tombstone.setState(prescriptionRevisionService.state(prescription));
+        when(mongoTemplate.findOne(any(Query.class), eq(PrescriptionRevision.class))).thenReturn(null, tombstone, tombstone);
+
+        // Act
+        Prescription atVersion4 = prescriptionRevisionService.rebuild("prescription123", 4L);
+
+        // Assert
+        assertEquals(4L, atVersion4.getVersion());
+        assertEquals("Follow up in 2 weeks", atVersion4.getNotes());
+        assertEquals(2, atVersion4.getMedicineList().size());
+        // The tombstone itself is not a version that can be rebuilt
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> prescriptionRevisionService.rebuild("prescription123", 5L));
+        assertEquals("Revision not found", exception.getMessage());
+    }
+
+    private List<PrescriptionRevision> capturedRevisions(int count) {
+        ArgumentCaptor<PrescriptionRevision> captor = ArgumentCaptor.forClass(PrescriptionRevision.class);
+        verify(mongoTemplate, times(count)).insert(captor.capture());
+        return captor.getAllValues();
+    }
+
+    /**
+     * Round-trips a revision through the converter, as storing and reading it back would
+     */
+    private PrescriptionRevision stored(PrescriptionRevision revision) {
+        Document document = new Document();
+        converter.write(revision, document);
+        return converter.read(PrescriptionRevision.class, document);
+    }
+
+    private MappingMongoConverter mongoConverter() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+}
@@ -1,23 +1,53 @@
 package com.smartclinic.service;
 
+import com.smartclinic.dto.ActiveMedication;
+import com.smartclinic.dto.BulkPrescriptionResult;
+import com.smartclinic.dto.CursorPage;
+import com.smartclinic.dto.DocumentVersion;
+import com.smartclinic.dto.PrescriptionPatchRequest;
 import com.smartclinic.dto.PrescriptionRequest;
+import com.smartclinic.interaction.InteractionWarning;
 import com.smartclinic.model.Prescription;
+import com.smartclinic.projection.SparseFieldset;
 import com.smartclinic.repository.mongodb.PrescriptionRepository;
-import com.smartclinic.repository.mysql.DoctorRepository;
-import com.smartclinic.repository.mysql.PatientRepository;
+import com.smartclinic.repository.mongodb.reactive.ReactivePrescriptionRepository;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.BsonDocument;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,10 +57,28 @@ class PrescriptionServiceTest {
     private PrescriptionRepository prescriptionRepository;
 
     @Mock
-    private PatientRepository patientRepository;
+    private ReactivePrescriptionRepository reactivePrescriptionRepository;
 
     @Mock
-    private DoctorRepository doctorRepository;
+    private IdMembershipService idMembershipService;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private DrugInteractionService drugInteractionService;
+
+    @Mock
+    private FormularyService formularyService;
+
+    @Mock
+    private PrescriptionRevisionService prescriptionRevisionService;
+
+    @Mock
+    private PrescribingAnalyticsService prescribingAnalyticsService;
+
+    @Mock
+    private ReadCoalescer readCoalescer;
 
     @InjectMocks
     private PrescriptionService prescriptionService;
@@ -40,6 +88,10 @@ class PrescriptionServiceTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(readCoalescer.execute(anyString(), any(), any()))
+            .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(2).get());
+        lenient().when(formularyService.canonicalize(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+
         // Create medicine DTOs
         PrescriptionRequest.MedicineDto medicine1 = new PrescriptionRequest.MedicineDto();
         medicine1.setName("Medication A");
@@ -88,8 +140,8 @@ class PrescriptionServiceTest {
     @Test
     void createPrescription_ShouldReturnPrescription_WhenValidRequest() {
         // Arrange
-        when(patientRepository.existsById(1L)).thenReturn(true);
-        when(doctorRepository.existsById(1L)).thenReturn(true);
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
+        when(idMembershipService.doctorExists(1L)).thenReturn(true);
         when(prescriptionRepository.save(any(Prescription.class))).thenReturn(prescription);
 
         // Act
@@ -103,15 +155,122 @@ class PrescriptionServiceTest {
         assertEquals(prescription.getMedicineList().size(), result.getMedicineList().size());
         assertEquals(prescription.getNotes(), result.getNotes());
         
-        verify(patientRepository, times(1)).existsById(1L);
-        verify(doctorRepository, times(1)).existsById(1L);
+        verify(idMembershipService, times(1)).patientExists(1L);
+        verify(idMembershipService, times(1)).doctorExists(1L);
         verify(prescriptionRepository, times(1)).save(any(Prescription.class));
     }
 
+    @Test
+    void createPrescription_ShouldReturnInteractionWarnings() {
+        // Arrange
+        InteractionWarning warning = new InteractionWarning("Medication A", "Medication B", "MAJOR", "Bleeding risk", null);
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
+        when(idMembershipService.doctorExists(1L)).thenReturn(true);
+        when(drugInteractionService.checkNewPrescription(eq(1L), anyList())).thenReturn(List.of(warning));
+        when(prescriptionRepository.save(any(Prescription.class))).thenReturn(prescription);
+
+        // Act
+        Prescription result = prescriptionService.createPrescription(prescriptionRequest);
+
+        // Assert
+        assertEquals(List.of(warning), result.getInteractionWarnings());
+    }
+
+    @Test
+    void createPrescription_ShouldComputeEndDatesFromDurations() {
+        // Arrange
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
+        when(idMembershipService.doctorExists(1L)).thenReturn(true);
+        when(prescriptionRepository.save(any(Prescription.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Prescription result = prescriptionService.createPrescription(prescriptionRequest);
+
+        // Assert
+        LocalDateTime createdAt = result.getCreatedAt();
+        assertEquals(createdAt.plusDays(7), result.getMedicineList().get(0).getEndsAt());
+        assertEquals(createdAt.plusDays(14), result.getMedicineList().get(1).getEndsAt());
+        assertEquals(createdAt.plusDays(14), result.getEndsAt());
+
+        prescriptionRequest.getMedicineList().get(1).setDuration(null);
+        Prescription openEnded = prescriptionService.createPrescription(prescriptionRequest);
+        assertNull(openEnded.getMedicineList().get(1).getEndsAt());
+        assertNull(openEnded.getEndsAt());
+    }
+
+    @Test
+    void getActiveMedications_ShouldReturnOnlyMedicinesThatHaveNotEnded() {
+        // Arrange
+        prescription.getMedicineList().get(0).setEndsAt(LocalDateTime.now().minusDays(1));
+        prescription.getMedicineList().get(1).setEndsAt(LocalDateTime.now().plusDays(3));
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
+        when(prescriptionRepository.findActiveByPatientIds(eq(List.of(1L)), any(LocalDateTime.class)))
+            .thenReturn(List.of(prescription));
+
+        // Act
+        List<ActiveMedication> medications = prescriptionService.getActiveMedications(1L);
+
+        // Assert
+        assertEquals(1, medications.size());
+        assertEquals("Medication B", medications.get(0).getName());
+        assertEquals("prescription123", medications.get(0).getPrescriptionId());
+    }
+
+    @Test
+    void streamPatientPrescriptions_ShouldStreamFromReactiveRepository() {
+        // Arrange
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
+        when(reactivePrescriptionRepository.findByPatientIdOrderByCreatedAtDesc(1L)).thenReturn(Flux.just(prescription));
+
+        // Act
+        List<Prescription> streamed = prescriptionService.streamPatientPrescriptions(1L).collectList().block();
+
+        // Assert
+        assertEquals(List.of(prescription), streamed);
+        verifyNoInteractions(prescriptionRepository);
+    }
+
+    @Test
+    void streamPatientPrescriptions_ShouldFailBeforeStreaming_WhenPatientNotFound() {
+        when(idMembershipService.patientExists(1L)).thenReturn(false);
+
+        assertThrows(RuntimeException.class, () -> prescriptionService.streamPatientPrescriptions(1L));
+        verifyNoInteractions(reactivePrescriptionRepository);
+    }
+
+    @Test
+    void getPrescriptionsForPatients_ShouldGroupByPatientInRequestOrder() {
+        // Arrange
+        when(idMembershipService.requireExistingPatients(List.of(2L, 1L, 2L))).thenReturn(new LinkedHashSet<>(List.of(2L, 1L)));
+        when(prescriptionRepository.findByPatientIdInOrderByCreatedAtDesc(anyCollection())).thenReturn(List.of(prescription));
+
+        // Act
+        Map<Long, List<Prescription>> result = prescriptionService.getPrescriptionsForPatients(List.of(2L, 1L, 2L));
+
+        // Assert
+        assertEquals(List.of(2L, 1L), List.copyOf(result.keySet()));
+        assertTrue(result.get(2L).isEmpty());
+        assertEquals(List.of(prescription), result.get(1L));
+        verify(prescriptionRepository, times(1)).findByPatientIdInOrderByCreatedAtDesc(anyCollection());
+    }
+
+    @Test
+    void getPrescriptionsForPatients_ShouldListUnknownPatients() {
+        // Arrange
+        when(idMembershipService.requireExistingPatients(List.of(1L, 7L, 3L)))
+            .thenThrow(new RuntimeException("Patients not found: [3, 7]"));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> prescriptionService.getPrescriptionsForPatients(List.of(1L, 7L, 3L)));
+        assertEquals("Patients not found: [3, 7]", exception.getMessage());
+        verify(prescriptionRepository, never()).findByPatientIdInOrderByCreatedAtDesc(anyCollection());
+    }
+
     @Test
     void createPrescription_ShouldThrowException_WhenPatientNotFound() {
         // Arrange
-        when(patientRepository.existsById(1L)).thenReturn(false);
+        when(idMembershipService.patientExists(1L)).thenReturn(false);
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -119,16 +278,16 @@ class PrescriptionServiceTest {
         });
 
         assertEquals("Patient not found", exception.getMessage());
-        verify(patientRepository, times(1)).existsById(1L);
-        verify(doctorRepository, never()).existsById(any());
+        verify(idMembershipService, times(1)).patientExists(1L);
+        verify(idMembershipService, never()).doctorExists(any());
         verify(prescriptionRepository, never()).save(any());
     }
 
     @Test
     void createPrescription_ShouldThrowException_WhenDoctorNotFound() {
         // Arrange
-        when(patientRepository.existsById(1L)).thenReturn(true);
-        when(doctorRepository.existsById(1L)).thenReturn(false);
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
+        when(idMembershipService.doctorExists(1L)).thenReturn(false);
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -136,16 +295,115 @@ class PrescriptionServiceTest {
         });
 
         assertEquals("Doctor not found", exception.getMessage());
-        verify(patientRepository, times(1)).existsById(1L);
-        verify(doctorRepository, times(1)).existsById(1L);
+        verify(idMembershipService, times(1)).patientExists(1L);
+        verify(idMembershipService, times(1)).doctorExists(1L);
+        verify(prescriptionRepository, never()).save(any());
+    }
+
+    @Test
+    void createPrescriptions_ShouldValidateIdsInOneCallAndInsertUnordered() {
+        // Arrange
+        PrescriptionRequest unknownPatient = new PrescriptionRequest(9L, 1L, prescriptionRequest.getMedicineList(), null);
+        PrescriptionRequest unknownDoctor = new PrescriptionRequest(1L, 8L, prescriptionRequest.getMedicineList(), null);
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        when(idMembershipService.findMissingPatients(anyCollection())).thenReturn(Set.of(9L));
+        when(idMembershipService.findMissingDoctors(anyCollection())).thenReturn(Set.of(8L));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Prescription.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+
+        // Act
+        List<BulkPrescriptionResult> results = prescriptionService.createPrescriptions(
+            List.of(prescriptionRequest, unknownPatient, unknownDoctor, prescriptionRequest));
+
+        // Assert
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isCreated());
+        assertNotNull(results.get(0).getPrescriptionId());
+        assertEquals("Patient not found", results.get(1).getError());
+        assertEquals("Doctor not found", results.get(2).getError());
+        assertTrue(results.get(3).isCreated());
+        assertEquals(3, results.get(3).getIndex());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Prescription>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations).insert(inserted.capture());
+        assertEquals(2, inserted.getValue().size());
+        assertEquals(0L, inserted.getValue().get(0).getVersion());
+        verify(bulkOperations).execute();
+        verify(idMembershipService, times(1)).findMissingPatients(Set.of(1L, 9L));
+        verify(idMembershipService, times(1)).findMissingDoctors(Set.of(1L, 8L));
+        verify(idMembershipService, never()).patientExists(any());
         verify(prescriptionRepository, never()).save(any());
     }
 
+    @Test
+    void createPrescriptions_ShouldReportWriteErrorsPerItem() {
+        // Arrange
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        BulkOperationException failure = mock(BulkOperationException.class);
+        when(failure.getErrors()).thenReturn(List.of(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1)));
+        when(idMembershipService.findMissingPatients(anyCollection())).thenReturn(Set.of());
+        when(idMembershipService.findMissingDoctors(anyCollection())).thenReturn(Set.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Prescription.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(failure);
+
+        // Act
+        List<BulkPrescriptionResult> results = prescriptionService.createPrescriptions(
+            List.of(prescriptionRequest, prescriptionRequest, prescriptionRequest));
+
+        // Assert
+        assertTrue(results.get(0).isCreated());
+        assertFalse(results.get(1).isCreated());
+        assertEquals("E11000 duplicate key", results.get(1).getError());
+        assertTrue(results.get(2).isCreated());
+    }
+
+    @Test
+    void createPrescriptions_ShouldCheckEachItemAgainstEarlierItemsForTheSamePatient() {
+        // Arrange
+        PrescriptionRequest otherPatient = new PrescriptionRequest(2L, 1L, prescriptionRequest.getMedicineList(), null);
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        Prescription alreadyActive = new Prescription();
+        alreadyActive.setId("active-1");
+        alreadyActive.setPatientId(1L);
+        when(idMembershipService.findMissingPatients(anyCollection())).thenReturn(Set.of());
+        when(idMembershipService.findMissingDoctors(anyCollection())).thenReturn(Set.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Prescription.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(drugInteractionService.mentionsKnownDrug(anyList())).thenReturn(true);
+        when(drugInteractionService.findActivePrescriptions(anyCollection())).thenReturn(List.of(alreadyActive));
+        List<List<String>> checkedAgainst = new ArrayList<>();
+        when(drugInteractionService.check(anyList(), anyList())).thenAnswer(invocation -> {
+            List<Prescription> active = invocation.getArgument(1);
+            checkedAgainst.add(active.stream().map(Prescription::getId).toList());
+            return List.of();
+        });
+
+        // Act
+        List<BulkPrescriptionResult> results = prescriptionService.createPrescriptions(
+            List.of(prescriptionRequest, otherPatient, prescriptionRequest));
+
+        // Assert
+        assertEquals(List.of("active-1"), checkedAgainst.get(0));
+        assertEquals(List.of(), checkedAgainst.get(1));
+        assertEquals(List.of("active-1", results.get(0).getPrescriptionId()), checkedAgainst.get(2));
+        verify(drugInteractionService, times(1)).findActivePrescriptions(Set.of(1L, 2L));
+    }
+
+    @Test
+    void getPrescriptionVersion_ShouldReadProjectionWithoutLoadingDocument() {
+        when(prescriptionRepository.findVersionById("rx-1")).thenReturn(Optional.of(new DocumentVersion("rx-1", 3L)));
+
+        assertEquals(Optional.of(3L), prescriptionService.getPrescriptionVersion("rx-1"));
+        verify(prescriptionRepository, never()).findById(any());
+    }
+
     @Test
     void getPatientPrescriptions_ShouldReturnPrescriptions() {
         // Arrange
         List<Prescription> prescriptions = Arrays.asList(prescription);
-        when(patientRepository.existsById(1L)).thenReturn(true);
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
         when(prescriptionRepository.findByPatientIdOrderByCreatedAtDesc(1L)).thenReturn(prescriptions);
 
         // Act
@@ -155,14 +413,40 @@ class PrescriptionServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(prescription.getId(), result.get(0).getId());
-        verify(patientRepository, times(1)).existsById(1L);
+        verify(idMembershipService, times(1)).patientExists(1L);
         verify(prescriptionRepository, times(1)).findByPatientIdOrderByCreatedAtDesc(1L);
     }
 
+    @Test
+    void getPatientPrescriptions_ShouldReadOnlySelectedFields_WhenFieldsetGiven() {
+        // Arrange
+        SparseFieldset fields = SparseFieldset.parse("createdAt, notes", PrescriptionService.LIST_FIELDS);
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
+        when(prescriptionRepository.findByPatientIdWithFields(1L, List.of("id", "createdAt", "notes")))
+            .thenReturn(List.of(prescription));
+
+        // Act
+        List<Map<String, Object>> result = prescriptionService.getPatientPrescriptions(1L, fields);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals(List.of("id", "createdAt", "notes"), List.copyOf(result.get(0).keySet()));
+        assertEquals(prescription.getNotes(), result.get(0).get("notes"));
+        verify(prescriptionRepository, never()).findByPatientIdOrderByCreatedAtDesc(any());
+    }
+
+    @Test
+    void sparseFieldset_ShouldRejectUnknownFields() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> SparseFieldset.parse("notes,dosage", PrescriptionService.LIST_FIELDS));
+
+        assertTrue(exception.getMessage().startsWith("Unknown fields [dosage]"));
+    }
+
     @Test
     void getPatientPrescriptions_ShouldThrowException_WhenPatientNotFound() {
         // Arrange
-        when(patientRepository.existsById(1L)).thenReturn(false);
+        when(idMembershipService.patientExists(1L)).thenReturn(false);
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -170,7 +454,7 @@ class PrescriptionServiceTest {
         });
 
         assertEquals("Patient not found", exception.getMessage());
-        verify(patientRepository, times(1)).existsById(1L);
+        verify(idMembershipService, times(1)).patientExists(1L);
         verify(prescriptionRepository, never()).findByPatientIdOrderByCreatedAtDesc(any());
     }
 
@@ -178,7 +462,7 @@ class PrescriptionServiceTest {
     void getDoctorPrescriptions_ShouldReturnPrescriptions() {
         // Arrange
         List<Prescription> prescriptions = Arrays.asList(prescription);
-        when(doctorRepository.existsById(1L)).thenReturn(true);
+        when(idMembershipService.doctorExists(1L)).thenReturn(true);
         when(prescriptionRepository.findByDoctorId(1L)).thenReturn(prescriptions);
 
         // Act
@@ -188,14 +472,14 @@ class PrescriptionServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(prescription.getId(), result.get(0).getId());
-        verify(doctorRepository, times(1)).existsById(1L);
+        verify(idMembershipService, times(1)).doctorExists(1L);
         verify(prescriptionRepository, times(1)).findByDoctorId(1L);
     }
 
     @Test
     void getDoctorPrescriptions_ShouldThrowException_WhenDoctorNotFound() {
         // Arrange
-        when(doctorRepository.existsById(1L)).thenReturn(false);
+        when(idMembershipService.doctorExists(1L)).thenReturn(false);
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -203,7 +487,289 @@ class PrescriptionServiceTest {
         });
 
         assertEquals("Doctor not found", exception.getMessage());
-        verify(doctorRepository, times(1)).existsById(1L);
+        verify(idMembershipService, times(1)).doctorExists(1L);
         verify(prescriptionRepository, never()).findByDoctorId(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void updatePrescription_ShouldThrowConflictWithoutRetrying_WhenNoVersionPinned() {
+        // Arrange
+        prescription.setVersion(3L);
+        when(prescriptionRepository.findById("prescription123")).thenReturn(Optional.of(prescription));
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
+        when(idMembershipService.doctorExists(1L)).thenReturn(true);
+        when(prescriptionRepository.save(any(Prescription.class)))
+            .thenThrow(new OptimisticLockingFailureException("stale"));
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> {
+            prescriptionService.updatePrescription("prescription123", prescriptionRequest);
+        });
+
+        verify(prescriptionRepository, times(1)).findById("prescription123");
+        verify(prescriptionRepository, times(1)).save(any(Prescription.class));
+        verify(prescriptionRevisionService, never()).recordUpdated(any(), any(), any());
+    }
+
+    @Test
+    void updatePrescription_ShouldThrowConflict_WhenIfMatchVersionIsStale() {
+        // Arrange
+        prescription.setVersion(5L);
+        when(prescriptionRepository.findById("prescription123")).thenReturn(Optional.of(prescription));
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
+        when(idMembershipService.doctorExists(1L)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> {
+            prescriptionService.updatePrescription("prescription123", prescriptionRequest, 4L);
+        });
+
+        verify(prescriptionRepository, never()).save(any());
+    }
+
+    @Test
+    void patchPrescription_ShouldSetOnlyChangedFields_WithoutValidatingOmittedIds() {
+        // Arrange
+        PrescriptionPatchRequest patch = new PrescriptionPatchRequest();
+        patch.setNotes("Review after lab results");
+        patch.setUpdateMedicines(List.of(new PrescriptionPatchRequest.MedicineChange(1, null, "10mg", null, null, null)));
+        prescription.setVersion(3L);
+        when(prescriptionRepository.findById("prescription123")).thenReturn(Optional.of(prescription));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Prescription.class)))
+            .thenReturn(prescription);
+
+        // Act
+        Prescription result = prescriptionService.patchPrescription("prescription123", patch, 3L);
+
+        // Assert
+        assertSame(prescription, result);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(Prescription.class));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(Set.of("notes", "medicineList.1.dosage", "endsAt"), set.keySet());
+        assertEquals(prescription.getCreatedAt().plusDays(14), set.get("endsAt"));
+        assertEquals(new Document("version", 1), update.getValue().getUpdateObject().get("$inc"));
+        assertEquals(3L, query.getValue().getQueryObject().get("version"));
+        verify(prescriptionRevisionService).recordUpdated(any(), eq(3L), same(prescription));
+        verify(idMembershipService, never()).patientExists(any());
+        verify(idMembershipService, never()).doctorExists(any());
+        verify(prescriptionRepository, never()).save(any());
+    }
+
+    @Test
+    void patchPrescription_ShouldValidateOnlyIdsThatChange() {
+        // Arrange
+        PrescriptionPatchRequest patch = new PrescriptionPatchRequest();
+        patch.setPatientId(1L);
+        patch.setDoctorId(2L);
+        when(prescriptionRepository.findById("prescription123")).thenReturn(Optional.of(prescription));
+        when(idMembershipService.doctorExists(2L)).thenReturn(true);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Prescription.class)))
+            .thenReturn(prescription);
+
+        // Act
+        prescriptionService.patchPrescription("prescription123", patch, null);
+
+        // Assert
+        verify(idMembershipService, never()).patientExists(any());
+        verify(idMembershipService).doctorExists(2L);
+    }
+
+    @Test
+    void patchPrescription_ShouldRejectChangedPatientThatDoesNotExist() {
+        // Arrange
+        PrescriptionPatchRequest patch = new PrescriptionPatchRequest();
+        patch.setPatientId(9L);
+        when(prescriptionRepository.findById("prescription123")).thenReturn(Optional.of(prescription));
+        when(idMembershipService.patientExists(9L)).thenReturn(false);
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> prescriptionService.patchPrescription("prescription123", patch, null));
+        assertEquals("Patient not found", exception.getMessage());
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Prescription.class));
+    }
+
+    @Test
+    void patchPrescription_ShouldWriteEndDatesInTheSameVersionedUpdate_WhenDurationChanges() {
+        // Arrange
+        PrescriptionPatchRequest patch = new PrescriptionPatchRequest();
+        patch.setUpdateMedicines(List.of(new PrescriptionPatchRequest.MedicineChange(0, null, null, null, 30, null)));
+        prescription.setVersion(3L);
+        when(prescriptionRepository.findById("prescription123")).thenReturn(Optional.of(prescription));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Prescription.class)))
+            .thenReturn(prescription);
+
+        // Act
+        prescriptionService.patchPrescription("prescription123", patch, null);
+
+        // Assert
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class), eq(Prescription.class));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(30, set.get("medicineList.0.duration"));
+        assertEquals(prescription.getCreatedAt().plusDays(30), set.get("medicineList.0.endsAt"));
+        assertEquals(prescription.getCreatedAt().plusDays(30), set.get("endsAt"));
+        assertEquals(new Document("version", 1), update.getValue().getUpdateObject().get("$inc"));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), anyString());
+    }
+
+    @Test
+    void patchPrescription_ShouldThrowConflict_WhenIfMatchVersionIsStale() {
+        // Arrange
+        PrescriptionPatchRequest patch = new PrescriptionPatchRequest();
+        patch.setNotes("Review after lab results");
+        prescription.setVersion(5L);
+        when(prescriptionRepository.findById("prescription123")).thenReturn(Optional.of(prescription));
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> {
+            prescriptionService.patchPrescription("prescription123", patch, 4L);
+        });
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void patchPrescription_ShouldThrowConflictWithoutRetrying_WhenIndexedChangeLosesTheRace() {
+        // Arrange
+        PrescriptionPatchRequest patch = new PrescriptionPatchRequest();
+        patch.setUpdateMedicines(List.of(new PrescriptionPatchRequest.MedicineChange(0, null, "10mg", null, null, null)));
+        prescription.setVersion(3L);
+        when(prescriptionRepository.findById("prescription123")).thenReturn(Optional.of(prescription));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Prescription.class)))
+            .thenReturn(null);
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> {
+            prescriptionService.patchPrescription("prescription123", patch, null);
+        });
+
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Prescription.class));
+    }
+
+    @Test
+    void patchPrescription_ShouldRetryAgainstFreshVersion_WhenNotesChangeLosesTheRace() {
+        // Arrange
+        PrescriptionPatchRequest patch = new PrescriptionPatchRequest();
+        patch.setNotes("Review after lab results");
+        prescription.setVersion(3L);
+        Prescription fresh = new Prescription();
+        fresh.setId("prescription123");
+        fresh.setVersion(4L);
+        when(prescriptionRepository.findById("prescription123"))
+            .thenReturn(Optional.of(prescription))
+            .thenReturn(Optional.of(fresh));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Prescription.class)))
+            .thenReturn(null)
+            .thenReturn(fresh);
+
+        // Act
+        Prescription result = prescriptionService.patchPrescription("prescription123", patch, null);
+
+        // Assert
+        assertSame(fresh, result);
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Prescription.class));
+    }
+
+    @Test
+    void patchPrescription_ShouldRejectMedicineIndexOutOfRange() {
+        // Arrange
+        PrescriptionPatchRequest patch = new PrescriptionPatchRequest();
+        patch.setUpdateMedicines(List.of(new PrescriptionPatchRequest.MedicineChange(2, null, "10mg", null, null, null)));
+        when(prescriptionRepository.findById("prescription123")).thenReturn(Optional.of(prescription));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            prescriptionService.patchPrescription("prescription123", patch, null);
+        });
+
+        assertEquals("Medicine index out of range", exception.getMessage());
+    }
+
+    @Test
+    void patchPrescription_ShouldRejectMixedMedicineListOperations() {
+        // Arrange
+        PrescriptionPatchRequest patch = new PrescriptionPatchRequest();
+        patch.setAddMedicines(prescriptionRequest.getMedicineList());
+        patch.setRemoveMedicines(List.of("Medication A"));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            prescriptionService.patchPrescription("prescription123", patch, null);
+        });
+
+        assertTrue(exception.getMessage().startsWith("Only one of"));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void deletePrescription_ShouldRemoveItsCountsFromTheRollups() {
+        // Arrange
+        when(prescriptionRepository.findById("prescription123")).thenReturn(Optional.of(prescription));
+
+        // Act
+        prescriptionService.deletePrescription("prescription123");
+
+        // Assert
+        verify(prescriptionRepository).delete(prescription);
+        verify(prescribingAnalyticsService).recordDeleted(prescription);
+    }
+
+    @Test
+    void deletePrescription_ShouldRecordTombstoneRevision() {
+        // Arrange
+        when(prescriptionRepository.findById("prescription123")).thenReturn(Optional.of(prescription));
+
+        // Act
+        prescriptionService.deletePrescription("prescription123");
+
+        // Assert
+        InOrder order = inOrder(prescriptionRepository, prescriptionRevisionService);
+        order.verify(prescriptionRepository).delete(prescription);
+        order.verify(prescriptionRevisionService).recordDeleted(prescription);
+    }
+
+    @Test
+    void getPatientPrescriptionsPage_ShouldReturnCursorThatResumesAfterLastItem() {
+        // Arrange
+        Prescription second = new Prescription();
+        second.setId("prescription122");
+        second.setCreatedAt(prescription.getCreatedAt().minusMinutes(5));
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
+        when(prescriptionRepository.findPageByPatientId(eq(1L), isNull(), isNull(), eq(2)))
+            .thenReturn(Arrays.asList(prescription, second));
+
+        // Act
+        CursorPage<Prescription> firstPage = prescriptionService.getPatientPrescriptionsPage(1L, null, 1);
+
+        // Assert
+        assertEquals(1, firstPage.getItems().size());
+        assertTrue(firstPage.isHasMore());
+        assertNotNull(firstPage.getNextCursor());
+
+        // Act: the cursor decodes back to the last item's keys
+        when(prescriptionRepository.findPageByPatientId(eq(1L), any(LocalDateTime.class), eq("prescription123"), eq(2)))
+            .thenReturn(List.of(second));
+        CursorPage<Prescription> secondPage = prescriptionService.getPatientPrescriptionsPage(1L, firstPage.getNextCursor(), 1);
+
+        // Assert
+        assertEquals("prescription122", secondPage.getItems().get(0).getId());
+        assertFalse(secondPage.isHasMore());
+        assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    void getPatientPrescriptionsPage_ShouldThrowException_WhenCursorIsInvalid() {
+        // Arrange
+        when(idMembershipService.patientExists(1L)).thenReturn(true);
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            prescriptionService.getPatientPrescriptionsPage(1L, "not-a-cursor", 20);
+        });
+
+        assertEquals("Invalid cursor", exception.getMessage());
+    }
+}
@@ -0,0 +1,122 @@
+package com.smartclinic.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadCoalescerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void execute_ShouldShareOneQueryBetweenConcurrentCallersForSameKey() throws Exception {
+        // Arrange
+        ReadCoalescer readCoalescer = new ReadCoalescer(meterRegistry, Duration.ofSeconds(5));
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+
+        // Act
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 5; i++) {
+                results.add(executor.submit(() -> readCoalescer.execute("chart", 1L, () -> {
+                    queries.incrementAndGet();
+                    await(release);
+                    return "chart-1";
+                })));
+            }
+            try {
+                while (followers() < 4) {
+                    Thread.sleep(5);
+                }
+            } finally {
+                release.countDown();
+            }
+            for (Future<String> result : results) {
+                assertEquals("chart-1", result.get(5, TimeUnit.SECONDS));
+            }
+        }
+
+        // Assert
+        assertEquals(1, queries.get());
+        assertEquals(0.8, meterRegistry.get("smartclinic.reads.collapse.ratio").tag("read", "chart").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void execute_ShouldQueryAgain_OnceTheLeaderHasFinished() {
+        ReadCoalescer readCoalescer = new ReadCoalescer(meterRegistry, Duration.ofSeconds(5));
+        AtomicInteger queries = new AtomicInteger();
+
+        readCoalescer.execute("chart", 1L, queries::incrementAndGet);
+        readCoalescer.execute("chart", 1L, queries::incrementAndGet);
+        readCoalescer.execute("chart", 2L, queries::incrementAndGet);
+
+        assertEquals(3, queries.get());
+    }
+
+    @Test
+    void execute_ShouldQueryOnItsOwn_WhenFollowerTimesOut() throws Exception {
+        // Arrange
+        ReadCoalescer readCoalescer = new ReadCoalescer(meterRegistry, Duration.ofMillis(50));
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> readCoalescer.execute("chart", 1L, () -> {
+                leaderStarted.countDown();
+                await(release);
+                return "slow";
+            }));
+            leaderStarted.await();
+
+            try {
+                // Act
+                String follower = readCoalescer.execute("chart", 1L, () -> "fresh");
+
+                // Assert
+                assertEquals("fresh", follower);
+                assertEquals(1, meterRegistry.get("smartclinic.reads.coalesced").tag("role", "timeout").functionCounter().count());
+            } finally {
+                release.countDown();
+            }
+            assertEquals("slow", leader.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void execute_ShouldPropagateLeaderFailureToCaller() {
+        ReadCoalescer readCoalescer = new ReadCoalescer(meterRegistry, Duration.ofSeconds(5));
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> readCoalescer.execute("chart", 1L, () -> { throw new RuntimeException("Mongo unavailable"); }));
+
+        assertEquals("Mongo unavailable", exception.getMessage());
+    }
+
+    private double followers() {
+        // The counter is only registered once the first caller for the read has arrived
+        FunctionCounter counter = meterRegistry.find("smartclinic.reads.coalesced")
+            .tag("read", "chart").tag("role", "follower").functionCounter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}